@@ -0,0 +1,56 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import skiplist.BlockedSkipList;
+
+/** Uniform random lookup latency of {@link BlockedSkipList} for each block size. The number of blocks and their average fill
+ * 	are printed by the setup of every trial. {@link ReadBenchmark} compares the default block size to the other structures.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+@State(Scope.Benchmark)
+public class BlockSizeBenchmark {
+
+	@Param({ "1000000", "10000000" })
+	int size;
+
+	@Param({ "8", "16", "32", "64", "128" })
+	int blockSize;
+
+	private BlockedSkipList<Integer, Integer> list;
+	private Object[] keys;
+	private int[] accesses;
+	private int cursor;
+
+	@Setup
+	public void setUp() {
+		keys = Keys.generate(Keys.INTEGER, size);
+		accesses = Keys.accesses(Keys.UNIFORM, size, 1);
+		list = new BlockedSkipList<>(null, blockSize);
+		for (int index : Keys.shuffled(size, 2))
+			list.put((Integer) keys[index], index);
+		System.out.printf("%n# blocks of %d: %d blocks, %.1f%% full%n", blockSize, list.blocks(),
+				100.0 * size / ((long) list.blocks() * blockSize));
+	}
+
+	@Benchmark
+	public Integer get() {
+		return list.get((Integer) keys[accesses[cursor++ & (Keys.ACCESSES - 1)]]);
+	}
+}
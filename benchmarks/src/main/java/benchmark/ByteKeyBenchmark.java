@@ -0,0 +1,111 @@
+package benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import skiplist.ByteKeySkipList;
+import skiplist.SkipList;
+
+/** Lookup latency of {@link ByteKeySkipList} against a {@link SkipList} of String keys and a SkipList of byte[] keys ordered by
+ * 	{@link Arrays#compareUnsigned(byte[], byte[])}, for URL keys with long shared prefixes. The heap held by each structure per entry
+ * 	is printed by the setup of every trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+@State(Scope.Benchmark)
+public class ByteKeyBenchmark {
+
+	/** Names accepted by {@link #structure} */
+	static final String STRING_SKIP_LIST = "SkipList<String>";
+	static final String BYTES_SKIP_LIST = "SkipList<byte[]>";
+	static final String BYTE_KEY_SKIP_LIST = "ByteKeySkipList";
+
+	@Param({ "200000", "1000000" })
+	int size;
+
+	@Param({ STRING_SKIP_LIST, BYTES_SKIP_LIST, BYTE_KEY_SKIP_LIST })
+	String structure;
+
+	private SkipList<String, Integer> strings;
+	private SkipList<byte[], Integer> bytes;
+	private ByteKeySkipList<Integer> compressed;
+	/** the keys as the lookups pass them, separate copies of the stored keys */
+	private String[] stringProbes;
+	private byte[][] probes;
+	private int[] accesses;
+	private int cursor;
+
+	@Setup
+	public void setUp() {
+		Random rand = new Random(1);
+		String[] keys = new String[size];
+		for (int i = 0; i < size; i++)
+			keys[i] = String.format("https://shop.example.com/catalog/category-%03d/products/item-%08d", rand.nextInt(500), rand.nextInt(100_000_000));
+		accesses = Keys.accesses(Keys.UNIFORM, size, 2);
+		probes = new byte[size][];
+		stringProbes = new String[size];
+		for (int i = 0; i < size; i++) {
+			probes[i] = keys[i].getBytes(StandardCharsets.UTF_8);
+			stringProbes[i] = new String(probes[i], StandardCharsets.UTF_8);
+		}
+
+		long before = usedHeap();
+		switch (structure) {
+		case STRING_SKIP_LIST:
+			strings = new SkipList<>();
+			for (String key : keys)
+				strings.add(new String(key.toCharArray()), 0);
+			break;
+		case BYTES_SKIP_LIST:
+			bytes = new SkipList<>(Arrays::compareUnsigned);
+			for (String key : keys)
+				bytes.add(key.getBytes(StandardCharsets.UTF_8), 0);
+			break;
+		case BYTE_KEY_SKIP_LIST:
+			compressed = new ByteKeySkipList<>();
+			for (String key : keys)
+				compressed.put(key.getBytes(StandardCharsets.UTF_8), 0);
+			break;
+		default:
+			throw new IllegalArgumentException("unknown structure " + structure);
+		}
+		System.out.printf("%n# %s: %.1f bytes/entry%n", structure, (double) (usedHeap() - before) / size);
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 5; i++)
+			System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	@Benchmark
+	public Integer get() {
+		int index = accesses[cursor++ & (Keys.ACCESSES - 1)];
+		switch (structure) {
+		case STRING_SKIP_LIST:
+			return strings.get(stringProbes[index]);
+		case BYTES_SKIP_LIST:
+			return bytes.get(probes[index]);
+		default:
+			return compressed.get(probes[index]);
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package benchmark;
+
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import skiplist.ConcurrentSkipList;
+
+/** Throughput of {@link ConcurrentSkipList} against {@link ConcurrentSkipListMap} when threads share one structure.
+ * 	The structure holds about half of twice size keys, puts and removes draw from all of them so the size stays put.
+ * 	{@link #mixed()} runs on every available core, scaling is measured by repeating it with fewer threads, e.g. -t 1,2,4,8,16.
+ * 	The readWrite group runs three readers against one writer.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+@State(Scope.Benchmark)
+public class ConcurrentBenchmark {
+
+	/** Names accepted by {@link #structure} */
+	static final String CONCURRENT_SKIP_LIST = "ConcurrentSkipList";
+	static final String CONCURRENT_SKIP_LIST_MAP = "ConcurrentSkipListMap";
+
+	@Param({ "100000", "1000000" })
+	int size;
+
+	@Param({ CONCURRENT_SKIP_LIST, CONCURRENT_SKIP_LIST_MAP })
+	String structure;
+
+	private ConcurrentSkipList<Integer, Integer> list;
+	private ConcurrentSkipListMap<Integer, Integer> map;
+	/** boxed up front so the operations only allocate inside the structure */
+	private Integer[] keys;
+
+	@Setup
+	public void setUp() {
+		keys = new Integer[2 * size];
+		for (int i = 0; i < keys.length; i++)
+			keys[i] = i;
+		switch (structure) {
+		case CONCURRENT_SKIP_LIST:
+			list = new ConcurrentSkipList<>();
+			break;
+		case CONCURRENT_SKIP_LIST_MAP:
+			map = new ConcurrentSkipListMap<>();
+			break;
+		default:
+			throw new IllegalArgumentException("unknown structure " + structure);
+		}
+		for (int i = 0; i < keys.length; i += 2)
+			put(keys[i]);
+	}
+
+	private Integer key() {
+		return keys[ThreadLocalRandom.current().nextInt(keys.length)];
+	}
+
+	private Integer get(Integer key) {
+		return list != null ? list.get(key) : map.get(key);
+	}
+
+	private Integer put(Integer key) {
+		return list != null ? list.put(key, key) : map.put(key, key);
+	}
+
+	private Integer remove(Integer key) {
+		return list != null ? list.remove(key) : map.remove(key);
+	}
+
+	/** 80% gets, 10% puts and 10% removes of random keys */
+	@Benchmark
+	@Threads(Threads.MAX)
+	public Integer mixed() {
+		int operation = ThreadLocalRandom.current().nextInt(10);
+		Integer key = key();
+		if (operation == 0)
+			return put(key);
+		if (operation == 1)
+			return remove(key);
+		return get(key);
+	}
+
+	@Benchmark
+	@Group("readWrite")
+	@GroupThreads(3)
+	public Integer read() {
+		return get(key());
+	}
+
+	@Benchmark
+	@Group("readWrite")
+	@GroupThreads(1)
+	public Integer write() {
+		Integer key = key();
+		return (key & 1) == 0 ? put(key) : remove(key);
+	}
+}
@@ -0,0 +1,75 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import skiplist.DurableSkipList;
+import skiplist.DurableSkipList.FsyncPolicy;
+import skiplist.Serializer;
+
+/** Throughput of {@link DurableSkipList#add(Comparable, Object) add} under every {@link FsyncPolicy}, with one writer and with
+ * 	{@link #WRITERS} writers whose records are forced to disk in shared groups. Every trial starts from an empty directory.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DurableBenchmark {
+
+	/** Threads of {@link #addShared()} */
+	static final int WRITERS = 4;
+
+	@Param({ "EVERY_WRITE", "INTERVAL", "NEVER" })
+	FsyncPolicy policy;
+
+	private Path directory;
+	private DurableSkipList<Integer, String> list;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("durable");
+		list = new DurableSkipList<>(directory, Serializer.INTEGER, Serializer.STRING, policy);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		list.close();
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+		}
+	}
+
+	@Benchmark
+	@Threads(1)
+	public Object add() {
+		return list.add(ThreadLocalRandom.current().nextInt(1_000_000), "value");
+	}
+
+	@Benchmark
+	@Threads(WRITERS)
+	public Object addShared() {
+		return list.add(ThreadLocalRandom.current().nextInt(1_000_000), "value");
+	}
+}
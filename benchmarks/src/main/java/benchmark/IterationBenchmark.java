@@ -0,0 +1,49 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Iteration over every entry in key order, the time reported is for the whole structure. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms8g", "-Xmx8g" })
+@State(Scope.Benchmark)
+public class IterationBenchmark {
+
+	@Param({ "1000", "100000", "1000000", "10000000" })
+	int size;
+
+	@Param({ Keys.INTEGER, Keys.STRING })
+	String keyType;
+
+	@Param({ Structure.SKIP_LIST, Structure.BLOCKED_SKIP_LIST, Structure.TREE_MAP, Structure.CONCURRENT_SKIP_LIST_MAP })
+	String structure;
+
+	private Structure target;
+
+	@Setup
+	public void setUp() {
+		Object[] keys = Keys.generate(keyType, size);
+		target = Structure.create(structure);
+		for (int index : Keys.shuffled(size, 2))
+			target.put(keys[index], index);
+	}
+
+	@Benchmark
+	public long iterate() {
+		return target.iterate();
+	}
+}
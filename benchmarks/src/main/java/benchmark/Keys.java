@@ -0,0 +1,136 @@
+package benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/** Keys and access patterns shared by the benchmarks. Keys are distinct and sorted, so an index into them is the rank of a key.
+ * 	An access pattern is a cyclic sequence of such indices drawn from one of the distributions.
+ */
+final class Keys {
+
+	/** Names of the key types */
+	static final String INTEGER = "Integer";
+	static final String STRING = "String";
+
+	/** Names of the access distributions */
+	static final String UNIFORM = "uniform";
+	static final String ZIPFIAN = "zipfian";
+	static final String SEQUENTIAL = "sequential";
+
+	/** Number of indices in an access pattern, a power of two so the cursor can wrap with a mask */
+	static final int ACCESSES = 1 << 20;
+	/** Skew of the Zipfian distribution, as used by YCSB */
+	private static final double ZIPFIAN_THETA = 0.99;
+
+	private Keys() {}
+
+	/** Creates count distinct keys in ascending order
+	 * @param type {@link #INTEGER} or {@link #STRING}
+	 * @param count the number of keys
+	 * @return the sorted keys
+	 */
+	static Object[] generate(String type, int count) {
+		Object[] keys = new Object[count];
+		for (int i = 0; i < count; i++) {
+			// multiplying by an odd constant is a bijection on int, so the keys are distinct but not in order
+			int scrambled = i * 0x9E3779B9;
+			switch (type) {
+			case INTEGER:
+				keys[i] = scrambled;
+				break;
+			case STRING:
+				keys[i] = "user:" + Integer.toUnsignedString(scrambled, 36);
+				break;
+			default:
+				throw new IllegalArgumentException("unknown key type " + type);
+			}
+		}
+		Arrays.sort(keys);
+		return keys;
+	}
+
+	/** Creates an access pattern of {@link #ACCESSES} indices below count
+	 * @param distribution {@link #UNIFORM}, {@link #ZIPFIAN} or {@link #SEQUENTIAL}
+	 * @param count the number of keys
+	 * @param seed seed of the random distributions
+	 * @return the indices in the order they are accessed
+	 */
+	static int[] accesses(String distribution, int count, long seed) {
+		Random random = new Random(seed);
+		int[] accesses = new int[ACCESSES];
+		switch (distribution) {
+		case UNIFORM:
+			for (int i = 0; i < ACCESSES; i++)
+				accesses[i] = random.nextInt(count);
+			break;
+		case ZIPFIAN:
+			Zipfian zipfian = new Zipfian(count, ZIPFIAN_THETA);
+			for (int i = 0; i < ACCESSES; i++)
+				accesses[i] = scatter(zipfian.next(random), count);
+			break;
+		case SEQUENTIAL:
+			for (int i = 0; i < ACCESSES; i++)
+				accesses[i] = i % count;
+			break;
+		default:
+			throw new IllegalArgumentException("unknown distribution " + distribution);
+		}
+		return accesses;
+	}
+
+	/** Returns a random permutation of the indices below count */
+	static int[] shuffled(int count, long seed) {
+		Random random = new Random(seed);
+		int[] order = new int[count];
+		for (int i = 0; i < count; i++)
+			order[i] = i;
+		for (int i = count - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int swap = order[i];
+			order[i] = order[j];
+			order[j] = swap;
+		}
+		return order;
+	}
+
+	/** Maps a Zipfian rank to an index so the popular keys are spread over the key space instead of being neighbors */
+	private static int scatter(int rank, int count) {
+		return (int) ((rank * 2654435761L) % count);
+	}
+
+	/** Zipfian ranks below n, popularity of rank i proportional to 1 / (i + 1)^theta.
+	 * 	Uses the rejection free method of Gray et al., "Quickly Generating Billion-Record Synthetic Databases".
+	 */
+	private static class Zipfian {
+		private final int n;
+		private final double theta;
+		private final double alpha;
+		private final double zetaN;
+		private final double eta;
+
+		private Zipfian(int n, double theta) {
+			this.n = n;
+			this.theta = theta;
+			this.alpha = 1 / (1 - theta);
+			this.zetaN = zeta(n, theta);
+			this.eta = (1 - Math.pow(2.0 / n, 1 - theta)) / (1 - zeta(2, theta) / zetaN);
+		}
+
+		private static double zeta(int n, double theta) {
+			double sum = 0;
+			for (int i = 1; i <= n; i++)
+				sum += 1 / Math.pow(i, theta);
+			return sum;
+		}
+
+		private int next(Random random) {
+			double u = random.nextDouble();
+			double uz = u * zetaN;
+			if (uz < 1)
+				return 0;
+			if (uz < 1 + Math.pow(0.5, theta))
+				return Math.min(1, n - 1);
+			return Math.min((int) (n * Math.pow(eta * u - eta + 1, alpha)), n - 1);
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import skiplist.SkipList;
+import skiplist.SkipListMetrics;
+
+/** Lookup latency of {@link SkipList} for each promotion probability and maximum level. The memory held by the nodes of each
+ * 	configuration, from {@link SkipListMetrics#memoryEstimate()}, is printed by the setup of every trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+@State(Scope.Benchmark)
+public class LevelBenchmark {
+
+	/** Names accepted by {@link #maxLevel} */
+	static final String UNBOUNDED = "unbounded";
+	static final String ADAPTIVE = "adaptive";
+	/** capped at the levels expected for the size, see {@link SkipList#levelsFor(int, long)} */
+	static final String EXPECTED = "expected";
+
+	@Param({ "100000", "1000000" })
+	int size;
+
+	@Param({ "2", "3", "4", "8" })
+	int probability;
+
+	@Param({ UNBOUNDED, ADAPTIVE, EXPECTED })
+	String maxLevel;
+
+	private SkipList<Integer, Integer> list;
+	private Object[] keys;
+	private int[] accesses;
+	private int cursor;
+
+	@Setup
+	public void setUp() {
+		keys = Keys.generate(Keys.INTEGER, size);
+		accesses = Keys.accesses(Keys.UNIFORM, size, 1);
+		int level = maxLevel.equals(UNBOUNDED) ? SkipList.UNBOUNDED
+				: maxLevel.equals(ADAPTIVE) ? SkipList.ADAPTIVE : SkipList.levelsFor(probability, size);
+		list = new SkipList<>(probability, level);
+		for (int index : Keys.shuffled(size, 2))
+			list.add((Integer) keys[index], index);
+		SkipListMetrics metrics = list.enableMetrics();
+		System.out.printf("%n# p=1/%d, %s: %.1f bytes/node, %d lists%n", probability, maxLevel,
+				(double) metrics.memoryEstimate() / size, metrics.skips() + 1);
+		list.disableMetrics();
+	}
+
+	@Benchmark
+	public Integer get() {
+		return list.get(keys[accesses[cursor++ & (Keys.ACCESSES - 1)]]);
+	}
+}
@@ -0,0 +1,75 @@
+package benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Reads mixed with writes on a key space of twice size keys of which half are present.
+ * 	A read looks up a key, a write removes the key if it is present and adds it otherwise, keeping the size stable.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms8g", "-Xmx8g" })
+@State(Scope.Benchmark)
+public class MixedBenchmark {
+
+	@Param({ "1000", "100000", "1000000", "10000000" })
+	int size;
+
+	@Param({ Keys.INTEGER, Keys.STRING })
+	String keyType;
+
+	@Param({ Keys.UNIFORM, Keys.ZIPFIAN, Keys.SEQUENTIAL })
+	String distribution;
+
+	@Param({ Structure.SKIP_LIST, Structure.BLOCKED_SKIP_LIST, Structure.TREE_MAP, Structure.CONCURRENT_SKIP_LIST_MAP })
+	String structure;
+
+	/** Percentage of the operations that are reads */
+	@Param({ "50", "90", "99" })
+	int readPercent;
+
+	private Structure target;
+	private Object[] keys;
+	private int[] accesses;
+	/** decides for every access whether it is a read */
+	private boolean[] reads;
+	private int cursor;
+
+	@Setup
+	public void setUp() {
+		keys = Keys.generate(keyType, 2 * size);
+		accesses = Keys.accesses(distribution, 2 * size, 1);
+		reads = new boolean[Keys.ACCESSES];
+		Random random = new Random(3);
+		for (int i = 0; i < Keys.ACCESSES; i++)
+			reads[i] = random.nextInt(100) < readPercent;
+		target = Structure.create(structure);
+		for (int index : Keys.shuffled(size, 2))
+			target.put(keys[2 * index], index);
+	}
+
+	@Benchmark
+	public Object mixed() {
+		int i = cursor++ & (Keys.ACCESSES - 1);
+		Object key = keys[accesses[i]];
+		if (reads[i])
+			return target.get(key);
+		if (target.remove(key) == null)
+			target.put(key, i);
+		return key;
+	}
+}
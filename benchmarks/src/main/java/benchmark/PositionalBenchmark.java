@@ -0,0 +1,51 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** {@link skiplist.SkipList#get(int)}, the baselines have no positional access so only the skiplist is measured.
+ * 	The key type does not influence the descent, which only follows widths, so Integer keys are used.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms8g", "-Xmx8g" })
+@State(Scope.Benchmark)
+public class PositionalBenchmark {
+
+	@Param({ "1000", "100000", "1000000", "10000000" })
+	int size;
+
+	@Param({ Keys.UNIFORM, Keys.ZIPFIAN, Keys.SEQUENTIAL })
+	String distribution;
+
+	private Structure target;
+	private int[] accesses;
+	private int cursor;
+
+	@Setup
+	public void setUp() {
+		Object[] keys = Keys.generate(Keys.INTEGER, size);
+		accesses = Keys.accesses(distribution, size, 1);
+		target = Structure.create(Structure.SKIP_LIST);
+		for (int index : Keys.shuffled(size, 2))
+			target.put(keys[index], index);
+	}
+
+	@Benchmark
+	public Integer getIndex() {
+		return Structure.getAt(target, accesses[cursor++ & (Keys.ACCESSES - 1)]);
+	}
+}
@@ -0,0 +1,65 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Point lookups of keys that are present, in the order of the access distribution. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms8g", "-Xmx8g" })
+@State(Scope.Benchmark)
+public class ReadBenchmark {
+
+	@Param({ "1000", "100000", "1000000", "10000000" })
+	int size;
+
+	@Param({ Keys.INTEGER, Keys.STRING })
+	String keyType;
+
+	@Param({ Keys.UNIFORM, Keys.ZIPFIAN, Keys.SEQUENTIAL })
+	String distribution;
+
+	@Param({ Structure.SKIP_LIST, Structure.BLOCKED_SKIP_LIST, Structure.TREE_MAP, Structure.CONCURRENT_SKIP_LIST_MAP })
+	String structure;
+
+	private Structure target;
+	private Object[] keys;
+	private int[] accesses;
+	private int cursor;
+
+	@Setup
+	public void setUp() {
+		keys = Keys.generate(keyType, size);
+		accesses = Keys.accesses(distribution, size, 1);
+		target = Structure.create(structure);
+		for (int index : Keys.shuffled(size, 2))
+			target.put(keys[index], index);
+	}
+
+	private Object nextKey() {
+		return keys[accesses[cursor++ & (Keys.ACCESSES - 1)]];
+	}
+
+	@Benchmark
+	public Integer get() {
+		return target.get(nextKey());
+	}
+
+	@Benchmark
+	public boolean contains() {
+		return target.contains(nextKey());
+	}
+}
@@ -0,0 +1,182 @@
+package benchmark;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import skiplist.BlockedSkipList;
+import skiplist.SkipList;
+
+/** The structures compared by the benchmarks, behind the operations they have in common.
+ * 	{@link SkipList} and {@link BlockedSkipList} are measured against {@link TreeMap} and {@link ConcurrentSkipListMap} as baselines.
+ */
+abstract class Structure {
+
+	/** Names accepted by {@link #create(String)} */
+	static final String SKIP_LIST = "SkipList";
+	static final String BLOCKED_SKIP_LIST = "BlockedSkipList";
+	static final String TREE_MAP = "TreeMap";
+	static final String CONCURRENT_SKIP_LIST_MAP = "ConcurrentSkipListMap";
+
+	abstract void put(Object key, Integer value);
+
+	abstract Integer get(Object key);
+
+	abstract boolean contains(Object key);
+
+	abstract Integer remove(Object key);
+
+	/** Visits every entry in key order
+	 * @return a value depending on every entry, so the visits cannot be optimized away
+	 */
+	abstract long iterate();
+
+	abstract int size();
+
+	static Structure create(String name) {
+		switch (name) {
+		case SKIP_LIST:
+			return new OfSkipList();
+		case BLOCKED_SKIP_LIST:
+			return new OfBlockedSkipList();
+		case TREE_MAP:
+			return new OfMap(new TreeMap<Object, Integer>());
+		case CONCURRENT_SKIP_LIST_MAP:
+			return new OfMap(new ConcurrentSkipListMap<Object, Integer>());
+		default:
+			throw new IllegalArgumentException("unknown structure " + name);
+		}
+	}
+
+	/** {@link SkipList} ordered by the natural ordering of its keys */
+	private static class OfSkipList extends Structure {
+		private final SkipList<Object, Integer> list = new SkipList<>();
+
+		@Override
+		void put(Object key, Integer value) {
+			list.add(key, value);
+		}
+
+		@Override
+		Integer get(Object key) {
+			return list.get(key);
+		}
+
+		@Override
+		boolean contains(Object key) {
+			return list.contains(key);
+		}
+
+		@Override
+		Integer remove(Object key) {
+			if (list.isEmpty())
+				return null;
+			SkipList.Node<Object, Integer> removed = list.remove(key);
+			return removed == null ? null : removed.getValue();
+		}
+
+		@Override
+		long iterate() {
+			long sum = 0;
+			for (SkipList.Node<Object, Integer> node : list)
+				sum += node.getValue();
+			return sum;
+		}
+
+		@Override
+		int size() {
+			return list.size();
+		}
+
+		/** Returns the value at index */
+		Integer get(int index) {
+			return list.get(index);
+		}
+	}
+
+	/** {@link BlockedSkipList} with blocks of {@link BlockedSkipList#DEFAULT_BLOCK_SIZE} keys */
+	private static class OfBlockedSkipList extends Structure {
+		private final BlockedSkipList<Object, Integer> list = new BlockedSkipList<>();
+
+		@Override
+		void put(Object key, Integer value) {
+			list.put(key, value);
+		}
+
+		@Override
+		Integer get(Object key) {
+			return list.get(key);
+		}
+
+		@Override
+		boolean contains(Object key) {
+			return list.contains(key);
+		}
+
+		@Override
+		Integer remove(Object key) {
+			return list.remove(key);
+		}
+
+		@Override
+		long iterate() {
+			long sum = 0;
+			for (Map.Entry<Object, Integer> entry : list)
+				sum += entry.getValue();
+			return sum;
+		}
+
+		@Override
+		int size() {
+			return list.size();
+		}
+	}
+
+	/** Any {@link NavigableMap} */
+	private static class OfMap extends Structure {
+		private final NavigableMap<Object, Integer> map;
+
+		private OfMap(NavigableMap<Object, Integer> map) {
+			this.map = map;
+		}
+
+		@Override
+		void put(Object key, Integer value) {
+			map.put(key, value);
+		}
+
+		@Override
+		Integer get(Object key) {
+			return map.get(key);
+		}
+
+		@Override
+		boolean contains(Object key) {
+			return map.containsKey(key);
+		}
+
+		@Override
+		Integer remove(Object key) {
+			return map.remove(key);
+		}
+
+		@Override
+		long iterate() {
+			long sum = 0;
+			for (Map.Entry<Object, Integer> entry : map.entrySet())
+				sum += entry.getValue();
+			return sum;
+		}
+
+		@Override
+		int size() {
+			return map.size();
+		}
+	}
+
+	/** Returns the value at index of a {@link SkipList}, the only structure with positional access */
+	static Integer getAt(Structure structure, int index) {
+		return ((OfSkipList) structure).get(index);
+	}
+}
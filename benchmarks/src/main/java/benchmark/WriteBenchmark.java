@@ -0,0 +1,94 @@
+package benchmark;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Adds of absent keys and removes of present keys. The structure holds the keys of even rank out of twice size keys,
+ * 	adds use the keys of odd rank so they land between present keys. Each measured batch of {@link #BATCH} operations
+ * 	is undone after its iteration, so every batch starts from a structure of size keys.
+ * 	Keys repeated by the skewed distributions update an added key or miss a removed one.
+ * 	Scores are the time of a whole batch.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 10, batchSize = WriteBenchmark.BATCH)
+@Measurement(iterations = 20, batchSize = WriteBenchmark.BATCH)
+@Fork(value = 1, jvmArgsAppend = { "-Xms8g", "-Xmx8g" })
+@State(Scope.Benchmark)
+public class WriteBenchmark {
+
+	/** Operations per measured batch */
+	static final int BATCH = 1000;
+
+	@Param({ "1000", "100000", "1000000", "10000000" })
+	int size;
+
+	@Param({ Keys.INTEGER, Keys.STRING })
+	String keyType;
+
+	@Param({ Keys.UNIFORM, Keys.ZIPFIAN, Keys.SEQUENTIAL })
+	String distribution;
+
+	@Param({ Structure.SKIP_LIST, Structure.BLOCKED_SKIP_LIST, Structure.TREE_MAP, Structure.CONCURRENT_SKIP_LIST_MAP })
+	String structure;
+
+	private Structure target;
+	private Object[] keys;
+	private int[] accesses;
+	private int cursor;
+	/** keys added or removed by the current iteration */
+	private final ArrayDeque<Object> added = new ArrayDeque<>();
+	private final ArrayDeque<Object> removed = new ArrayDeque<>();
+
+	@Setup
+	public void setUp() {
+		keys = Keys.generate(keyType, 2 * size);
+		accesses = Keys.accesses(distribution, size, 1);
+		target = Structure.create(structure);
+		for (int index : Keys.shuffled(size, 2))
+			target.put(keys[2 * index], index);
+	}
+
+	/** Restores the structure to the even keys */
+	@TearDown(Level.Iteration)
+	public void undo() {
+		while (!added.isEmpty())
+			target.remove(added.poll());
+		while (!removed.isEmpty())
+			target.put(removed.poll(), 0);
+	}
+
+	private int nextIndex() {
+		return accesses[cursor++ & (Keys.ACCESSES - 1)];
+	}
+
+	@Benchmark
+	public void add() {
+		Object key = keys[2 * nextIndex() + 1];
+		target.put(key, 0);
+		added.add(key);
+	}
+
+	@Benchmark
+	public Integer remove() {
+		Object key = keys[2 * nextIndex()];
+		Integer value = target.remove(key);
+		if (value != null)
+			removed.add(key);
+		return value;
+	}
+}
@@ -0,0 +1,450 @@
+package skiplist;
+
+import java.util.AbstractMap;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/** {@link SkipList} of blocks, where every node holds a sorted run of up to blockSize keys and their values in two arrays.
+ * 	The lists link blocks instead of single keys, so a search follows a link per block passed and then binary searches the keys of
+ * 	the block it lands in, which lie next to each other in one array. With blocks of 32 keys that are half to fully used there are a sixteenth
+ * 	to a thirty-second as many nodes as in a SkipList, the lists above them are shorter by the same factor and each node carries one tower for many keys.
+ * 	The express lists are ordered by the first key of each block. A full block is split in half on add, a block that falls below a quarter
+ * 	full on remove is merged with the next block if both fit in three quarters of a block, and an empty block is unlinked.
+ * 	Offers the key based operations of SkipList, positional access is not supported.
+ * 	Does not support duplicate keys or null keys.
+ *
+ * @param <K> key
+ * @param <V> value
+ */
+public class BlockedSkipList<K, V> implements Iterable<Map.Entry<K, V>> {
+
+	/** Node used in the {@link BlockedSkipList}, a sorted run of keys with a single tower holding its links in every list it is in.
+	 *
+	 * @param <K> Key
+	 * @param <V> Value
+	 */
+	private static class Block<K, V> {
+		private final Object[] keys;
+		private final Object[] values;
+		/** the number of keys in use, keys[0, count) */
+		private int count;
+		/** the next block in the full list, null for the last block */
+		private Block<K, V> next;
+		/** express[i - 1] is the next block in list i, null if the block is only in the full list */
+		private Block<K, V>[] express;
+
+		@SuppressWarnings("unchecked")
+		private Block(int capacity, int height) {
+			keys = new Object[capacity];
+			values = new Object[capacity];
+			if (height > 1)
+				express = (Block<K, V>[]) new Block<?, ?>[height - 1];
+		}
+
+		/** returns the number of lists the Block is in */
+		private int height() {
+			return express == null ? 1 : express.length + 1;
+		}
+
+		/** returns the next Block in list level */
+		private Block<K, V> next(int level) {
+			return level == 0 ? next : express[level - 1];
+		}
+
+		/** sets the next Block in list level */
+		private void link(int level, Block<K, V> block) {
+			if (level == 0)
+				next = block;
+			else
+				express[level - 1] = block;
+		}
+
+		@SuppressWarnings("unchecked")
+		private K key(int index) {
+			return (K) keys[index];
+		}
+
+		@SuppressWarnings("unchecked")
+		private V value(int index) {
+			return (V) values[index];
+		}
+	}
+
+	/** Number of keys per block of a list created without a block size */
+	public static final int DEFAULT_BLOCK_SIZE = 32;
+	/** Smallest block size accepted */
+	private static final int MIN_BLOCK_SIZE = 4;
+	/** Multiplicator used to expand the arrays */
+	private static final int ARRAY_RESIZE_MULTIPLICATOR = 2;
+
+	/** comparator of the keys, null for their natural ordering */
+	private final Comparator<? super K> comparator;
+	/** the maximum number of keys in a block */
+	private final int blockSize;
+	/** a block with fewer keys is merged with the next block */
+	private final int minFill;
+	/** probability of elevating a block to upper list. 1/probability, higher than in {@link SkipList} as a block is reached once for many keys */
+	private final int probability = 4;
+
+	/** size of the list */
+	private int size;
+	/** number of blocks in the full list */
+	private int blocks;
+	/** number of lists excluding full list */
+	private int skips = 0;
+
+	/** Sentinel before the first block of every list, holds no keys, its array has room for more lists than are in use */
+	private Block<K, V> head;
+	/** Reused by {@link #findPath(Object)}, index i is the last block in list i whose first key is not greater than the key searched for */
+	private Block<K, V>[] path;
+
+	/** Creates an empty list ordered by the natural ordering of its keys, with blocks of {@link #DEFAULT_BLOCK_SIZE} keys */
+	public BlockedSkipList() {
+		this(null, DEFAULT_BLOCK_SIZE);
+	}
+
+	/** Creates an empty list with blocks of {@link #DEFAULT_BLOCK_SIZE} keys
+	 * @param comparator the ordering of the keys, null for their natural ordering
+	 */
+	public BlockedSkipList(Comparator<? super K> comparator) {
+		this(comparator, DEFAULT_BLOCK_SIZE);
+	}
+
+	/** Creates an empty list
+	 * @param comparator the ordering of the keys, null for their natural ordering
+	 * @param blockSize the maximum number of keys in a block
+	 * @throws IllegalArgumentException if blockSize is less than 4
+	 */
+	public BlockedSkipList(Comparator<? super K> comparator, int blockSize) {
+		if (blockSize < MIN_BLOCK_SIZE)
+			throw new IllegalArgumentException("blockSize must be at least " + MIN_BLOCK_SIZE + ": " + blockSize);
+		this.comparator = comparator;
+		this.blockSize = blockSize;
+		this.minFill = blockSize / 4;
+		clear();
+	}
+
+	/** Returns an iterator over the entries in ascending key order
+	 * @see java.lang.Iterable#iterator()
+	 */
+	public Iterator<Map.Entry<K, V>> iterator() {
+		return new BlockedSkipListIterator();
+	}
+
+	@SuppressWarnings("unchecked")
+	private int compare(K a, K b) {
+		return comparator == null ? ((Comparable<? super K>) a).compareTo(b) : comparator.compare(a, b);
+	}
+
+	/** Expands the array of the head to hold (number of lists * {@link #ARRAY_RESIZE_MULTIPLICATOR multiplicator}) lists */
+	@SuppressWarnings("unchecked")
+	private void expandArrays() {
+		Block<K, V>[] express = (Block<K, V>[]) new Block<?, ?>[head.height() * ARRAY_RESIZE_MULTIPLICATOR - 1];
+		System.arraycopy(head.express, 0, express, 0, head.express.length);
+		head.express = express;
+		Block<K, V>[] expanded = (Block<K, V>[]) new Block<?, ?>[head.height()];
+		System.arraycopy(path, 0, expanded, 0, path.length);
+		path = expanded;
+	}
+
+	/** removes highway lists when they are empty */
+	private void cleanEmptyLists() {
+		for (int i = skips; i > 0 && head.next(i) == null; i--)
+			skips--;
+	}
+
+	/** Creates a new empty list above the current highest list. */
+	private void makeSkip() {
+		if (skips == head.height() - 1)
+			expandArrays();
+		skips++;
+		head.link(skips, null);
+	}
+
+	/** Determines how many lists a new block is in, elevating it to each further list with probability 1/{@link #probability}
+	 * @return the number of lists, at least 1 for the full list
+	 */
+	private int randomHeight() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int height = 1;
+		while (random.nextInt(probability) == 0)
+			height++;
+		return height;
+	}
+
+	/** Finds the block that would hold key, without recording the path
+	 * @return the last block whose first key is not greater than key, the head if there is none
+	 */
+	private Block<K, V> findBlock(K key) {
+		Block<K, V> current = head;
+		for (int level = skips; level >= 0; level--) {
+			for (Block<K, V> next = current.next(level); next != null && compare(next.key(0), key) <= 0; next = current.next(level))
+				current = next;
+		}
+		return current;
+	}
+
+	/** Finds the last block whose first key is not greater than key in every list during a single descent and stores them in {@link #path}
+	 * @return path[0], the head if key is less than every key
+	 */
+	private Block<K, V> findPath(K key) {
+		Block<K, V> current = head;
+		for (int level = skips; level >= 0; level--) {
+			for (Block<K, V> next = current.next(level); next != null && compare(next.key(0), key) <= 0; next = current.next(level))
+				current = next;
+			path[level] = current;
+		}
+		return current;
+	}
+
+	/** Stores the block before target in every list it is in to {@link #path}, first being the first key of target */
+	private void findPredecessors(Block<K, V> target, K first) {
+		Block<K, V> current = head;
+		for (int level = skips; level >= 0; level--) {
+			for (Block<K, V> next = current.next(level); next != target && next != null && compare(next.key(0), first) < 0; next = current.next(level))
+				current = next;
+			path[level] = current;
+		}
+	}
+
+	/** Binary search for key in block
+	 * @return the index of key, or (-(insertion point) - 1) if block does not hold it
+	 */
+	private int indexOf(Block<K, V> block, K key) {
+		int low = 0;
+		int high = block.count - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int cmp = compare(block.key(mid), key);
+			if (cmp < 0)
+				low = mid + 1;
+			else if (cmp > 0)
+				high = mid - 1;
+			else
+				return mid;
+		}
+		return -(low + 1);
+	}
+
+	/** Associates value with key, replacing the value of an existing key in its block.
+	 * 	A full block is split into two blocks holding half its keys each.
+	 * @param key the key to identify the value
+	 * @param value the value to store
+	 * @return the previous value of the key, or null if the key did not exist
+	 * @throws NullPointerException if key is null
+	 */
+	public V put(K key, V value) {
+		if (key == null)
+			throw new NullPointerException();
+		int searched = skips;
+		Block<K, V> block = findPath(key);
+		int index;
+		if (block == head) {
+			// key is less than every key, it becomes the first key of the first block
+			block = head.next;
+			if (block == null) {
+				block = new Block<K, V>(blockSize, 1);
+				head.next = block;
+				blocks++;
+			}
+			index = 0;
+		} else {
+			index = indexOf(block, key);
+			if (index >= 0) {
+				V previous = block.value(index);
+				block.values[index] = value;
+				return previous;
+			}
+			index = -index - 1;
+		}
+
+		if (block.count == blockSize) {
+			Block<K, V> upper = split(block, searched);
+			if (index > block.count) {
+				index -= block.count;
+				block = upper;
+			}
+		}
+		System.arraycopy(block.keys, index, block.keys, index + 1, block.count - index);
+		System.arraycopy(block.values, index, block.values, index + 1, block.count - index);
+		block.keys[index] = key;
+		block.values[index] = value;
+		block.count++;
+		size++;
+		return null;
+	}
+
+	/** Moves the upper half of the keys of a full block to a new block linked after it, {@link #path} must hold the path to block
+	 * @param searched the number of express lists when the path was found
+	 * @return the new block
+	 */
+	private Block<K, V> split(Block<K, V> block, int searched) {
+		int half = block.count / 2;
+		Block<K, V> upper = new Block<K, V>(blockSize, randomHeight());
+		upper.count = block.count - half;
+		System.arraycopy(block.keys, half, upper.keys, 0, upper.count);
+		System.arraycopy(block.values, half, upper.values, 0, upper.count);
+		clearEntries(block, half, block.count);
+		block.count = half;
+
+		// lists created for this block only hold the head before it
+		while (skips < upper.height() - 1)
+			makeSkip();
+		for (int level = 0; level < upper.height(); level++) {
+			Block<K, V> before = level < block.height() ? block : level <= searched ? path[level] : head;
+			upper.link(level, before.next(level));
+			before.link(level, upper);
+		}
+		blocks++;
+		return upper;
+	}
+
+	/** Clears the references of the entries from from inclusive to to exclusive, so they can be collected */
+	private static void clearEntries(Block<?, ?> block, int from, int to) {
+		for (int i = from; i < to; i++) {
+			block.keys[i] = null;
+			block.values[i] = null;
+		}
+	}
+
+	/** Removes the key and its value, unlinking its block if it becomes empty or merging it with the next block if both are small
+	 * @param key of the entry to be removed
+	 * @return the value of the removed key, or null if no key is found
+	 */
+	public V remove(K key) {
+		Block<K, V> block = findPath(key);
+		if (block == head)
+			return null;
+		int index = indexOf(block, key);
+		if (index < 0)
+			return null;
+
+		V removed = block.value(index);
+		K first = block.key(0);
+		System.arraycopy(block.keys, index + 1, block.keys, index, block.count - index - 1);
+		System.arraycopy(block.values, index + 1, block.values, index, block.count - index - 1);
+		block.count--;
+		clearEntries(block, block.count, block.count + 1);
+		size--;
+
+		if (block.count == 0) {
+			unlink(block, first);
+		} else if (block.count < minFill && block.next != null && block.count + block.next.count <= blockSize - minFill) {
+			Block<K, V> next = block.next;
+			K nextFirst = next.key(0);
+			System.arraycopy(next.keys, 0, block.keys, block.count, next.count);
+			System.arraycopy(next.values, 0, block.values, block.count, next.count);
+			block.count += next.count;
+			unlink(next, nextFirst);
+		}
+		return removed;
+	}
+
+	/** Unlinks target from every list it is in
+	 * @param first the key target started with, used to find the blocks before it
+	 */
+	private void unlink(Block<K, V> target, K first) {
+		findPredecessors(target, first);
+		for (int level = 0; level < target.height(); level++)
+			path[level].link(level, target.next(level));
+		blocks--;
+		cleanEmptyLists();
+	}
+
+	/** Returns the value of the specified key or null if no such key exists
+	 * @param key the key to find value of
+	 * @return the value of the key or null if no key is found
+	 */
+	public V get(K key) {
+		Block<K, V> block = findBlock(key);
+		if (block == head)
+			return null;
+		int index = indexOf(block, key);
+		return index < 0 ? null : block.value(index);
+	}
+
+	/**	Checks if the list contains the given key
+	 * @param key the key to check if it exists
+	 * @return true if the key exists, false if it doesnt
+	 */
+	public boolean contains(K key) {
+		Block<K, V> block = findBlock(key);
+		return block != head && indexOf(block, key) >= 0;
+	}
+
+	/** Clears the list of all elements and sets size, skips to 0  */
+	@SuppressWarnings("unchecked")
+	public void clear() {
+		size = 0;
+		blocks = 0;
+		skips = 0;
+		head = new Block<K, V>(0, 4);
+		path = (Block<K, V>[]) new Block<?, ?>[head.height()];
+	}
+
+	/** Returns the number of key-value mappings in this list
+	 * @return Returns the number of key-value mappings in this list
+	 */
+	public int size() {
+		return size;
+	}
+
+	/** Returns whether size == 0
+	 * @return true if size == 0, false otherwise
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/** Returns the number of blocks holding the keys, the average fill of the blocks is {@link #size()} / (blocks * blockSize)
+	 * @return the number of blocks in the full list
+	 */
+	public int blocks() {
+		return blocks;
+	}
+
+	/** Returns the maximum number of keys in a block
+	 * @return the block size
+	 */
+	public int blockSize() {
+		return blockSize;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder output = new StringBuilder("{");
+		for (Iterator<Map.Entry<K, V>> iter = iterator(); iter.hasNext();) {
+			Map.Entry<K, V> entry = iter.next();
+			output.append(entry.getKey()).append('=').append(entry.getValue());
+			if (iter.hasNext())
+				output.append(", ");
+		}
+		return output.append('}').toString();
+	}
+
+	/** Iterator for {@link BlockedSkipList}, walks the keys of each block of the full list in ascending key order. */
+	private class BlockedSkipListIterator implements Iterator<Map.Entry<K, V>> {
+		private Block<K, V> block = head.next;
+		private int index;
+
+		@Override
+		public boolean hasNext() {
+			return block != null;
+		}
+
+		@Override
+		public Map.Entry<K, V> next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			Map.Entry<K, V> entry = new AbstractMap.SimpleImmutableEntry<>(block.key(index), block.value(index));
+			if (++index == block.count) {
+				block = block.next;
+				index = 0;
+			}
+			return entry;
+		}
+	}
+}
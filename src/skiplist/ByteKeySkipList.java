@@ -0,0 +1,337 @@
+package skiplist;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/** {@link SkipList} specialized for byte[] keys in unsigned lexicographic order, which for UTF-8 encoded strings is the order of their code points.
+ * 	Keys are stored with prefix compression: a node that is only in the full list keeps the bytes of its key after the prefix it shares
+ * 	with the previous node, a node that is also in an express list keeps its whole key since it is reached without passing the previous node.
+ * 	A search compares whole keys in the express lists with {@link Arrays#compareUnsigned(byte[], byte[])}, then walks the full list knowing
+ * 	the length of the prefix the key shares with the current node, so most nodes are passed or rejected by the length of their shared prefix
+ * 	alone and the others are compared from the first byte that can differ with {@link Arrays#mismatch(byte[], int, int, byte[], int, int)}.
+ * 	Offers the key based operations of SkipList, positional access is not supported.
+ * 	Does not support duplicate keys.
+ *
+ * @param <V> value
+ */
+public class ByteKeySkipList<V> implements Iterable<Map.Entry<byte[], V>> {
+
+	/** Node used in the {@link ByteKeySkipList}, a single tower holding the links of its key in every list it is in.
+	 * 	Its key can only be rebuilt from the keys of the nodes before it in the full list.
+	 *
+	 * @param <V> Value
+	 */
+	private static class Node<V> {
+		/** the length of the prefix the key shares with the key of the previous node in the full list */
+		private int shared;
+		/** the whole key if the node is in an express list, the bytes of the key after the shared prefix otherwise */
+		private byte[] bytes;
+		private V value;
+		/** the next node in the full list, null for the last node */
+		private Node<V> next;
+		/** express[i - 1] is the next node in list i, null if the node is only in the full list */
+		private Node<V>[] express;
+
+		@SuppressWarnings("unchecked")
+		private Node(int shared, byte[] bytes, V value, int height) {
+			this.shared = shared;
+			this.bytes = bytes;
+			this.value = value;
+			if (height > 1)
+				express = (Node<V>[]) new Node<?>[height - 1];
+		}
+
+		/** returns the number of lists the Node is in */
+		private int height() {
+			return express == null ? 1 : express.length + 1;
+		}
+
+		/** returns the next Node in list level */
+		private Node<V> next(int level) {
+			return level == 0 ? next : express[level - 1];
+		}
+
+		/** sets the next Node in list level */
+		private void link(int level, Node<V> node) {
+			if (level == 0)
+				next = node;
+			else
+				express[level - 1] = node;
+		}
+
+		/** returns the index in the key of the first byte in bytes */
+		private int offset() {
+			return express == null ? shared : 0;
+		}
+
+		/** returns the length of the key */
+		private int length() {
+			return offset() + bytes.length;
+		}
+	}
+
+	/** Multiplicator used to expand the arrays */
+	private static final int ARRAY_RESIZE_MULTIPLICATOR = 2;
+
+	/** size of the list */
+	private int size;
+	/** number of lists excluding full list */
+	private int skips = 0;
+	/** probability of elevating an element to upper list. 1/probability, higher than in {@link SkipList} as every elevated node keeps its whole key */
+	private int probability = 4;
+
+	/** Sentinel before the first node of every list, its array has room for more lists than are in use */
+	private Node<V> head;
+	/** Reused by {@link #findPath(byte[])}, index i is the Node before the key searched for in list i, sized to the head */
+	private Node<V>[] path;
+	/** Set by {@link #findPath(byte[])} to the length of the prefix the key shares with the key of path[0] */
+	private int prefix;
+	/** Set by {@link #findPath(byte[])} to the length of the prefix the key shares with the key of path[0].next, if there is one */
+	private int nextPrefix;
+
+	/** Creates an empty skiplist */
+	public ByteKeySkipList() {
+		clear();
+	}
+
+	/** Returns an iterator over the entries in ascending key order, every key is rebuilt into a new array
+	 * @see java.lang.Iterable#iterator()
+	 */
+	public Iterator<Map.Entry<byte[], V>> iterator() {
+		return new ByteKeySkipListIterator();
+	}
+
+	/** Expands the array of the head to hold (number of lists * {@link #ARRAY_RESIZE_MULTIPLICATOR multiplicator}) lists */
+	private void expandArrays() {
+		head.express = Arrays.copyOf(head.express, head.height() * ARRAY_RESIZE_MULTIPLICATOR - 1);
+		path = Arrays.copyOf(path, head.height());
+	}
+
+	/** removes highway lists when they are empty */
+	private void cleanEmptyLists() {
+		for (int i = skips; i > 0 && head.next(i) == null; i--)
+			skips--;
+	}
+
+	/** Associates value with key, replacing the value of an existing key in its node.
+	 * 	The key is copied, only the bytes after the prefix it shares with the previous key are kept unless the node is elevated.
+	 * @param key the key to identify the value
+	 * @param value the value to store
+	 * @return the previous value of the key, or null if the key did not exist
+	 * @throws NullPointerException if key is null
+	 */
+	public V put(byte[] key, V value) {
+		if (key == null)
+			throw new NullPointerException();
+		if (findPath(key)) {
+			Node<V> existing = path[0].next;
+			V previous = existing.value;
+			existing.value = value;
+			return previous;
+		}
+
+		// lists created for this node only hold the head before it
+		int searched = skips;
+		int height = randomHeight();
+		Node<V> toAdd = new Node<V>(prefix, height > 1 ? key.clone() : Arrays.copyOfRange(key, prefix, key.length), value, height);
+		while (skips < toAdd.height() - 1)
+			makeSkip();
+
+		// the next node now follows key, with which it shares at least as long a prefix as with the node before key
+		Node<V> after = path[0].next;
+		if (after != null) {
+			if (after.express == null)
+				after.bytes = Arrays.copyOfRange(after.bytes, nextPrefix - after.shared, after.bytes.length);
+			after.shared = nextPrefix;
+		}
+		for (int level = 0; level < toAdd.height(); level++) {
+			Node<V> before = level <= searched ? path[level] : head;
+			toAdd.link(level, before.next(level));
+			before.link(level, toAdd);
+		}
+		size++;
+		return null;
+	}
+
+	/** Finds the Node before key in every list during a single descent from the highest list and stores them in {@link #path}.
+	 * 	Sets {@link #prefix} and {@link #nextPrefix} to the lengths of the prefixes key shares with the keys of the nodes around its position.
+	 * @param key the key to find the Nodes for
+	 * @return true if the node after path[0] has the key
+	 */
+	private boolean findPath(byte[] key) {
+		Node<V> current = head;
+		for (int level = skips; level > 0; level--) {
+			// nodes in express lists hold their whole key
+			for (Node<V> next = current.next(level); next != null && Arrays.compareUnsigned(next.bytes, key) < 0; next = current.next(level))
+				current = next;
+			path[level] = current;
+		}
+
+		int common = current == head ? 0 : mismatch(current.bytes, 0, key, 0);
+		boolean found = false;
+		for (Node<V> next = current.next; next != null; next = current.next) {
+			if (next.shared > common) {
+				// next agrees with current at the first byte where current is less than key
+				current = next;
+				continue;
+			}
+			if (next.shared < common) {
+				// next is greater than current at a byte where current agrees with key
+				nextPrefix = next.shared;
+				break;
+			}
+			int nextCommon = mismatch(next.bytes, common - next.offset(), key, common);
+			if (nextCommon == key.length) {
+				found = nextCommon == next.length();
+				nextPrefix = nextCommon;
+				break;
+			}
+			if (nextCommon != next.length() && Byte.toUnsignedInt(next.bytes[nextCommon - next.offset()]) > Byte.toUnsignedInt(key[nextCommon])) {
+				nextPrefix = nextCommon;
+				break;
+			}
+			current = next;
+			common = nextCommon;
+		}
+		path[0] = current;
+		prefix = common;
+		return found;
+	}
+
+	/** Returns the index in key of the first byte from keyFrom on that differs from bytes from bytesFrom on, or the index where either ends */
+	private static int mismatch(byte[] bytes, int bytesFrom, byte[] key, int keyFrom) {
+		int index = Arrays.mismatch(bytes, bytesFrom, bytes.length, key, keyFrom, key.length);
+		return keyFrom + (index < 0 ? key.length - keyFrom : index);
+	}
+
+	/** Determines how many lists a new node is in, elevating it to each further list with probability 1/{@link #probability}
+	 * @return the number of lists, at least 1 for the full list
+	 */
+	private int randomHeight() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int height = 1;
+		while (random.nextInt(probability) == 0)
+			height++;
+		return height;
+	}
+
+	/** Creates a new empty list above the current highest list. */
+	private void makeSkip() {
+		if (skips == head.height() - 1)
+			expandArrays();
+		skips++;
+		head.link(skips, null);
+	}
+
+	/** Removes the node with the specified key
+	 * @param key of the node to be removed
+	 * @return the value of the removed node, or null if no node has the key
+	 * @throws IndexOutOfBoundsException if the lists size is 0
+	 */
+	public V remove(byte[] key) {
+		if (size == 0)
+			throw new IndexOutOfBoundsException();
+		if (!findPath(key))
+			return null;
+
+		Node<V> toRemove = path[0].next;
+		// the next node now follows the node before key and shares the shorter of both prefixes with it
+		Node<V> after = toRemove.next;
+		if (after != null && after.shared > toRemove.shared) {
+			if (after.express == null) {
+				byte[] bytes = new byte[after.shared - toRemove.shared + after.bytes.length];
+				System.arraycopy(key, toRemove.shared, bytes, 0, after.shared - toRemove.shared);
+				System.arraycopy(after.bytes, 0, bytes, after.shared - toRemove.shared, after.bytes.length);
+				after.bytes = bytes;
+			}
+			after.shared = toRemove.shared;
+		}
+		for (int level = 0; level < toRemove.height(); level++)
+			path[level].link(level, toRemove.next(level));
+		size--;
+		cleanEmptyLists();
+		return toRemove.value;
+	}
+
+	/** Returns the value of the specified key or null if no such key exists
+	 * @param key the key to find value of
+	 * @return the value of the key or null if no key is found
+	 */
+	public V get(byte[] key) {
+		return findPath(key) ? path[0].next.value : null;
+	}
+
+	/**	Checks if the skiplist contains the given key
+	 * @param key the key to check if it exists
+	 * @return true if the key exists, false if it doesnt
+	 */
+	public boolean contains(byte[] key) {
+		return findPath(key);
+	}
+
+	/** Clears the skiplist of all elements and sets size, skips to 0  */
+	@SuppressWarnings("unchecked")
+	public void clear() {
+		size = 0;
+		skips = 0;
+		head = new Node<V>(0, new byte[0], null, 4);
+		path = (Node<V>[]) new Node<?>[head.height()];
+	}
+
+	/** Returns the number of key-value mappings in this skiplist
+	 * @return Returns the number of key-value mappings in this skiplist
+	 */
+	public int size() {
+		return size;
+	}
+
+	/** Returns whether size == 0
+	 * @return true if size == 0, false otherwise
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder output = new StringBuilder("{");
+		for (Iterator<Map.Entry<byte[], V>> iter = iterator(); iter.hasNext();) {
+			Map.Entry<byte[], V> entry = iter.next();
+			output.append(Arrays.toString(entry.getKey())).append('=').append(entry.getValue());
+			if (iter.hasNext())
+				output.append(", ");
+		}
+		return output.append('}').toString();
+	}
+
+	/** Iterator for {@link ByteKeySkipList}, walks the full list in ascending key order rebuilding each key from the previous one. */
+	private class ByteKeySkipListIterator implements Iterator<Map.Entry<byte[], V>> {
+		private Node<V> lastReturned = head;
+		/** the key of lastReturned, never handed out */
+		private byte[] key = head.bytes;
+
+		@Override
+		public boolean hasNext() {
+			return lastReturned.next != null;
+		}
+
+		@Override
+		public Map.Entry<byte[], V> next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			lastReturned = lastReturned.next;
+			if (lastReturned.express != null) {
+				key = lastReturned.bytes;
+			} else {
+				byte[] next = Arrays.copyOf(key, lastReturned.length());
+				System.arraycopy(lastReturned.bytes, 0, next, lastReturned.shared, lastReturned.bytes.length);
+				key = next;
+			}
+			return new AbstractMap.SimpleImmutableEntry<>(key.clone(), lastReturned.value);
+		}
+	}
+}
@@ -0,0 +1,388 @@
+package skiplist;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicMarkableReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Lock-free counterpart of {@link SkipList} that can be shared between threads without external locking.
+ * 	Every node is a single tower whose links are {@link AtomicMarkableReference AtomicMarkableReferences},
+ * 	a node is removed by first clearing its value, then marking its links and finally unlinking it with CAS.
+ * 	Lookups and iteration never block and never write, traversals help unlink marked nodes only in put and remove.
+ * 	Does not support duplicate keys, null keys or null values.
+ *
+ * @param <K> key
+ * @param <V> value
+ */
+public class ConcurrentSkipList<K extends Comparable<K>, V> implements Iterable<ConcurrentSkipList.Node<K, V>> {
+
+	/** Node used in the {@link ConcurrentSkipList}, a tower with one link for every list it is in.
+	 *
+	 * @param <K> Key
+	 * @param <V> Value
+	 */
+	public static class Node<K extends Comparable<K>, V> {
+		@SuppressWarnings("rawtypes")
+		private static final AtomicReferenceFieldUpdater<Node, Object> VALUE =
+				AtomicReferenceFieldUpdater.newUpdater(Node.class, Object.class, "value");
+
+		private final K ref;
+		/** null once the node has been removed */
+		private volatile V value;
+		private final AtomicMarkableReference<Node<K,V>>[] next;
+
+		@SuppressWarnings("unchecked")
+		private Node(K ref, V value, int height) {
+			this.ref = ref;
+			this.value = value;
+			this.next = (AtomicMarkableReference<Node<K,V>>[]) new AtomicMarkableReference<?>[height];
+			for (int i = 0; i < height; i++)
+				next[i] = new AtomicMarkableReference<Node<K,V>>(null, false);
+		}
+
+		private boolean casValue(V expected, V update) {
+			return VALUE.compareAndSet(this, expected, update);
+		}
+
+		/** returns the value of the Node, null if it has been removed
+		 * @return the value of the Node
+		 */
+		public V getValue() {
+			return value;
+		}
+		/** returns the key of the Node
+		 * @return the key of the Node
+		 */
+		public K getKey() {
+			return ref;
+		}
+
+		@Override
+		public String toString() {
+			return ref + "=" + value;
+		}
+	}
+
+	/** Maximum number of lists, including the full list */
+	private static final int MAX_LEVEL = 32;
+
+	/** size of the list, only exact when no operation is in progress */
+	private final LongAdder size = new LongAdder();
+	/** highest list any node has been added to, searches start here */
+	private final AtomicInteger skips = new AtomicInteger();
+
+	/** head of every list, ref == null */
+	private final Node<K,V> head = new Node<K,V>(null, null, MAX_LEVEL);
+	/** tail of every list, ref == null */
+	private final Node<K,V> tail = new Node<K,V>(null, null, MAX_LEVEL);
+
+	/** Creates an empty skiplist */
+	public ConcurrentSkipList() {
+		for (int i = 0; i < MAX_LEVEL; i++)
+			head.next[i].set(tail, false);
+	}
+
+	/** Returns a weakly consistent iterator over the nodes in ascending key order.
+	 * 	It never throws {@link java.util.ConcurrentModificationException}
+	 * 	and reflects some, but not necessarily all, modifications made after its creation.
+	 * @see java.lang.Iterable#iterator()
+	 */
+	public Iterator<Node<K, V>> iterator() {
+		return new ConcurrentSkipListIterator();
+	}
+
+	/** Compares the key of the node with key, the tail is bigger than every key
+	 * @param node the node to compare
+	 * @param key the key to compare with
+	 * @return negative, zero or positive if the key of node is less than, equal to or greater than key
+	 */
+	private int compare(Node<K,V> node, K key) {
+		if (node == tail)
+			return 1;
+		return node.ref.compareTo(key);
+	}
+
+	/** Finds the Nodes before and after the specified key in every list from level down to the full list,
+	 * 	unlinking every marked Node on the way.
+	 * @param key the key to find the Nodes for
+	 * @param level the highest list to search
+	 * @param preds array receiving the Node before the key in each list
+	 * @param succs array receiving the first Node not less than the key in each list
+	 * @return true if succs[0] has the specified key
+	 */
+	private boolean find(K key, int level, Node<K,V>[] preds, Node<K,V>[] succs) {
+		retry:
+		while (true) {
+			Node<K,V> pred = head;
+			Node<K,V> current = null;
+			for (int i = level; i >= 0; i--) {
+				current = pred.next[i].getReference();
+				while (true) {
+					// a marked link never changes again, so its reference read after the mark is the one it was marked with
+					while (current.next[i].isMarked()) {
+						Node<K,V> succ = current.next[i].getReference();
+						if (!pred.next[i].compareAndSet(current, succ, false, false))
+							continue retry;
+						current = succ;
+					}
+					if (compare(current, key) < 0) {
+						pred = current;
+						current = current.next[i].getReference();
+					} else {
+						break;
+					}
+				}
+				preds[i] = pred;
+				succs[i] = current;
+			}
+			return compare(current, key) == 0;
+		}
+	}
+
+	/** Finds the Node with the specified key without modifying the list.
+	 * @param key the key to find
+	 * @return the Node with the key, or null if there is none
+	 */
+	private Node<K,V> findNode(K key) {
+		Node<K,V> pred = head;
+		Node<K,V> current = null;
+		for (int i = skips.get(); i >= 0; i--) {
+			current = pred.next[i].getReference();
+			while (true) {
+				while (current.next[i].isMarked())
+					current = current.next[i].getReference();
+				int comparison = compare(current, key);
+				if (comparison < 0) {
+					pred = current;
+					current = current.next[i].getReference();
+				} else {
+					if (comparison == 0)
+						return current;
+					break;
+				}
+			}
+		}
+		return null;
+	}
+
+	/** Draws the number of lists a new node is added to, each extra list with probability 1/2
+	 * @return the height of a new node
+	 */
+	private static int randomHeight() {
+		int bits = ThreadLocalRandom.current().nextInt();
+		return Math.min(Integer.numberOfTrailingZeros(bits) + 1, MAX_LEVEL);
+	}
+
+	/** Returns an array for the Nodes of a search in the lists up to length - 1 */
+	@SuppressWarnings("unchecked")
+	private static <K extends Comparable<K>, V> Node<K,V>[] newPath(int length) {
+		return (Node<K,V>[]) new Node<?,?>[length];
+	}
+
+	/** Raises {@link #skips} to at least level */
+	private void raiseSkips(int level) {
+		int current;
+		while ((current = skips.get()) < level && !skips.compareAndSet(current, level));
+	}
+
+	/** Marks every link of a node whose value has been cleared so that traversals unlink it */
+	private static <K extends Comparable<K>, V> void markTower(Node<K,V> node) {
+		for (int i = node.next.length - 1; i >= 0; i--) {
+			AtomicMarkableReference<Node<K,V>> link = node.next[i];
+			while (!link.isMarked())
+				link.attemptMark(link.getReference(), true);
+		}
+	}
+
+	/** Associates value with key, replacing the value if the key exists, like {@link SkipList#put(Object, Object)}
+	 * @param key the key to identify the value
+	 * @param value the value to store
+	 * @return the previous value of the key, or null if it did not exist
+	 * @throws NullPointerException if key or value is null
+	 */
+	public V put(K key, V value) {
+		if (key == null || value == null)
+			throw new NullPointerException();
+		int height = randomHeight();
+		int top = height - 1;
+		Node<K,V>[] preds = null;
+		Node<K,V>[] succs = null;
+
+		while (true) {
+			int level = Math.max(skips.get(), top);
+			if (preds == null || preds.length <= level) {
+				preds = newPath(level + 1);
+				succs = newPath(level + 1);
+			}
+			if (find(key, level, preds, succs)) {
+				Node<K,V> found = succs[0];
+				V old = found.value;
+				if (old != null && found.casValue(old, value))
+					return old;
+				if (old == null)
+					markTower(found);  // help the remove so the next find unlinks it
+				continue;
+			}
+
+			Node<K,V> toAdd = new Node<K,V>(key, value, height);
+			for (int i = 0; i <= top; i++)
+				toAdd.next[i].set(succs[i], false);
+			if (!preds[0].next[0].compareAndSet(succs[0], toAdd, false, false))
+				continue;
+			size.increment();
+
+			for (int i = 1; i <= top; i++) {
+				while (true) {
+					Node<K,V> succ = succs[i];
+					Node<K,V> link = toAdd.next[i].getReference();
+					if (link != succ && !toAdd.next[i].compareAndSet(link, succ, false, false))
+						return null;  // marked by a concurrent remove, stop building the tower
+					if (toAdd.next[i].isMarked())
+						return null;
+					if (preds[i].next[i].compareAndSet(succ, toAdd, false, false))
+						break;
+					find(key, level, preds, succs);
+					if (succs[0] != toAdd)
+						return null;  // already removed
+				}
+			}
+			raiseSkips(top);
+			return null;
+		}
+	}
+
+	/** Removes the node with the specified key
+	 * @param key of the node to be removed
+	 * @return the value of the removed node, or null if the key did not exist
+	 * @throws ClassCastException if the key cannot be cast to K
+	 * @throws NullPointerException if key is null
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(Object key) throws ClassCastException {
+		if (key == null)
+			throw new NullPointerException();
+		Node<K,V> node = findNode((K) key);
+		if (node == null)
+			return null;
+
+		V old;
+		do {
+			old = node.value;
+			if (old == null)
+				return null;
+		} while (!node.casValue(old, null));
+		size.decrement();
+
+		markTower(node);
+		int level = Math.max(skips.get(), node.next.length - 1);
+		find((K) key, level, newPath(level + 1), newPath(level + 1));
+		return old;
+	}
+
+	/** Returns the value of the specified key or null if no such key exists
+	 * @param key the key to find value of
+	 * @return the value of the key or null if no key is found
+	 * @throws ClassCastException if the key cannot be cast to K
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(Object key) throws ClassCastException {
+		if (key == null)
+			throw new NullPointerException();
+		Node<K,V> node = findNode((K) key);
+		return node != null ? node.value : null;
+	}
+
+	/** Returns the value at index, walking the full list.
+	 * 	The index is only meaningful while no other thread modifies the list.
+	 * @param index the position to return the value from
+	 * @return the value of the node at index
+	 * @throws IndexOutOfBoundsException if there is no node at index
+	 */
+	public V get(int index) {
+		if (index < 0)
+			throw new IndexOutOfBoundsException();
+		int i = 0;
+		for (Node<K,V> node : this) {
+			V value = node.value;
+			if (value != null && i++ == index)
+				return value;
+		}
+		throw new IndexOutOfBoundsException();
+	}
+
+	/**	Checks if the skiplist contains the given key
+	 * @param key the key to check if it exists
+	 * @return true if the key exists, false if it doesnt
+	 */
+	public boolean contains(K key) {
+		return get(key) != null;
+	}
+
+	/** Removes every node present when the call starts. Not atomic. */
+	public void clear() {
+		for (Node<K,V> node : this)
+			remove(node.ref);
+	}
+
+	/** Returns the number of key-value mappings in this skiplist, only exact when no other thread modifies it
+	 * @return Returns the number of key-value mappings in this skiplist
+	 */
+	public int size() {
+		long sum = size.sum();
+		return sum > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) Math.max(sum, 0);
+	}
+
+	/** Returns whether the skiplist contains no nodes
+	 * @return true if no node is present, false otherwise
+	 */
+	public boolean isEmpty() {
+		return !iterator().hasNext();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder output = new StringBuilder("{");
+		Iterator<Node<K,V>> iter = iterator();
+		while (iter.hasNext()) {
+			Node<K,V> node = iter.next();
+			output.append(node.ref).append('=').append(node.value);
+			if (iter.hasNext())
+				output.append(", ");
+		}
+		return output.append('}').toString();
+	}
+
+	/** Weakly consistent iterator for {@link ConcurrentSkipList}, walks the full list skipping removed nodes. */
+	private class ConcurrentSkipListIterator implements Iterator<Node<K,V>> {
+		private Node<K,V> next;
+
+		private ConcurrentSkipListIterator() {
+			advance(head);
+		}
+
+		/** Moves next to the first node after from that has not been removed */
+		private void advance(Node<K,V> from) {
+			Node<K,V> node = from.next[0].getReference();
+			while (node != tail && node.value == null)
+				node = node.next[0].getReference();
+			next = node;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != tail;
+		}
+
+		@Override
+		public Node<K,V> next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			Node<K,V> toReturn = next;
+			advance(toReturn);
+			return toReturn;
+		}
+	}
+}
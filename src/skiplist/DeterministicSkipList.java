@@ -0,0 +1,34 @@
+package skiplist;
+
+import java.util.Comparator;
+
+/** {@link SkipList} that chooses the lists of its nodes deterministically instead of at random, in the 1-2-3 skip list style of
+ * 	Munro, Papadakis and Sedgewick. Between two consecutive nodes of a list, and between the head and the end, the list below holds
+ * 	at most 3 nodes that are not in the list above, and at least 1 unless the gap ends the list. {@link #add(Object, Object) add}
+ * 	restores the bound by promoting a node of a gap that grew to 4 nodes to the next list, {@link #remove(Object) remove} by demoting
+ * 	a node while descending, so every search visits at most 4 nodes per list in at most log2(n) + 1 lists, without randomness.
+ * 	Updates cost O(log n) in the worst case.
+ * @author Fredrik
+ *
+ * @param <K> key
+ * @param <V> value
+ */
+public class DeterministicSkipList<K, V> extends SkipList<K, V> {
+
+	/** Creates an empty deterministic skiplist ordered by the natural ordering of its keys, which have to implement {@link Comparable} */
+	public DeterministicSkipList() {
+		this(null);
+	}
+	
+	/** Creates an empty deterministic skiplist ordered by comparator
+	 * @param comparator the ordering of the keys, null for their natural ordering
+	 */
+	public DeterministicSkipList(Comparator<? super K> comparator) {
+		super(comparator, 2, UNBOUNDED, true);
+	}
+	
+	@Override
+	DeterministicSkipList<K, V> emptyCopy() {
+		return new DeterministicSkipList<>(comparator());
+	}
+}
@@ -0,0 +1,455 @@
+package skiplist;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.zip.CRC32;
+
+import skiplist.SkipList.Node;
+
+/** {@link SkipList} whose adds and removes survive a crash of the process. Every modification is applied to the list in memory
+ * 	and appended to a write-ahead log in a directory, a sorted snapshot of the full list replaces the log once it has grown
+ * 	beyond a threshold. Opening the directory loads the snapshot and replays the log, a torn record at the end of the log is dropped.
+ * 	Log records are written to the file before a modification returns, {@link FsyncPolicy} decides when they are forced to disk.
+ * 	Threads waiting for their records to be forced share a single force, so concurrent writers commit in groups.
+ * 	Log record:
+ * 	<pre>
+ * 	int crc | int key length | int value length, -1 for remove | key bytes | value bytes
+ * 	</pre>
+ * 	The snapshot is written and read by {@link SkipListFormat}.
+ * 	Replaying the log is idempotent, so a crash between replacing the snapshot and truncating the log loses nothing.
+ * 	Methods are synchronized on the list. Does not support duplicate keys or null values.
+ *
+ * @param <K> key
+ * @param <V> value
+ */
+public class DurableSkipList<K extends Comparable<K>, V> implements Iterable<Node<K, V>>, Closeable {
+
+	/** When the log is forced to disk. Records always reach the operating system before a modification returns,
+	 * 	so every policy survives a crash of the process, the policies differ in what survives a crash of the machine.
+	 */
+	public enum FsyncPolicy {
+		/** Every modification waits until its record is on disk, concurrent modifications share one force */
+		EVERY_WRITE,
+		/** The log is forced when a modification finds the last force older than the sync interval */
+		INTERVAL,
+		/** The log is only forced by {@link DurableSkipList#sync()}, snapshots and {@link DurableSkipList#close()} */
+		NEVER
+	}
+
+	/** Log size in bytes after which a snapshot is written */
+	private static final long DEFAULT_SNAPSHOT_BYTES = 64L << 20;
+	/** Interval between forces of {@link FsyncPolicy#INTERVAL} in milliseconds */
+	private static final long DEFAULT_SYNC_INTERVAL = 100;
+	private static final int BUFFER_SIZE = 1 << 16;
+	/** crc, key length and value length */
+	private static final int RECORD_HEADER = 3 * Integer.BYTES;
+	private static final int REMOVED = -1;
+
+	private static final String LOG = "log";
+	private static final String SNAPSHOT = "snapshot";
+	private static final String SNAPSHOT_TMP = "snapshot.tmp";
+
+	private final SkipList<K, V> list;
+	private final Serializer<K> keySerializer;
+	private final Serializer<V> valueSerializer;
+	private final SkipListFormat<K, V> format;
+	private final FsyncPolicy policy;
+	private final long syncInterval;
+	private final long snapshotBytes;
+	private final Path directory;
+	private final FileChannel log;
+
+	/** held while writing to the log or the snapshot, taken before the lock of the list */
+	private final Object commitLock = new Object();
+	/** records appended since the last write to the log */
+	private ByteBuffer pending = ByteBuffer.allocate(BUFFER_SIZE);
+	/** number of the last record appended */
+	private long appended;
+	/** number of the last record written to the log */
+	private long written;
+	/** number of the last record forced to disk */
+	private volatile long synced;
+	/** time of the last force in nanoseconds */
+	private long lastSync = System.nanoTime();
+	/** size of the log in bytes */
+	private long logSize;
+
+	/** Opens the list stored in directory, creating it if it does not exist, with {@link FsyncPolicy#EVERY_WRITE}
+	 * @param directory the directory holding the log and the snapshot
+	 * @param keySerializer serializer for the keys
+	 * @param valueSerializer serializer for the values
+	 * @throws IOException if the directory cannot be read or holds a damaged snapshot
+	 */
+	public DurableSkipList(Path directory, Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+		this(directory, keySerializer, valueSerializer, FsyncPolicy.EVERY_WRITE);
+	}
+
+	/** Opens the list stored in directory, creating it if it does not exist
+	 * @param directory the directory holding the log and the snapshot
+	 * @param keySerializer serializer for the keys
+	 * @param valueSerializer serializer for the values
+	 * @param policy when the log is forced to disk
+	 * @throws IOException if the directory cannot be read or holds a damaged snapshot
+	 */
+	public DurableSkipList(Path directory, Serializer<K> keySerializer, Serializer<V> valueSerializer, FsyncPolicy policy) throws IOException {
+		this(directory, keySerializer, valueSerializer, policy, DEFAULT_SYNC_INTERVAL, DEFAULT_SNAPSHOT_BYTES);
+	}
+
+	/** Opens the list stored in directory, creating it if it does not exist
+	 * @param directory the directory holding the log and the snapshot
+	 * @param keySerializer serializer for the keys
+	 * @param valueSerializer serializer for the values
+	 * @param policy when the log is forced to disk
+	 * @param syncInterval milliseconds between forces with {@link FsyncPolicy#INTERVAL}
+	 * @param snapshotBytes size of the log in bytes after which it is replaced by a snapshot
+	 * @throws IOException if the directory cannot be read or holds a damaged snapshot
+	 */
+	public DurableSkipList(Path directory, Serializer<K> keySerializer, Serializer<V> valueSerializer, FsyncPolicy policy,
+			long syncInterval, long snapshotBytes) throws IOException {
+		if (policy == null)
+			throw new NullPointerException();
+		if (syncInterval < 0 || snapshotBytes <= 0)
+			throw new IllegalArgumentException();
+		this.directory = directory;
+		this.keySerializer = keySerializer;
+		this.valueSerializer = valueSerializer;
+		this.format = new SkipListFormat<>(keySerializer, valueSerializer, BUFFER_SIZE);
+		this.policy = policy;
+		this.syncInterval = syncInterval * 1_000_000;
+		this.snapshotBytes = snapshotBytes;
+
+		Files.createDirectories(directory);
+		Files.deleteIfExists(directory.resolve(SNAPSHOT_TMP));
+		list = readSnapshot();
+		log = FileChannel.open(directory.resolve(LOG), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			replayLog();
+		} catch (IOException | RuntimeException e) {
+			log.close();
+			throw e;
+		}
+	}
+
+	/** Builds the list from the snapshot, returns an empty list if there is none */
+	private SkipList<K, V> readSnapshot() throws IOException {
+		Path file = directory.resolve(SNAPSHOT);
+		if (!Files.exists(file))
+			return new SkipList<>();
+		// the snapshot is written in key order, so the list is built without searching
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return format.read(channel);
+		} catch (IOException e) {
+			throw new IOException("cannot read skiplist snapshot " + file, e);
+		}
+	}
+
+	/** Reads the whole file into a heap buffer, files are not mapped so they can be truncated and replaced on every platform */
+	private static ByteBuffer readFully(FileChannel channel) throws IOException {
+		long size = channel.size();
+		if (size > Integer.MAX_VALUE)
+			throw new IOException("file larger than 2 GB");
+		ByteBuffer buffer = ByteBuffer.allocate((int) size);
+		while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) >= 0);
+		buffer.flip();
+		return buffer;
+	}
+
+	/** Applies the records of the log to the list and cuts the log after the last complete record */
+	private void replayLog() throws IOException {
+		ByteBuffer buffer = readFully(log);
+		int length = buffer.limit();
+		CRC32 crc = new CRC32();
+		int end = 0;
+		while (buffer.remaining() >= RECORD_HEADER) {
+			int start = buffer.position();
+			int checksum = buffer.getInt();
+			int keyLength = buffer.getInt();
+			int valueLength = buffer.getInt();
+			if (keyLength < 0 || valueLength < REMOVED
+					|| buffer.remaining() < (long) keyLength + Math.max(valueLength, 0))
+				break;
+			ByteBuffer record = buffer.duplicate();
+			record.position(start + Integer.BYTES).limit(start + RECORD_HEADER + keyLength + Math.max(valueLength, 0));
+			crc.reset();
+			crc.update(record);
+			if ((int) crc.getValue() != checksum)
+				break;
+
+			K key = keySerializer.read(buffer, keyLength);
+			if (valueLength == REMOVED) {
+				if (!list.isEmpty())
+					list.remove(key);
+			} else {
+				list.add(key, valueSerializer.read(buffer, valueLength));
+			}
+			end = record.limit();
+			buffer.position(end);
+		}
+		logSize = end;
+		if (logSize < length) {
+			log.truncate(logSize);
+			log.force(false);
+		}
+		log.position(logSize);
+	}
+
+	/** Appends a record to {@link #pending}, must hold the lock of the list
+	 * @param value the value, null for remove
+	 * @return the number of the record
+	 */
+	private long append(K key, V value) {
+		int keyLength = keySerializer.size(key);
+		int valueLength = value == null ? REMOVED : valueSerializer.size(value);
+		int length = RECORD_HEADER + keyLength + Math.max(valueLength, 0);
+		if (pending.remaining() < length) {
+			ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + length));
+			pending.flip();
+			larger.put(pending);
+			pending = larger;
+		}
+		int start = pending.position();
+		pending.putInt(0).putInt(keyLength).putInt(valueLength);
+		keySerializer.write(key, pending);
+		if (value != null)
+			valueSerializer.write(value, pending);
+		if (pending.position() != start + length)
+			throw new IllegalStateException("serializer wrote a different number of bytes than its size");
+
+		CRC32 crc = new CRC32();
+		crc.update(pending.array(), start + Integer.BYTES, length - Integer.BYTES);
+		pending.putInt(start, (int) crc.getValue());
+		return ++appended;
+	}
+
+	/** Writes the pending records to the log and forces it as the policy requires, returns once record is durable */
+	private void commit(long record) {
+		if (policy == FsyncPolicy.EVERY_WRITE && synced >= record)
+			return;
+		try {
+			synchronized (commitLock) {
+				if (policy == FsyncPolicy.EVERY_WRITE ? synced >= record : written >= record)
+					return;
+				long last = flush();
+				if (policy == FsyncPolicy.EVERY_WRITE
+						|| policy == FsyncPolicy.INTERVAL && System.nanoTime() - lastSync >= syncInterval) {
+					log.force(false);
+					lastSync = System.nanoTime();
+					synced = last;
+				}
+				if (logSize >= snapshotBytes)
+					snapshot();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/** Writes the pending records to the log, must hold {@link #commitLock}
+	 * @return the number of the last record written
+	 */
+	private long flush() throws IOException {
+		ByteBuffer batch;
+		long last;
+		synchronized (this) {
+			batch = pending;
+			last = appended;
+			pending = ByteBuffer.allocate(BUFFER_SIZE);
+		}
+		batch.flip();
+		while (batch.hasRemaining())
+			logSize += log.write(batch);
+		written = last;
+		return last;
+	}
+
+	/** Adds a key, value pair to the skiplist and logs it
+	 * @param key the key to identify the value
+	 * @param value the value to store
+	 * @return the node with the supplied key if it exists, holding the new value, null otherwise.
+	 * @throws NullPointerException if value is null
+	 * @throws UncheckedIOException if the log cannot be written, the list in memory already holds the pair
+	 */
+	public Node<K, V> add(K key, V value) {
+		if (value == null)
+			throw new NullPointerException();
+		Node<K, V> toReturn;
+		long record;
+		synchronized (this) {
+			toReturn = list.add(key, value);
+			record = append(key, value);
+		}
+		commit(record);
+		return toReturn;
+	}
+
+	/** Associates value with key and logs it, replacing the value of an existing key in its node
+	 * @param key the key to identify the value
+	 * @param value the value to store
+	 * @return the previous value of the key, or null if the key did not exist
+	 * @throws NullPointerException if value is null
+	 * @throws UncheckedIOException if the log cannot be written, the list in memory already holds the pair
+	 */
+	public V put(K key, V value) {
+		if (value == null)
+			throw new NullPointerException();
+		V previous;
+		long record;
+		synchronized (this) {
+			previous = list.put(key, value);
+			record = append(key, value);
+		}
+		commit(record);
+		return previous;
+	}
+
+	/** Removes the node with the specified key and logs the removal if there was one
+	 * @param key of the node to be removed
+	 * @return the removed node, or null if no node has the key
+	 * @throws IndexOutOfBoundsException if the lists size is 0
+	 * @throws ClassCastException if the key cannot be cast to K
+	 * @throws UncheckedIOException if the log cannot be written, the node is already removed from the list in memory
+	 */
+	@SuppressWarnings("unchecked")
+	public Node<K, V> remove(Object key) throws ClassCastException {
+		Node<K, V> toReturn;
+		long record;
+		synchronized (this) {
+			toReturn = list.remove(key);
+			if (toReturn == null)
+				return null;
+			record = append((K) key, null);
+		}
+		commit(record);
+		return toReturn;
+	}
+
+	/** Returns the value of the specified key or null if no such key exists
+	 * @param key the key to find value of
+	 * @return the value of the key or null if no key is found
+	 * @throws ClassCastException if the key cannot be cast to K
+	 */
+	public synchronized V get(Object key) throws ClassCastException {
+		return list.get(key);
+	}
+
+	/** Returns the value at index
+	 * @param index the position to return the value from
+	 * @return the value of the node at index
+	 */
+	public synchronized V get(int index) {
+		return list.get(index);
+	}
+
+	/**	Checks if the skiplist contains the given key
+	 * @param key the key to check if it exists
+	 * @return true if the key exists, false if it doesnt
+	 */
+	public synchronized boolean contains(K key) {
+		return list.contains(key);
+	}
+
+	/** Returns the number of key-value mappings in this skiplist
+	 * @return Returns the number of key-value mappings in this skiplist
+	 */
+	public synchronized int size() {
+		return list.size();
+	}
+
+	/** Returns whether size == 0
+	 * @return true if size == 0, false otherwise
+	 */
+	public synchronized boolean isEmpty() {
+		return list.isEmpty();
+	}
+
+	/** Returns an iterator over the list in memory, which must not be modified while iterating
+	 * @see java.lang.Iterable#iterator()
+	 */
+	public Iterator<Node<K, V>> iterator() {
+		return list.iterator();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return list.toString();
+	}
+
+	/** Returns the size of the log in bytes, which is reset by every snapshot
+	 * @return the number of bytes written to the log since the last snapshot
+	 */
+	public long logSize() {
+		synchronized (commitLock) {
+			return logSize;
+		}
+	}
+
+	/** Writes every logged modification to the log and forces it to disk
+	 * @throws IOException if the log cannot be written
+	 */
+	public void sync() throws IOException {
+		synchronized (commitLock) {
+			long last = flush();
+			log.force(false);
+			lastSync = System.nanoTime();
+			synced = last;
+		}
+	}
+
+	/** Writes the full list to a new snapshot, replaces the old snapshot with it and truncates the log.
+	 * 	Modifications wait until the snapshot has been written.
+	 * @throws IOException if the snapshot cannot be written
+	 */
+	public void snapshot() throws IOException {
+		synchronized (commitLock) {
+			synchronized (this) {
+				Path tmp = directory.resolve(SNAPSHOT_TMP);
+				try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+					format.write(list, channel);
+					channel.force(true);
+				}
+				Files.move(tmp, directory.resolve(SNAPSHOT), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				syncDirectory();
+
+				// the pending records are part of the snapshot
+				pending.clear();
+				log.truncate(0);
+				log.force(false);
+				logSize = 0;
+				written = appended;
+				synced = appended;
+				lastSync = System.nanoTime();
+			}
+		}
+	}
+
+	/** Forces the rename of the snapshot to disk where the file system allows opening directories */
+	private void syncDirectory() {
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException e) {
+			// not supported on every platform, the rename is still atomic
+		}
+	}
+
+	/** Forces the log to disk and closes it, the list cannot be modified afterwards */
+	@Override
+	public void close() throws IOException {
+		synchronized (commitLock) {
+			if (!log.isOpen())
+				return;
+			try {
+				sync();
+			} finally {
+				log.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,273 @@
+package skiplist;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/** {@link SkipList} specialized for primitive long keys and values, see {@link LongSkipList}.
+ * 	Values are stored unboxed as well, so a missing key is reported through a caller supplied default value.
+ * 	Does not support duplicate keys.
+ */
+public class LongLongSkipList implements Iterable<LongLongSkipList.Node> {
+
+	/** Node used in the {@link LongLongSkipList}, a single tower holding the links of its key in every list it is in. */
+	public static class Node {
+		private final long key;
+		private long value;
+		/** the next node in the full list, null for the last node */
+		private Node next;
+		/** express[i - 1] is the next node in list i, null if the node is only in the full list */
+		private Node[] express;
+
+		private Node(long key, long value, int height) {
+			this.key = key;
+			this.value = value;
+			if (height > 1)
+				express = new Node[height - 1];
+		}
+
+		/** returns the number of lists the Node is in */
+		private int height() {
+			return express == null ? 1 : express.length + 1;
+		}
+
+		/** returns the next Node in list level */
+		private Node next(int level) {
+			return level == 0 ? next : express[level - 1];
+		}
+
+		/** sets the next Node in list level */
+		private void link(int level, Node node) {
+			if (level == 0)
+				next = node;
+			else
+				express[level - 1] = node;
+		}
+
+		@Override
+		public String toString() {
+			return Long.toString(key);
+		}
+
+		/** returns the value of the Node
+		 * @return the value of the Node
+		 */
+		public long getValue() {
+			return value;
+		}
+		/** returns the key of the Node
+		 * @return the key of the Node
+		 */
+		public long getKey() {
+			return key;
+		}
+	}
+
+	/** Multiplicator used to expand the arrays */
+	private static final int ARRAY_RESIZE_MULTIPLICATOR = 2;
+
+	/** size of the list */
+	private int size;
+	/** number of lists excluding full list */
+	private int skips = 0;
+	/** probability of elevating an element to upper list. 1/probability */
+	private int probability = 2;
+
+	/** Sentinel before the first node of every list, its array has room for more lists than are in use */
+	private Node head;
+
+	/** Creates an empty skiplist */
+	public LongLongSkipList() {
+		clear();
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Iterable#iterator()
+	 */
+	public Iterator<Node> iterator() {
+		return new LongLongSkipListIterator();
+	}
+
+	/** Expands the array of the head to hold (number of lists * {@link #ARRAY_RESIZE_MULTIPLICATOR multiplicator}) lists */
+	private void expandArrays() {
+		head.express = Arrays.copyOf(head.express, head.height() * ARRAY_RESIZE_MULTIPLICATOR - 1);
+	}
+
+	/** removes highway lists when they are empty */
+	private void cleanEmptyLists() {
+		for (int i = skips; i > 0 && head.next(i) == null; i--)
+			skips--;
+	}
+
+	/** Adds a key, value pair to the skiplist
+	 * @param key the key to identify the value
+	 * @param value the value to store
+	 * @return the node with the supplied key if it exists, null otherwise.
+	 */
+	public Node add(long key, long value) {
+		Node toReturn = null;
+
+		Node[] path = findPath(key);
+		Node next = path[0].next;
+		if (next != null && next.key == key)
+			toReturn = unlink(path);
+
+		Node toAdd = new Node(key, value, randomHeight());
+		while (skips < toAdd.height() - 1)
+			makeSkip();
+		for (int level = 0; level < toAdd.height(); level++) {
+			// lists emptied by unlink or created for this node only hold the head before it
+			Node before = level < path.length ? path[level] : head;
+			toAdd.link(level, before.next(level));
+			before.link(level, toAdd);
+		}
+		size++;
+		return toReturn;
+	}
+
+	/** Finds the Node before the specified key in every list, recorded during a single descent from the highest list.
+	 * @param key the key to find the Nodes for
+	 * @return array where index i holds the Node before the natural position of the key in list i
+	 */
+	private Node[] findPath(long key) {
+		Node[] path = new Node[skips + 1];
+		Node current = head;
+		for (int level = skips; level >= 0; level--) {
+			for (Node next = current.next(level); next != null && next.key < key; next = current.next(level))
+				current = next;
+			path[level] = current;
+		}
+		return path;
+	}
+
+	/** Finds the Node with the specified key
+	 * @param key the key to find
+	 * @return the Node with the key, or null if there is none
+	 */
+	private Node findNode(long key) {
+		Node current = head;
+		for (int level = skips; level >= 0; level--) {
+			for (Node next = current.next(level); next != null && next.key < key; next = current.next(level))
+				current = next;
+		}
+		Node next = current.next;
+		return next != null && next.key == key ? next : null;
+	}
+
+	/** Determines how many lists a new node is in, elevating it to each further list with probability 1/{@link #probability}
+	 * @return the number of lists, at least 1 for the full list
+	 */
+	private int randomHeight() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int height = 1;
+		while (random.nextInt(probability) == 0)
+			height++;
+		return height;
+	}
+
+	/** Creates a new empty list above the current highest list. */
+	private void makeSkip() {
+		if (skips == head.height() - 1)
+			expandArrays();
+		skips++;
+		head.link(skips, null);
+	}
+
+	/** Removes the Node after path[0] from every list it is in.
+	 * @param path the Nodes before the Node to remove in each list
+	 * @return the removed Node
+	 */
+	private Node unlink(Node[] path) {
+		Node toRemove = path[0].next;
+		for (int level = 0; level < toRemove.height(); level++)
+			path[level].link(level, toRemove.next(level));
+		size--;
+		cleanEmptyLists();
+		return toRemove;
+	}
+
+	/** Removes the node with the specified key
+	 * @param key of the node to be removed
+	 * @return the removed node, or null if no node has the key
+	 * @throws IndexOutOfBoundsException if the lists size is 0
+	 */
+	public Node remove(long key) {
+		if (size == 0)
+			throw new IndexOutOfBoundsException();
+
+		Node[] path = findPath(key);
+		Node next = path[0].next;
+		if (next == null || next.key != key)
+			return null;
+		return unlink(path);
+	}
+
+	/** Returns the value of the specified key or defaultValue if no such key exists
+	 * @param key the key to find value of
+	 * @param defaultValue the value to return if no key is found
+	 * @return the value of the key or defaultValue if no key is found
+	 */
+	public long get(long key, long defaultValue) {
+		Node node = findNode(key);
+		return node != null ? node.value : defaultValue;
+	}
+
+	/**	Checks if the skiplist contains the given key
+	 * @param key the key to check if it exists
+	 * @return true if the key exists, false if it doesnt
+	 */
+	public boolean contains(long key) {
+		return findNode(key) != null;
+	}
+
+	/** Clears the skiplist of all elements and sets size, skips to 0  */
+	public void clear() {
+		size = 0;
+		skips = 0;
+		head = new Node(0, 0, 4);
+	}
+
+	/** Returns the number of key-value mappings in this skiplist
+	 * @return Returns the number of key-value mappings in this skiplist
+	 */
+	public int size() {
+		return size;
+	}
+
+	/** Returns whether size == 0
+	 * @return true if size == 0, false otherwise
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder output = new StringBuilder("{");
+		for (Node node = head.next; node != null; node = node.next) {
+			output.append(node.key).append('=').append(node.value);
+			if (node.next != null)
+				output.append(", ");
+		}
+		return output.append('}').toString();
+	}
+
+	/** Iterator for {@link LongLongSkipList}, walks the full list in ascending key order. */
+	private class LongLongSkipListIterator implements Iterator<Node> {
+		private Node lastReturned = head;
+
+		@Override
+		public boolean hasNext() {
+			return lastReturned.next != null;
+		}
+
+		@Override
+		public Node next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			lastReturned = lastReturned.next;
+			return lastReturned;
+		}
+	}
+}
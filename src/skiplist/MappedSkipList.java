@@ -0,0 +1,312 @@
+package skiplist;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/** {@link OffHeapSkipList} that lives in a memory-mapped file, so reopening the file gives a list that is ready to query
+ * 	without adding the keys again. The file starts with two header slots followed by the records of the list:
+ * 	<pre>
+ * 	long magic | int version | int state | long generation | int head | int size | int skips | int top | int free lists[] | ... | int crc
+ * 	</pre>
+ * 	Headers are written to the slots alternately, the valid slot with the highest generation is used when opening.
+ * 	Before the first modification after a {@link #force()} the header is marked dirty and flushed, {@link #force()} flushes
+ * 	the records before marking the header clean. A file that was not closed cleanly is recovered when it is opened
+ * 	by walking the full list up to the first damaged record and relinking the express lists, blocks that were free are lost.
+ * 	Records are limited to the first 2 GB of the file. The same serializers have to be used every time a file is opened.
+ *
+ * @param <K> key
+ * @param <V> value
+ */
+public class MappedSkipList<K extends Comparable<K>, V> extends OffHeapSkipList<K, V> implements Closeable {
+
+	/** Version of the file format written by this class */
+	public static final int VERSION = 1;
+	/** "SKIPLIST" in ASCII */
+	private static final long MAGIC = 0x5453494c50494b53L;
+	/** Capacity of a new file in bytes */
+	private static final int DEFAULT_CAPACITY = 1 << 16;
+
+	private static final int SLOT_SIZE = 1024;
+	private static final int SLOTS = 2;
+
+	private static final int HEADER_MAGIC = 0;
+	private static final int HEADER_VERSION = 8;
+	private static final int HEADER_STATE = 12;
+	private static final int HEADER_GENERATION = 16;
+	private static final int HEADER_HEAD = 24;
+	private static final int HEADER_SIZE = 28;
+	private static final int HEADER_SKIPS = 32;
+	private static final int HEADER_TOP = 36;
+	private static final int HEADER_FREE_LISTS = 40;
+	private static final int HEADER_CRC = SLOT_SIZE - Integer.BYTES;
+
+	/** the records on disk match the header */
+	private static final int CLEAN = 1;
+	/** the records may have been modified after the header was written */
+	private static final int DIRTY = 2;
+
+	private final FileChannel channel;
+	/** generation of the last header written */
+	private long generation;
+	/** true while the header on disk is marked clean */
+	private boolean clean;
+	/** true if opening the file had to rebuild the list */
+	private boolean recovered;
+
+	/** Opens the skiplist in file, creating the file if it does not exist
+	 * @param file the file holding the skiplist
+	 * @param keySerializer serializer for the keys
+	 * @param valueSerializer serializer for the values
+	 * @throws IOException if the file cannot be mapped or is not a skiplist file of this version
+	 */
+	public MappedSkipList(Path file, Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+		this(file, keySerializer, valueSerializer, DEFAULT_CAPACITY);
+	}
+
+	/** Opens the skiplist in file, creating the file if it does not exist
+	 * @param file the file holding the skiplist
+	 * @param keySerializer serializer for the keys
+	 * @param valueSerializer serializer for the values
+	 * @param initialCapacity the number of bytes to reserve when the file is created
+	 * @throws IOException if the file cannot be mapped or is not a skiplist file of this version
+	 */
+	public MappedSkipList(Path file, Serializer<K> keySerializer, Serializer<V> valueSerializer, int initialCapacity) throws IOException {
+		super(keySerializer, valueSerializer, MappedArena.open(file, initialCapacity));
+		channel = ((MappedArena) arena).channel;
+		try {
+			load();
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/** Returns whether opening the file had to rebuild the list because it was not closed cleanly
+	 * @return true if the list was recovered, false if the header was clean
+	 */
+	public boolean isRecovered() {
+		return recovered;
+	}
+
+	/** Reads the newest valid header, creating the list if the file is new and recovering it if the header is dirty */
+	private void load() throws IOException {
+		ByteBuffer buffer = arena.buffer;
+		int slot = -1;
+		for (int i = 0; i < SLOTS; i++) {
+			int offset = i * SLOT_SIZE;
+			if (buffer.getLong(offset + HEADER_MAGIC) != MAGIC)
+				continue;
+			if (buffer.getInt(offset + HEADER_CRC) != checksum(offset))
+				continue;
+			if (buffer.getInt(offset + HEADER_VERSION) != VERSION)
+				throw new IOException("unsupported skiplist file version " + buffer.getInt(offset + HEADER_VERSION));
+			if (slot < 0 || buffer.getLong(offset + HEADER_GENERATION) > buffer.getLong(slot * SLOT_SIZE + HEADER_GENERATION))
+				slot = i;
+		}
+
+		if (slot < 0) {
+			if (!((MappedArena) arena).created)
+				throw new IOException("not a skiplist file or both headers are damaged");
+			super.clear();
+			force();
+			return;
+		}
+
+		int offset = slot * SLOT_SIZE;
+		generation = buffer.getLong(offset + HEADER_GENERATION);
+		head = buffer.getInt(offset + HEADER_HEAD);
+		size = buffer.getInt(offset + HEADER_SIZE);
+		skips = buffer.getInt(offset + HEADER_SKIPS);
+		arena.top = buffer.getInt(offset + HEADER_TOP);
+		for (int i = 0; i < arena.freeLists.length; i++)
+			arena.freeLists[i] = buffer.getInt(offset + HEADER_FREE_LISTS + Integer.BYTES * i);
+		if (!isRecord(head, buffer.capacity()) || height(head) != MAX_LEVEL)
+			throw new IOException("damaged skiplist file, head record at " + head + " is invalid");
+
+		if (buffer.getInt(offset + HEADER_STATE) == CLEAN) {
+			clean = true;
+		} else {
+			recover();
+			recovered = true;
+			force();
+		}
+	}
+
+	/** Rebuilds the list from the full list, which is cut at the first record that is damaged or out of order.
+	 * 	The express lists are relinked from the heights of the remaining records and the free lists are dropped.
+	 */
+	private void recover() {
+		int limit = arena.buffer.capacity();
+		int[] last = new int[MAX_LEVEL];
+		Arrays.fill(last, head);
+		int top = head + OffHeapArena.blockSize(recordSize(head));
+		int count = 0;
+		K previousKey = null;
+		// only the express links of records already passed are written, the walk itself reads the full list
+		for (int node = next(head, 0); node != OffHeapArena.NULL && isRecord(node, limit); node = next(node, 0)) {
+			K key;
+			try {
+				key = key(node);
+			} catch (RuntimeException e) {
+				break;
+			}
+			if (previousKey != null && previousKey.compareTo(key) >= 0)
+				break;
+			for (int level = 1; level < height(node); level++) {
+				link(last[level], level, node);
+				last[level] = node;
+			}
+			last[0] = node;
+			top = Math.max(top, node + OffHeapArena.blockSize(recordSize(node)));
+			previousKey = key;
+			count++;
+		}
+		for (int level = 0; level < MAX_LEVEL; level++)
+			link(last[level], level, OffHeapArena.NULL);
+
+		size = count;
+		skips = MAX_LEVEL - 1;
+		while (skips > 0 && next(head, skips) == OffHeapArena.NULL)
+			skips--;
+		arena.top = top;
+		Arrays.fill(arena.freeLists, OffHeapArena.NULL);
+	}
+
+	/** Computes the checksum of the header slot at offset, excluding the checksum itself */
+	private int checksum(int offset) {
+		ByteBuffer slot = arena.buffer.duplicate();
+		slot.limit(offset + HEADER_CRC).position(offset);
+		CRC32 crc = new CRC32();
+		crc.update(slot);
+		return (int) crc.getValue();
+	}
+
+	/** Writes the counters to the next header slot with the specified state */
+	private void writeHeader(int state) {
+		ByteBuffer buffer = arena.buffer;
+		generation++;
+		int offset = (int) (generation % SLOTS) * SLOT_SIZE;
+		buffer.putLong(offset + HEADER_MAGIC, MAGIC);
+		buffer.putInt(offset + HEADER_VERSION, VERSION);
+		buffer.putInt(offset + HEADER_STATE, state);
+		buffer.putLong(offset + HEADER_GENERATION, generation);
+		buffer.putInt(offset + HEADER_HEAD, head);
+		buffer.putInt(offset + HEADER_SIZE, size);
+		buffer.putInt(offset + HEADER_SKIPS, skips);
+		buffer.putInt(offset + HEADER_TOP, arena.top);
+		for (int i = 0; i < arena.freeLists.length; i++)
+			buffer.putInt(offset + HEADER_FREE_LISTS + Integer.BYTES * i, arena.freeLists[i]);
+		buffer.putInt(offset + HEADER_CRC, checksum(offset));
+	}
+
+	/** Marks the header dirty on disk before the first modification after {@link #force()} */
+	private void beginWrite() {
+		if (!channel.isOpen())
+			throw new IllegalStateException("skiplist file is closed");
+		if (clean) {
+			writeHeader(DIRTY);
+			((MappedByteBuffer) arena.buffer).force();
+			clean = false;
+		}
+	}
+
+	/** Writes every modification to the file and marks it clean, so the next open does not need to recover.
+	 * 	Does nothing if the list has not been modified since the last call.
+	 * @throws IllegalStateException if the list has been closed
+	 */
+	public void force() {
+		if (!channel.isOpen())
+			throw new IllegalStateException("skiplist file is closed");
+		if (clean)
+			return;
+		MappedByteBuffer buffer = (MappedByteBuffer) arena.buffer;
+		buffer.force();
+		writeHeader(CLEAN);
+		buffer.force();
+		clean = true;
+	}
+
+	/** Forces the list to the file and closes it, the list cannot be used afterwards */
+	@Override
+	public void close() throws IOException {
+		if (!channel.isOpen())
+			return;
+		try {
+			force();
+		} finally {
+			channel.close();
+		}
+	}
+
+	@Override
+	public V add(K key, V value) {
+		if (key == null || value == null)
+			throw new NullPointerException();
+		beginWrite();
+		return super.add(key, value);
+	}
+
+	@Override
+	public V remove(Object key) throws ClassCastException {
+		beginWrite();
+		return super.remove(key);
+	}
+
+	@Override
+	public void clear() {
+		beginWrite();
+		super.clear();
+	}
+
+	/** Arena mapping a file, grown by extending the file and mapping it again */
+	private static class MappedArena extends OffHeapArena {
+		private final FileChannel channel;
+		/** true if the file was empty when it was opened */
+		private final boolean created;
+
+		private MappedArena(FileChannel channel, ByteBuffer buffer, boolean created) {
+			super(buffer, SLOTS * SLOT_SIZE);
+			this.channel = channel;
+			this.created = created;
+		}
+
+		/** Opens and maps file, with at least capacity bytes if it is new */
+		private static MappedArena open(Path file, int capacity) throws IOException {
+			FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			try {
+				long length = channel.size();
+				if (length > Integer.MAX_VALUE)
+					throw new IOException("skiplist file larger than 2 GB");
+				int mapped = (int) Math.max(length, Math.max(capacity, 2L * SLOTS * SLOT_SIZE)) & -ALIGNMENT;
+				return new MappedArena(channel, map(channel, mapped), length == 0);
+			} catch (IOException | RuntimeException e) {
+				channel.close();
+				throw e;
+			}
+		}
+
+		private static ByteBuffer map(FileChannel channel, int capacity) throws IOException {
+			return channel.map(MapMode.READ_WRITE, 0, capacity).order(ByteOrder.LITTLE_ENDIAN);
+		}
+
+		/** Extends the file, the records are already in it so nothing is copied */
+		@Override
+		ByteBuffer resize(int capacity) {
+			try {
+				return map(channel, capacity);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package skiplist;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/** Memory arena backed by a single {@link ByteBuffer}, used by {@link OffHeapSkipList} to store its records.
+ * 	Blocks are cut from the end of the used region, freed blocks are kept in a free list per size class
+ * 	and handed out again before the used region grows. Blocks up to {@link #MAX_SMALL_BLOCK} bytes are
+ * 	rounded to multiples of {@link #ALIGNMENT}, larger blocks to powers of two.
+ * 	Blocks are addressed by their offset, which stays valid when the buffer is replaced by a larger one.
+ * 	Offset {@link #NULL} is never handed out.
+ */
+class OffHeapArena {
+	/** Offset that never refers to a block */
+	static final int NULL = 0;
+	/** Blocks are multiples of this many bytes */
+	static final int ALIGNMENT = 8;
+	/** Largest block size with a size class of its own */
+	private static final int MAX_SMALL_BLOCK = 1024;
+	private static final int SMALL_CLASSES = MAX_SMALL_BLOCK / ALIGNMENT;
+	/** Largest capacity of a ByteBuffer that is a multiple of ALIGNMENT */
+	private static final int MAX_CAPACITY = Integer.MAX_VALUE & -ALIGNMENT;
+
+	/** buffer holding every block, replaced by {@link #resize(int)} when full */
+	ByteBuffer buffer;
+	/** offset of the first block, the bytes before it are not managed by the arena */
+	final int base;
+	/** offset of the first byte that has never been handed out */
+	int top;
+	/** offset of the first free block of each size class, the next free block is stored in its first 4 bytes */
+	final int[] freeLists = new int[SMALL_CLASSES + Integer.SIZE];
+
+	/** Creates an arena in a direct buffer of the specified capacity
+	 * @param capacity the initial capacity in bytes
+	 */
+	OffHeapArena(int capacity) {
+		this(ByteBuffer.allocateDirect(Math.max(capacity, 2 * ALIGNMENT)).order(ByteOrder.LITTLE_ENDIAN), ALIGNMENT);
+	}
+
+	/** Creates an arena using buffer, handing out blocks from base
+	 * @param buffer the buffer holding the blocks
+	 * @param base the first offset to hand out, must be positive and a multiple of {@link #ALIGNMENT}
+	 */
+	OffHeapArena(ByteBuffer buffer, int base) {
+		this.buffer = buffer;
+		this.base = base;
+		this.top = base;
+	}
+
+	/** Returns the size of the block used for a record of size bytes */
+	static int blockSize(int size) {
+		if (size <= MAX_SMALL_BLOCK)
+			return Math.max(ALIGNMENT, (size + ALIGNMENT - 1) & -ALIGNMENT);
+		return Integer.highestOneBit(size - 1) << 1;
+	}
+
+	/** Returns the index in {@link #freeLists} of blocks of blockSize bytes */
+	private static int sizeClass(int blockSize) {
+		if (blockSize <= MAX_SMALL_BLOCK)
+			return blockSize / ALIGNMENT - 1;
+		return SMALL_CLASSES + Integer.numberOfTrailingZeros(blockSize);
+	}
+
+	/** Hands out a block of at least size bytes. The buffer may be replaced, so it has to be read again afterwards.
+	 * @param size the number of bytes needed
+	 * @return the offset of the block
+	 * @throws OutOfMemoryError if the arena cannot grow enough
+	 */
+	int allocate(int size) {
+		if (size > MAX_CAPACITY / 2)
+			throw new OutOfMemoryError("block of " + size + " bytes does not fit in an arena");
+		int block = blockSize(size);
+		int sizeClass = sizeClass(block);
+		int offset = freeLists[sizeClass];
+		if (offset != NULL) {
+			freeLists[sizeClass] = buffer.getInt(offset);
+			return offset;
+		}
+
+		if ((long) top + block > buffer.capacity())
+			grow((long) top + block);
+		offset = top;
+		top += block;
+		return offset;
+	}
+
+	/** Returns a block handed out by {@link #allocate(int)}
+	 * @param offset the offset of the block
+	 * @param size the size the block was allocated with
+	 */
+	void free(int offset, int size) {
+		int sizeClass = sizeClass(blockSize(size));
+		buffer.putInt(offset, freeLists[sizeClass]);
+		freeLists[sizeClass] = offset;
+	}
+
+	/** Forgets every block, the capacity is kept */
+	void clear() {
+		top = base;
+		Arrays.fill(freeLists, NULL);
+	}
+
+	private void grow(long minCapacity) {
+		if (minCapacity > MAX_CAPACITY)
+			throw new OutOfMemoryError("arena cannot grow beyond " + MAX_CAPACITY + " bytes");
+		long capacity = Math.min(Math.max(minCapacity, 2L * buffer.capacity()), MAX_CAPACITY);
+		buffer = resize((int) capacity);
+	}
+
+	/** Returns a buffer of the specified capacity holding the blocks of the current buffer
+	 * @param capacity the capacity of the new buffer
+	 * @return the new buffer
+	 */
+	ByteBuffer resize(int capacity) {
+		ByteBuffer larger = ByteBuffer.allocateDirect(capacity).order(buffer.order());
+		ByteBuffer used = buffer.duplicate();
+		used.clear().limit(top);
+		larger.put(used).clear();
+		return larger;
+	}
+}
@@ -0,0 +1,377 @@
+package skiplist;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/** SkipList that keeps its nodes outside the heap, in an {@link OffHeapArena} backed by a direct {@link ByteBuffer}.
+ * 	Every key is a single record holding its tower of links followed by the serialized key and value:
+ * 	<pre>
+ * 	int height | int key length | int value length | int next[height] | key bytes | value bytes
+ * 	</pre>
+ * 	Links are offsets into the arena, {@link OffHeapArena#NULL} ends a list. The head is a record of
+ * 	{@link #MAX_LEVEL} links without key or value. Removed records are returned to the arena for reuse.
+ * 	A search serializes its key once and compares it to the stored keys in place with {@link Serializer#compare(ByteBuffer, int, int, ByteBuffer, int, int)},
+ * 	so it allocates nothing per visited node. Only the keys and values handed out are deserialized.
+ * 	Positional access walks the full list. Does not support duplicate keys.
+ *
+ * @param <K> key
+ * @param <V> value
+ */
+public class OffHeapSkipList<K extends Comparable<K>, V> implements Iterable<Map.Entry<K, V>> {
+
+	/** Maximum number of lists, including the full list */
+	static final int MAX_LEVEL = 32;
+	/** Capacity of the arena of a new list in bytes */
+	private static final int DEFAULT_CAPACITY = 1 << 16;
+
+	private static final int HEIGHT = 0;
+	private static final int KEY_LENGTH = 4;
+	private static final int VALUE_LENGTH = 8;
+	private static final int NEXT = 12;
+
+	private final Serializer<K> keySerializer;
+	private final Serializer<V> valueSerializer;
+	/** memory holding every record */
+	final OffHeapArena arena;
+
+	/** offset of the head record */
+	int head;
+	/** size of the list */
+	int size;
+	/** number of lists excluding full list */
+	int skips;
+	/** probability of elevating an element to upper list. 1/probability */
+	private int probability = 2;
+	/** the key of the current search, serialized by {@link #serializeProbe(Object)} */
+	private ByteBuffer probe = ByteBuffer.allocate(64);
+	/** the length of the key in {@link #probe} */
+	private int probeLength;
+
+	/** Creates an empty skiplist
+	 * @param keySerializer serializer for the keys
+	 * @param valueSerializer serializer for the values
+	 */
+	public OffHeapSkipList(Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+		this(keySerializer, valueSerializer, DEFAULT_CAPACITY);
+	}
+
+	/** Creates an empty skiplist
+	 * @param keySerializer serializer for the keys
+	 * @param valueSerializer serializer for the values
+	 * @param initialCapacity the number of bytes to reserve up front
+	 */
+	public OffHeapSkipList(Serializer<K> keySerializer, Serializer<V> valueSerializer, int initialCapacity) {
+		this(keySerializer, valueSerializer, new OffHeapArena(initialCapacity));
+		clear();
+	}
+
+	/** Creates a skiplist using arena, the head and counters have to be set by the caller */
+	OffHeapSkipList(Serializer<K> keySerializer, Serializer<V> valueSerializer, OffHeapArena arena) {
+		this.keySerializer = keySerializer;
+		this.valueSerializer = valueSerializer;
+		this.arena = arena;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Iterable#iterator()
+	 */
+	public Iterator<Map.Entry<K, V>> iterator() {
+		return new OffHeapSkipListIterator();
+	}
+
+	int height(int node) {
+		return arena.buffer.getInt(node + HEIGHT);
+	}
+
+	int next(int node, int level) {
+		return arena.buffer.getInt(node + NEXT + Integer.BYTES * level);
+	}
+
+	void link(int node, int level, int next) {
+		arena.buffer.putInt(node + NEXT + Integer.BYTES * level, next);
+	}
+
+	/** Returns the number of bytes of the record of node */
+	int recordSize(int node) {
+		ByteBuffer buffer = arena.buffer;
+		return NEXT + Integer.BYTES * buffer.getInt(node + HEIGHT) + buffer.getInt(node + KEY_LENGTH) + buffer.getInt(node + VALUE_LENGTH);
+	}
+
+	/** Checks that node could be the offset of a record that ends before limit, without reading its key or value */
+	boolean isRecord(int node, int limit) {
+		if (node < arena.base || node % OffHeapArena.ALIGNMENT != 0 || (long) node + NEXT > limit)
+			return false;
+		ByteBuffer buffer = arena.buffer;
+		int height = buffer.getInt(node + HEIGHT);
+		int keyLength = buffer.getInt(node + KEY_LENGTH);
+		int valueLength = buffer.getInt(node + VALUE_LENGTH);
+		return height > 0 && height <= MAX_LEVEL && keyLength >= 0 && valueLength >= 0
+				&& (long) node + NEXT + Integer.BYTES * height + keyLength + valueLength <= limit;
+	}
+
+	K key(int node) {
+		ByteBuffer buffer = arena.buffer;
+		buffer.position(node + NEXT + Integer.BYTES * buffer.getInt(node + HEIGHT));
+		return keySerializer.read(buffer, buffer.getInt(node + KEY_LENGTH));
+	}
+
+	/** Serializes key into {@link #probe}, growing it if the key does not fit */
+	private void serializeProbe(K key) {
+		probeLength = keySerializer.size(key);
+		if (probe.capacity() < probeLength)
+			probe = ByteBuffer.allocate(Math.max(probeLength, 2 * probe.capacity()));
+		probe.clear().order(arena.buffer.order());
+		keySerializer.write(key, probe);
+	}
+
+	/** Compares the key of node to the key in {@link #probe} without deserializing either */
+	private int compareToProbe(int node) {
+		ByteBuffer buffer = arena.buffer;
+		int keyOffset = node + NEXT + Integer.BYTES * buffer.getInt(node + HEIGHT);
+		return keySerializer.compare(buffer, keyOffset, buffer.getInt(node + KEY_LENGTH), probe, 0, probeLength);
+	}
+
+	V value(int node) {
+		ByteBuffer buffer = arena.buffer;
+		buffer.position(node + NEXT + Integer.BYTES * buffer.getInt(node + HEIGHT) + buffer.getInt(node + KEY_LENGTH));
+		return valueSerializer.read(buffer, buffer.getInt(node + VALUE_LENGTH));
+	}
+
+	/** Allocates and writes the record of a node with no links
+	 * @return the offset of the record
+	 */
+	private int allocateNode(K key, V value, int height) {
+		int keyLength = key == null ? 0 : keySerializer.size(key);
+		int valueLength = value == null ? 0 : valueSerializer.size(value);
+		int node = arena.allocate(NEXT + Integer.BYTES * height + keyLength + valueLength);
+
+		ByteBuffer buffer = arena.buffer;
+		buffer.putInt(node + HEIGHT, height);
+		buffer.putInt(node + KEY_LENGTH, keyLength);
+		buffer.putInt(node + VALUE_LENGTH, valueLength);
+		for (int level = 0; level < height; level++)
+			buffer.putInt(node + NEXT + Integer.BYTES * level, OffHeapArena.NULL);
+		buffer.position(node + NEXT + Integer.BYTES * height);
+		if (key != null)
+			keySerializer.write(key, buffer);
+		if (value != null)
+			valueSerializer.write(value, buffer);
+		if (buffer.position() != node + NEXT + Integer.BYTES * height + keyLength + valueLength)
+			throw new IllegalStateException("serializer wrote a different number of bytes than its size");
+		return node;
+	}
+
+	/** removes highway lists when they are empty */
+	private void cleanEmptyLists() {
+		while (skips > 0 && next(head, skips) == OffHeapArena.NULL)
+			skips--;
+	}
+
+	/** Adds a key, value pair to the skiplist
+	 * @param key the key to identify the value
+	 * @param value the value to store
+	 * @return the previous value of the key, or null if it did not exist
+	 * @throws NullPointerException if key or value is null
+	 */
+	public V add(K key, V value) {
+		if (key == null || value == null)
+			throw new NullPointerException();
+		V toReturn = null;
+
+		int[] path = findPath(key);
+		int next = next(path[0], 0);
+		if (next != OffHeapArena.NULL && compareToProbe(next) == 0) {
+			toReturn = value(next);
+			unlink(path);
+		}
+
+		int height = randomHeight();
+		int toAdd = allocateNode(key, value, height);
+		if (skips < height - 1)
+			skips = height - 1;
+		for (int level = 0; level < height; level++) {
+			// lists emptied by unlink or created for this node only hold the head before it
+			int before = level < path.length ? path[level] : head;
+			link(toAdd, level, next(before, level));
+			link(before, level, toAdd);
+		}
+		size++;
+		return toReturn;
+	}
+
+	/** Finds the node before the specified key in every list, recorded during a single descent from the highest list.
+	 * 	Leaves the serialized key in {@link #probe}.
+	 * @param key the key to find the nodes for
+	 * @return array where index i holds the node before the natural position of the key in list i
+	 */
+	private int[] findPath(K key) {
+		serializeProbe(key);
+		int[] path = new int[skips + 1];
+		int current = head;
+		for (int level = skips; level >= 0; level--) {
+			for (int next = next(current, level); next != OffHeapArena.NULL && compareToProbe(next) < 0; next = next(current, level))
+				current = next;
+			path[level] = current;
+		}
+		return path;
+	}
+
+	/** Finds the node with the specified key
+	 * @param key the key to find
+	 * @return the offset of the node, or {@link OffHeapArena#NULL} if there is none
+	 */
+	private int findNode(K key) {
+		serializeProbe(key);
+		int current = head;
+		for (int level = skips; level >= 0; level--) {
+			for (int next = next(current, level); next != OffHeapArena.NULL; next = next(current, level)) {
+				int comparison = compareToProbe(next);
+				if (comparison == 0)
+					return next;
+				if (comparison > 0)
+					break;
+				current = next;
+			}
+		}
+		return OffHeapArena.NULL;
+	}
+
+	/** Determines how many lists a new node is in, elevating it to each further list with probability 1/{@link #probability}
+	 * @return the number of lists, at least 1 for the full list
+	 */
+	private int randomHeight() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int height = 1;
+		while (height < MAX_LEVEL && random.nextInt(probability) == 0)
+			height++;
+		return height;
+	}
+
+	/** Removes the node after path[0] from every list it is in and frees its record.
+	 * @param path the nodes before the node to remove in each list
+	 */
+	private void unlink(int[] path) {
+		int toRemove = next(path[0], 0);
+		int height = height(toRemove);
+		for (int level = 0; level < height; level++)
+			link(path[level], level, next(toRemove, level));
+		arena.free(toRemove, recordSize(toRemove));
+		size--;
+		cleanEmptyLists();
+	}
+
+	/** Removes the node with the specified key
+	 * @param key of the node to be removed
+	 * @return the value of the removed node, or null if no node has the key
+	 * @throws IndexOutOfBoundsException if the lists size is 0
+	 * @throws ClassCastException if the key cannot be cast to K
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(Object key) throws ClassCastException {
+		if (size == 0)
+			throw new IndexOutOfBoundsException();
+
+		int[] path = findPath((K) key);
+		int next = next(path[0], 0);
+		if (next == OffHeapArena.NULL || compareToProbe(next) != 0)
+			return null;
+		V toReturn = value(next);
+		unlink(path);
+		return toReturn;
+	}
+
+	/** Returns the value at index, walking the full list
+	 * @param index the position to return the value from
+	 * @return the value of the node at index
+	 */
+	public V get(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException();
+
+		int current = next(head, 0);
+		for (int i = 0; i < index; i++)
+			current = next(current, 0);
+		return value(current);
+	}
+
+	/** Returns the value of the specified key or null if no such key exists
+	 * @param key the key to find value of
+	 * @return the value of the key or null if no key is found
+	 * @throws ClassCastException if the key cannot be cast to K
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(Object key) throws ClassCastException {
+		int node = findNode((K) key);
+		return node != OffHeapArena.NULL ? value(node) : null;
+	}
+
+	/**	Checks if the skiplist contains the given key
+	 * @param key the key to check if it exists
+	 * @return true if the key exists, false if it doesnt
+	 */
+	public boolean contains(K key) {
+		return findNode(key) != OffHeapArena.NULL;
+	}
+
+	/** Clears the skiplist of all elements and sets size, skips to 0, keeping the memory reserved */
+	public void clear() {
+		arena.clear();
+		size = 0;
+		skips = 0;
+		head = allocateNode(null, null, MAX_LEVEL);
+	}
+
+	/** Returns the number of key-value mappings in this skiplist
+	 * @return Returns the number of key-value mappings in this skiplist
+	 */
+	public int size() {
+		return size;
+	}
+
+	/** Returns whether size == 0
+	 * @return true if size == 0, false otherwise
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/** Returns the number of bytes of the arena that have been handed out, including freed records waiting for reuse
+	 * @return the number of bytes used outside the heap
+	 */
+	public long offHeapBytes() {
+		return arena.top;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder output = new StringBuilder("{");
+		for (int node = next(head, 0); node != OffHeapArena.NULL; node = next(node, 0)) {
+			output.append(key(node)).append('=').append(value(node));
+			if (next(node, 0) != OffHeapArena.NULL)
+				output.append(", ");
+		}
+		return output.append('}').toString();
+	}
+
+	/** Iterator for {@link OffHeapSkipList}, walks the full list and deserializes each entry when it is returned. */
+	private class OffHeapSkipListIterator implements Iterator<Map.Entry<K,V>> {
+		private int lastReturned = head;
+
+		@Override
+		public boolean hasNext() {
+			return OffHeapSkipList.this.next(lastReturned, 0) != OffHeapArena.NULL;
+		}
+
+		@Override
+		public Map.Entry<K,V> next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			lastReturned = OffHeapSkipList.this.next(lastReturned, 0);
+			return new AbstractMap.SimpleImmutableEntry<K,V>(key(lastReturned), value(lastReturned));
+		}
+	}
+}
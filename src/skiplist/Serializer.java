@@ -0,0 +1,154 @@
+package skiplist;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/** Converts keys or values to and from the bytes stored by the skiplists that keep their data outside the heap.
+ * 	Every value is written as a record of exactly {@link #size(Object) size(value)} bytes,
+ * 	the length of the record is stored by the caller and handed back to {@link #read(ByteBuffer, int) read}.
+ *
+ * @param <T> type of the serialized objects
+ */
+public interface Serializer<T> {
+
+	/** Returns the number of bytes {@link #write(Object, ByteBuffer) write} will use for value
+	 * @param value the value to measure
+	 * @return the size of the serialized value in bytes
+	 */
+	int size(T value);
+
+	/** Writes value at the position of the buffer, advancing the position by {@link #size(Object) size(value)} bytes
+	 * @param value the value to write
+	 * @param buffer the buffer to write to
+	 */
+	void write(T value, ByteBuffer buffer);
+
+	/** Reads a value written by {@link #write(Object, ByteBuffer) write} from the position of the buffer
+	 * @param buffer the buffer to read from
+	 * @param length the number of bytes the value was written with
+	 * @return the value
+	 */
+	T read(ByteBuffer buffer, int length);
+
+	/** Compares two serialized values in place by the natural ordering of the values they encode, reading at absolute offsets
+	 * 	without moving the positions of the buffers. The default deserializes both values, which have to be {@link Comparable},
+	 * 	serializers of keys override it to compare the bytes directly.
+	 * @param a the buffer holding the first value
+	 * @param aOffset the offset of the first value in a
+	 * @param aLength the number of bytes the first value was written with
+	 * @param b the buffer holding the second value
+	 * @param bOffset the offset of the second value in b
+	 * @param bLength the number of bytes the second value was written with
+	 * @return a negative number, zero or a positive number if the first value is less than, equal to or greater than the second
+	 */
+	@SuppressWarnings("unchecked")
+	default int compare(ByteBuffer a, int aOffset, int aLength, ByteBuffer b, int bOffset, int bLength) {
+		T first = read(a.duplicate().order(a.order()).position(aOffset), aLength);
+		T second = read(b.duplicate().order(b.order()).position(bOffset), bLength);
+		return ((Comparable<? super T>) first).compareTo(second);
+	}
+
+	/** Serializer for Integer using 4 bytes */
+	Serializer<Integer> INTEGER = new Serializer<Integer>() {
+		@Override
+		public int size(Integer value) {
+			return Integer.BYTES;
+		}
+
+		@Override
+		public void write(Integer value, ByteBuffer buffer) {
+			buffer.putInt(value);
+		}
+
+		@Override
+		public Integer read(ByteBuffer buffer, int length) {
+			return buffer.getInt();
+		}
+
+		@Override
+		public int compare(ByteBuffer a, int aOffset, int aLength, ByteBuffer b, int bOffset, int bLength) {
+			return Integer.compare(a.getInt(aOffset), b.getInt(bOffset));
+		}
+	};
+
+	/** Serializer for Long using 8 bytes */
+	Serializer<Long> LONG = new Serializer<Long>() {
+		@Override
+		public int size(Long value) {
+			return Long.BYTES;
+		}
+
+		@Override
+		public void write(Long value, ByteBuffer buffer) {
+			buffer.putLong(value);
+		}
+
+		@Override
+		public Long read(ByteBuffer buffer, int length) {
+			return buffer.getLong();
+		}
+
+		@Override
+		public int compare(ByteBuffer a, int aOffset, int aLength, ByteBuffer b, int bOffset, int bLength) {
+			return Long.compare(a.getLong(aOffset), b.getLong(bOffset));
+		}
+	};
+
+	/** Serializer for String using its UTF-8 encoding */
+	Serializer<String> STRING = new Serializer<String>() {
+		@Override
+		public int size(String value) {
+			int size = 0;
+			for (int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				if (c < 0x80) {
+					size += 1;
+				} else if (c < 0x800) {
+					size += 2;
+				} else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+					size += 4;
+					i++;
+				} else if (Character.isSurrogate(c)) {
+					size += 1;  // unpaired surrogates are encoded as '?'
+				} else {
+					size += 3;
+				}
+			}
+			return size;
+		}
+
+		@Override
+		public void write(String value, ByteBuffer buffer) {
+			buffer.put(value.getBytes(StandardCharsets.UTF_8));
+		}
+
+		@Override
+		public String read(ByteBuffer buffer, int length) {
+			byte[] bytes = new byte[length];
+			buffer.get(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		/** Compares the UTF-8 bytes as unsigned bytes, which orders by code point. {@link String#compareTo(String)} orders by UTF-16 code unit,
+		 * 	which differs only where a supplementary character, 4 bytes in UTF-8 but surrogates below U+E000 in UTF-16, meets a character
+		 * 	from U+E000 to U+FFFF, 3 bytes starting with 0xEE or 0xEF, so those two are swapped.
+		 */
+		@Override
+		public int compare(ByteBuffer a, int aOffset, int aLength, ByteBuffer b, int bOffset, int bLength) {
+			int length = Math.min(aLength, bLength);
+			for (int i = 0; i < length; i++) {
+				int x = Byte.toUnsignedInt(a.get(aOffset + i));
+				int y = Byte.toUnsignedInt(b.get(bOffset + i));
+				if (x == y)
+					continue;
+				// the bytes before i are equal, so both differ in a lead byte or both in a continuation byte of the same lead
+				if (x >= 0xF0 && (y == 0xEE || y == 0xEF))
+					return -1;
+				if (y >= 0xF0 && (x == 0xEE || x == 0xEF))
+					return 1;
+				return x - y;
+			}
+			return aLength - bLength;
+		}
+	};
+}
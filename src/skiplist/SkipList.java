@@ -1,63 +1,142 @@
 package skiplist;
 
+import java.io.IOException;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.Random;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import skiplist.SkipListMetrics.Operation;
 
 /** SkipList implementing Iterable, implemented as a single linked list.
- * 	Does not support duplicate keys.
+ * 	Keys are ordered by their natural ordering or by the {@link Comparator} given at construction.
+ * 	Does not support duplicate keys, two keys are the same if they compare as equal.
  * @author Fredrik
  *
  * @param <K> key
  * @param <V> value
  */
-public class SkipList<K extends Comparable<K>, V> implements Iterable<SkipList.Node<K, V>>{
+public class SkipList<K, V> implements Iterable<SkipList.Node<K, V>>{
 
 	/** Node used in the {@link SkipList} for Key-Value mapping and links in LinkedList-like SkipList implementation.
+	 * 	Every key has a single node holding its links in all lists it is in. The link in the full list is a field,
+	 * 	the links in the express lists are kept in arrays sized to the number of express lists the node is in.
+	 * 	Nodes are not Comparable, since the ordering of their keys is that of the list, which may have a comparator.
 	 * @author Fredrik
 	 *
 	 * @param <K> Key
 	 * @param <V> Value
 	 */
-	public static class Node<K extends Comparable<K>, V> implements Comparable<Node<K,V>> {
+	public static class Node<K, V> {
 		private K ref;
 		private V value;
-		private Node<K,V> under;
+		/** the next node in the full list, null for the last node */
 		private Node<K,V> next;
+		/** the previous node in the full list, null for the first node */
+		private Node<K,V> prev;
+		/** express[i - 1] is the next node in list i, null if the node is only in the full list */
+		private Node<K,V>[] express;
+		/** widths[i - 1] is the number of nodes in the full list passed by following express[i - 1], the head being at position 0 */
+		private int[] widths;
 
-		private Node(Node<K,V> next, K ref, Node<K,V> under, V value) {
-			this.next = next;
+		@SuppressWarnings("unchecked")
+		private Node(K ref, V value, int height) {
 			this.ref = ref;
 			this.value = value;
-			this.under = under;
+			if (height > 1) {
+				express = (Node<K,V>[]) new Node<?,?>[height - 1];
+				widths = new int[height - 1];
+			}
 		}
 		
-		@Override
-		public Node<K,V> clone() {
-			return new Node<K,V>(next, ref, under, value);
+		/** returns the number of lists the Node is in */
+		private int height() {
+			return express == null ? 1 : express.length + 1;
 		}
 		
-		@Override
-		public int compareTo(Node<K,V> other) {
-			if (ref == null)
-				return Integer.MAX_VALUE;  // tail should always be bigger
-			return ref.compareTo(other.ref);
+		/** puts the Node in height lists, clearing its links in the express lists */
+		@SuppressWarnings("unchecked")
+		private void setHeight(int height) {
+			if (height == 1) {
+				express = null;
+				widths = null;
+			} else if (height != height()) {
+				express = (Node<K,V>[]) new Node<?,?>[height - 1];
+				widths = new int[height - 1];
+			} else {
+				Arrays.fill(express, null);
+			}
+		}
+		
+		/** puts the Node in height lists, keeping its links and widths in the lists it stays in */
+		private void resize(int height) {
+			if (height == 1) {
+				express = null;
+				widths = null;
+			} else if (express == null) {
+				setHeight(height);
+			} else {
+				express = Arrays.copyOf(express, height - 1);
+				widths = Arrays.copyOf(widths, height - 1);
+			}
+		}
+		
+		/** returns the next Node in list level */
+		private Node<K,V> next(int level) {
+			return level == 0 ? next : express[level - 1];
+		}
+		
+		/** sets the next Node in list level */
+		private void link(int level, Node<K,V> node) {
+			if (level == 0)
+				next = node;
+			else
+				express[level - 1] = node;
+		}
+		
+		/** returns the number of nodes in the full list passed by following the link in list level */
+		private int width(int level) {
+			return level == 0 ? 1 : widths[level - 1];
+		}
+		
+		/** sets the width of the link in list level, the full list always has width 1 */
+		private void setWidth(int level, int width) {
+			if (level != 0)
+				widths[level - 1] = width;
 		}
 		
 		@Override
 		public String toString() {
-			if (ref == null) {
-				if (next != null)
-					return "head";
-				return "tail";
-			}
+			if (ref == null)
+				return "head";
 			String s = ref.toString();
-			for (Node<K,V> un = under; un != null; un = un.under)
-				s+= "\n" + un.ref;
+			for (int i = 1; i < height(); i++)
+				s+= "\n" + ref;
 			return s;
 		}
 
+		/** returns the next Node in the full list, null for the last Node */
+		Node<K,V> next() {
+			return next;
+		}
+
+		/** returns the previous Node in the full list, null for the first Node */
+		Node<K,V> previous() {
+			return prev;
+		}
+
 		/** returns the value of the Node
 		 * @return the value of the Node
 		 */
@@ -72,71 +151,1155 @@ public class SkipList<K extends Comparable<K>, V> implements Iterable<SkipList.N
 		}
 	}
 	
+	/** How {@link SkipList#fromSorted(Iterator, Promotion) fromSorted} decides which lists each node is in */
+	public enum Promotion {
+		/** Each node is elevated to every further list with probability 1/probability, as by {@link SkipList#add(Object, Object) add} */
+		RANDOM,
+		/** Every probability-th node of a list is elevated to the next list, so every gap in a list spans the same number of nodes */
+		EVENLY_SPACED
+	}
+	
+	/** Which node a list at its {@link SkipList#setCapacity(int, Eviction) capacity} removes when a key is added */
+	public enum Eviction {
+		/** the node with the least key, a new key less than every key is not added */
+		FIRST,
+		/** the node with the greatest key, a new key greater than every key is not added */
+		LAST
+	}
+	
 	/** Multiplicator used to expand the arrays */
 	private static final int ARRAY_RESIZE_MULTIPLICATOR = 2;
 	
+	/** Maximum level of a list without a cap on the number of lists a node is in */
+	public static final int UNBOUNDED = Integer.MAX_VALUE;
+	/** Maximum level of a list that caps the number of lists a node is in at {@link #levelsFor(int, long) levelsFor(probability, size)},
+	 * 	raising the cap as the list grows */
+	public static final int ADAPTIVE = 0;
+	
 	/** size of the list */
 	private int size;
 	/** number of lists excluding full list */
 	private int skips = 0;
 	/** probability of elevating an element to upper list. 1/probability */
-	private int probability = 2;
+	private final int probability;
+	/** the configured maximum number of lists a node is in, {@link #UNBOUNDED} or {@link #ADAPTIVE} */
+	private final int maxLevel;
+	/** the current maximum number of lists a node is in */
+	private int levelCap;
+	/** the size at which an adaptive levelCap is raised, Long.MAX_VALUE if it is fixed */
+	private long levelCapSize;
+	/** the ordering of the keys, null for their natural ordering */
+	private final Comparator<? super K> comparator;
+	/** whether the heights are kept by bounding the gaps of every list instead of being drawn at random, see {@link DeterministicSkipList} */
+	private final boolean deterministic;
+	/** collects the metrics of the list, null while instrumentation is disabled */
+	private SkipListMetrics metrics;
+	/** the maximum size, {@link #UNBOUNDED} if there is none */
+	private int capacity = UNBOUNDED;
+	/** the node removed when an add exceeds the capacity */
+	private Eviction eviction = Eviction.FIRST;
+	/** the number of structural modifications, which invalidate the iterators and cursors */
+	private int modCount;
+	/** the number of nodes visited by the search of the current operation, -1 if it did not search by key, only set while metrics are collected */
+	private int visited;
 	
-	/** Array of all the heads of the lists */
-	private Node<K,V>[] heads;
-	/** Array of all the tails of the lists */
-	private Node<K,V>[] tails;
+	/** Sentinel before the first node of every list, its arrays have room for more lists than are in use */
+	private Node<K,V> head;
+	/** the last node of the full list, null if the list is empty */
+	private Node<K,V> tail;
+	/** Reused by {@link #findPath(Object)}, index i is the Node before the key searched for in list i, sized to the head */
+	private Node<K,V>[] path;
+	/** Reused by {@link #findPath(Object)}, index i is the position of path[i] in the full list, sized to the head */
+	private int[] positions;
+	/** The path of the last search by key, where the next search starts, null while finger search is disabled, sized to the head */
+	private Node<K,V>[] finger;
+	/** index i is the position of finger[i] in the full list */
+	private int[] fingerPositions;
+	/** the modCount the finger is valid at, it is stale after every other structural modification */
+	private int fingerModCount;
 
-	/** Creates an empty skiplist */
+	/** Creates an empty skiplist ordered by the natural ordering of its keys, which have to implement {@link Comparable} */
 	public SkipList() {
+		this(null);
+	}
+	
+	/** Creates an empty skiplist ordered by comparator
+	 * @param comparator the ordering of the keys, null for their natural ordering
+	 */
+	public SkipList(Comparator<? super K> comparator) {
+		this(comparator, 2, UNBOUNDED);
+	}
+	
+	/** Creates an empty skiplist ordered by the natural ordering of its keys with the given level distribution
+	 * @param probability a node is elevated to each further list with probability 1/probability
+	 * @param maxLevel the maximum number of lists a node is in, {@link #UNBOUNDED} or {@link #ADAPTIVE}
+	 * @throws IllegalArgumentException if probability is less than 2 or maxLevel is negative
+	 */
+	public SkipList(int probability, int maxLevel) {
+		this(null, probability, maxLevel);
+	}
+	
+	/** Creates an empty skiplist ordered by comparator with the given level distribution.
+	 * 	A higher probability puts fewer nodes in the express lists, using less memory for longer searches.
+	 * @param comparator the ordering of the keys, null for their natural ordering
+	 * @param probability a node is elevated to each further list with probability 1/probability
+	 * @param maxLevel the maximum number of lists a node is in, {@link #UNBOUNDED} or {@link #ADAPTIVE}
+	 * @throws IllegalArgumentException if probability is less than 2 or maxLevel is negative
+	 */
+	public SkipList(Comparator<? super K> comparator, int probability, int maxLevel) {
+		this(comparator, probability, maxLevel, false);
+	}
+	
+	/** Creates an empty skiplist, which bounds the gaps of every list during add and remove if deterministic */
+	SkipList(Comparator<? super K> comparator, int probability, int maxLevel, boolean deterministic) {
+		if (probability < 2)
+			throw new IllegalArgumentException("probability must be at least 2: " + probability);
+		if (maxLevel < 0)
+			throw new IllegalArgumentException("maxLevel must not be negative: " + maxLevel);
+		this.comparator = comparator;
+		this.probability = probability;
+		this.maxLevel = maxLevel;
+		this.deterministic = deterministic;
 		clear();
 	}
 	
+	/** Returns the number of lists for which the highest list is expected to hold a node in a skiplist of expectedSize nodes
+	 * @param probability a node is elevated to each further list with probability 1/probability
+	 * @param expectedSize the number of nodes
+	 * @return 1 + floor(log_probability(expectedSize)), at least 1
+	 */
+	public static int levelsFor(int probability, long expectedSize) {
+		int levels = 1;
+		for (long n = expectedSize; n >= probability; n /= probability)
+			levels++;
+		return levels;
+	}
+	
+	/** Sets the cap on the number of lists a node is in for a list of size nodes */
+	private void adaptLevelCap(long size) {
+		if (maxLevel != ADAPTIVE) {
+			levelCap = maxLevel;
+			levelCapSize = Long.MAX_VALUE;
+			return;
+		}
+		levelCap = levelsFor(probability, size);
+		levelCapSize = 1;
+		for (int level = 0; level < levelCap && levelCapSize <= Long.MAX_VALUE / probability; level++)
+			levelCapSize *= probability;
+	}
+	
+	/** Raises an adaptive cap on the number of lists a node is in once the list has grown to the size of the next level */
+	private void grown() {
+		if (size >= levelCapSize)
+			adaptLevelCap(size);
+	}
+	
+	/** Returns the probability of the list
+	 * @return a node is elevated to each further list with probability 1/probability
+	 */
+	public int probability() {
+		return probability;
+	}
+	
+	/** Returns the current maximum number of lists a node is in, which grows with the size of the list in {@link #ADAPTIVE} mode
+	 * @return the maximum number of lists, {@link #UNBOUNDED} if there is none
+	 */
+	public int maxLevel() {
+		return levelCap;
+	}
+	
+	/** Builds a skiplist from entries in ascending key order in a single pass, without searching for the position of any key.
+	 * @param entries the entries in strictly ascending key order
+	 * @param promotion how the heights of the nodes are chosen
+	 * @return a skiplist holding the entries
+	 * @throws IllegalArgumentException if the keys are not strictly ascending
+	 * @throws NullPointerException if a key is null
+	 */
+	public static <K extends Comparable<K>, V> SkipList<K, V> fromSorted(Iterator<? extends Map.Entry<? extends K, ? extends V>> entries,
+			Promotion promotion) {
+		return fromSorted(entries, null, promotion);
+	}
+	
+	/** Builds a skiplist ordered by comparator from entries in ascending order in a single pass, without searching for the position of any key.
+	 * @param entries the entries in strictly ascending key order
+	 * @param comparator the ordering of the keys, null for their natural ordering
+	 * @param promotion how the heights of the nodes are chosen
+	 * @return a skiplist holding the entries
+	 * @throws IllegalArgumentException if the keys are not strictly ascending
+	 * @throws NullPointerException if a key is null
+	 */
+	public static <K, V> SkipList<K, V> fromSorted(Iterator<? extends Map.Entry<? extends K, ? extends V>> entries,
+			Comparator<? super K> comparator, Promotion promotion) {
+		SkipList<K,V> list = new SkipList<>(comparator);
+		list.appendSorted(entries, promotion);
+		return list;
+	}
+	
+	/** Builds a skiplist from entries in ascending key order in a single pass, without searching for the position of any key.
+	 * @param entries the entries in strictly ascending key order
+	 * @param promotion how the heights of the nodes are chosen
+	 * @return a skiplist holding the entries
+	 * @throws IllegalArgumentException if the keys are not strictly ascending
+	 * @throws NullPointerException if a key is null
+	 */
+	public static <K extends Comparable<K>, V> SkipList<K, V> fromSorted(Stream<? extends Map.Entry<? extends K, ? extends V>> entries,
+			Promotion promotion) {
+		return fromSorted(entries.iterator(), promotion);
+	}
+	
+	/** Links entries after the last node of every list of an empty skiplist
+	 * @param entries the entries in strictly ascending key order
+	 * @param promotion how the heights of the nodes are chosen
+	 */
+	private void appendSorted(Iterator<? extends Map.Entry<? extends K, ? extends V>> entries, Promotion promotion) {
+		appendNodes(new Iterator<Node<K,V>>() {
+			private K previous = null;
+			
+			@Override
+			public boolean hasNext() {
+				return entries.hasNext();
+			}
+			
+			@Override
+			public Node<K,V> next() {
+				Map.Entry<? extends K, ? extends V> entry = entries.next();
+				K key = entry.getKey();
+				if (key == null)
+					throw new NullPointerException();
+				if (previous != null && compare(previous, key) >= 0)
+					throw new IllegalArgumentException("keys are not in strictly ascending order: " + previous + ", " + key);
+				previous = key;
+				return new Node<K,V>(key, entry.getValue(), 1);
+			}
+		}, promotion);
+	}
+	
+	/** Links nodes after the last node of every list of an empty skiplist, keeping the last node and its position in each list.
+	 * 	Every node is given a new height and its links are replaced, so nodes of another arrangement of the same keys may be linked again.
+	 * @param nodes the nodes in strictly ascending key order
+	 * @param promotion how the heights of the nodes are chosen, null to keep the height of every node up to {@link #levelCap}
+	 */
+	@SuppressWarnings("unchecked")
+	private void appendNodes(Iterator<Node<K,V>> nodes, Promotion promotion) {
+		Node<K,V>[] last = (Node<K,V>[]) new Node<?,?>[head.height()];
+		int[] lastPositions = new int[head.height()];
+		Arrays.fill(last, head);
+		
+		while (nodes.hasNext()) {
+			Node<K,V> toAdd = nodes.next();
+			int position = size + 1;
+			toAdd.setHeight(promotion == null ? Math.min(toAdd.height(), levelCap)
+					: promotion == Promotion.RANDOM ? randomHeight() : Math.min(evenHeight(position), levelCap));
+			toAdd.next = null;
+			toAdd.prev = last[0] == head ? null : last[0];
+			tail = toAdd;
+			while (skips < toAdd.height() - 1)
+				makeSkip();
+			if (last.length < head.height()) {
+				int levels = last.length;
+				last = Arrays.copyOf(last, head.height());
+				lastPositions = Arrays.copyOf(lastPositions, head.height());
+				Arrays.fill(last, levels, last.length, head);
+			}
+			for (int level = 0; level < toAdd.height(); level++) {
+				last[level].link(level, toAdd);
+				last[level].setWidth(level, position - lastPositions[level]);
+				last[level] = toAdd;
+				lastPositions[level] = position;
+			}
+			size++;
+			grown();
+		}
+		// the last link of every list spans to the end of the list
+		for (int level = 1; level <= skips; level++)
+			last[level].setWidth(level, size + 1 - lastPositions[level]);
+	}
+	
+	/** Gives every node a new height and links the nodes again in a single pass, in O(n).
+	 * 	Used after a large shrink, which leaves the towers of the removed nodes missing from the express lists.
+	 * 	The head is shrunk to the lists in use and an {@link #ADAPTIVE} cap on the number of lists a node is in is lowered to the current size.
+	 * 	Nodes keep their identity, keys and values.
+	 * @param promotion how the heights of the nodes are chosen, {@link Promotion#EVENLY_SPACED} gives every gap in a list the same width.
+	 * 	A {@link DeterministicSkipList} is always evenly spaced.
+	 */
+	public void rebalance(Promotion promotion) {
+		if (deterministic)
+			promotion = Promotion.EVENLY_SPACED;
+		Node<K,V> first = head.next;
+		int count = size;
+		clear();
+		adaptLevelCap(count);
+		appendNodes(new Iterator<Node<K,V>>() {
+			private Node<K,V> next = first;
+			
+			@Override
+			public boolean hasNext() {
+				return next != null;
+			}
+			
+			@Override
+			public Node<K,V> next() {
+				Node<K,V> node = next;
+				next = node.next;
+				return node;
+			}
+		}, promotion);
+	}
+	
+	/** Returns the union of two lists with the same ordering as a new list, built in a single pass over both in O(n + m).
+	 * 	The nodes of both lists are linked into the new list, keeping the lists they are in, and both lists are left empty.
+	 * 	The new list has the ordering and the level distribution of a. A {@link DeterministicSkipList} is evenly spaced instead.
+	 * @param a the first list, its node is kept for a key in both lists
+	 * @param b the second list
+	 * @param resolver combines the value in a and the value in b of a key in both lists
+	 * @return a list holding the union of the keys
+	 */
+	public static <K, V> SkipList<K, V> union(SkipList<K, V> a, SkipList<K, V> b, BinaryOperator<V> resolver) {
+		if (a == b)
+			throw new IllegalArgumentException("cannot take the union of a list with itself");
+		SkipList<K, V> merged = a.emptyCopy();
+		Node<K, V> first = a.head.next;
+		Node<K, V> second = b.head.next;
+		a.clear();
+		b.clear();
+		merged.appendNodes(new Iterator<Node<K, V>>() {
+			private Node<K, V> left = first;
+			private Node<K, V> right = second;
+			
+			@Override
+			public boolean hasNext() {
+				return left != null || right != null;
+			}
+			
+			@Override
+			public Node<K, V> next() {
+				Node<K, V> node;
+				int comparison = left == null ? 1 : right == null ? -1 : merged.compare(left.ref, right.ref);
+				if (comparison <= 0) {
+					node = left;
+					left = left.next;
+					if (comparison == 0) {
+						node.value = resolver.apply(node.value, right.value);
+						right = right.next;
+					}
+				} else {
+					node = right;
+					right = right.next;
+				}
+				return node;
+			}
+		}, merged.deterministic ? Promotion.EVENLY_SPACED : null);
+		return merged;
+	}
+	
+	/** Moves every node with a key greater than or equal to key to a new list, cutting every list at the key in O(log n).
+	 * 	The nodes keep the lists they are in. A {@link DeterministicSkipList} rebalances both lists in O(n) to restore its gaps.
+	 * @param key the least key of the new list
+	 * @return a list with the ordering and level distribution of this list, holding the nodes from key on
+	 */
+	public SkipList<K,V> split(K key) {
+		SkipList<K,V> right = emptyCopy();
+		findPath(key);
+		int count = positions[0];
+		if (count == size)
+			return right;
+		
+		right.ensureHeadHeight(skips + 1);
+		right.skips = skips;
+		for (int level = 0; level <= skips; level++) {
+			Node<K,V> before = path[level];
+			right.head.link(level, before.next(level));
+			right.head.setWidth(level, positions[level] + before.width(level) - count);
+			before.link(level, null);
+			before.setWidth(level, count + 1 - positions[level]);
+		}
+		right.head.next.prev = null;
+		right.tail = tail;
+		tail = count == 0 ? null : path[0];
+		right.size = size - count;
+		size = count;
+		modCount++;
+		cleanEmptyLists();
+		right.cleanEmptyLists();
+		right.grown();
+		if (deterministic) {
+			rebalance(Promotion.EVENLY_SPACED);
+			right.rebalance(Promotion.EVENLY_SPACED);
+		}
+		return right;
+	}
+	
+	/** Moves every node of other, whose keys all have to be greater than the keys of this list, to the end of this list
+	 * 	in O(log n + log m), leaving other empty. The nodes keep the lists they are in, a node in more lists than the maximum level
+	 * 	of this list rebalances it. A {@link DeterministicSkipList} rebalances in O(n) to restore its gaps.
+	 * @param other a list with the same ordering
+	 * @throws IllegalArgumentException if the first key of other is not greater than the last key of this list
+	 */
+	public void concat(SkipList<K,V> other) {
+		if (other == this)
+			throw new IllegalArgumentException("cannot concat a list with itself");
+		if (other.isEmpty())
+			return;
+		if (tail != null && compare(tail.ref, other.head.next.ref) >= 0)
+			throw new IllegalArgumentException("keys are not greater than the last key: " + other.head.next.ref);
+		
+		findBound(null, true);
+		ensureHeadHeight(other.skips + 1);
+		for (int level = skips + 1; level <= other.skips; level++) {
+			path[level] = head;
+			positions[level] = 0;
+		}
+		int lists = Math.max(skips, other.skips);
+		for (int level = 0; level <= lists; level++) {
+			Node<K,V> last = path[level];
+			if (level <= other.skips) {
+				last.link(level, other.head.next(level));
+				last.setWidth(level, size + other.head.width(level) - positions[level]);
+			} else {
+				last.setWidth(level, size + other.size + 1 - positions[level]);
+			}
+		}
+		other.head.next.prev = tail;
+		tail = other.tail;
+		skips = lists;
+		size += other.size;
+		modCount++;
+		other.clear();
+		if (maxLevel == ADAPTIVE)
+			adaptLevelCap(size);
+		if (deterministic || skips >= levelCap)
+			rebalance(deterministic ? Promotion.EVENLY_SPACED : Promotion.RANDOM);
+	}
+	
+	/** Returns an empty list with the ordering and level distribution of this list */
+	SkipList<K,V> emptyCopy() {
+		return new SkipList<>(comparator, probability, maxLevel, deterministic);
+	}
+	
+	/** Grows the arrays of the head and the scratch arrays to hold at least height lists, regardless of {@link #levelCap} */
+	private void ensureHeadHeight(int height) {
+		if (head.height() >= height)
+			return;
+		head.express = Arrays.copyOf(head.express, height - 1);
+		head.widths = Arrays.copyOf(head.widths, height - 1);
+		path = Arrays.copyOf(path, height);
+		positions = Arrays.copyOf(positions, height);
+		if (finger != null) {
+			finger = Arrays.copyOf(finger, height);
+			fingerPositions = Arrays.copyOf(fingerPositions, height);
+		}
+	}
+	
+	/** Returns the number of lists the node at position is in when every probability-th node of a list is elevated
+	 * @param position the position of the node in the full list, starting at 1
+	 * @return one more than the number of times position is divisible by {@link #probability}
+	 */
+	private int evenHeight(int position) {
+		int height = 1;
+		for (; position % probability == 0; position /= probability)
+			height++;
+		return height;
+	}
+	
 	/* (non-Javadoc)
 	 * @see java.lang.Iterable#iterator()
 	 */
 	public Iterator<Node<K, V>> iterator() {
-		return new SkipListIterator();
+		return new SkipListIterator(head.next, 0);
 	}
 	
-	/** Expands the arrays containing heads and tails to their current (size * {@link #ARRAY_RESIZE_MULTIPLICATOR multiplicator}) */
+	/** Returns an iterator over the nodes in ascending key order that can also move backwards along the full list
+	 * @return a list iterator positioned before the first node
+	 */
+	public ListIterator<Node<K, V>> listIterator() {
+		return new SkipListIterator(head.next, 0);
+	}
+	
+	/** Returns an iterator over the nodes in ascending key order that can also move backwards, starting at index in O(log n)
+	 * @param index the index of the node returned by the first call to next
+	 * @return a list iterator positioned before the node at index
+	 * @throws IndexOutOfBoundsException if index is negative or greater than the size
+	 */
+	public ListIterator<Node<K, V>> listIterator(int index) {
+		if (index < 0 || index > size)
+			throw new IndexOutOfBoundsException();
+		return new SkipListIterator(index == size ? null : nodeAt(index), index);
+	}
+	
+	/** Returns an iterator over the nodes in descending key order, starting at the last node in O(1)
+	 * @return an iterator following the back links of the full list
+	 */
+	public Iterator<Node<K, V>> descendingIterator() {
+		return new DescendingIterator(tail);
+	}
+	
+	/** Returns an iterator over the nodes in descending key order, starting at the node of key or the one before it in O(log n)
+	 * @param from the key to start at
+	 * @param inclusive whether a node with key from is returned first
+	 * @return an iterator following the back links of the full list
+	 */
+	public Iterator<Node<K, V>> descendingIterator(K from, boolean inclusive) {
+		return new DescendingIterator(inclusive ? floorNode(from) : lowerNode(from));
+	}
+	
+	/** Returns a {@link Spliterator} over the nodes in ascending key order that splits at the median position in O(log n).
+	 * 	The list must not be modified while the spliterator is in use.
+	 * @see java.lang.Iterable#spliterator()
+	 */
+	@Override
+	public Spliterator<Node<K, V>> spliterator() {
+		return new SkipListSpliterator(head.next, 0, size);
+	}
+	
+	/** Returns a sequential stream over the nodes in ascending key order
+	 * @return a sequential stream of the nodes
+	 */
+	public Stream<Node<K, V>> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+	
+	/** Returns a parallel stream over the nodes in ascending key order, the list must not be modified while it is in use
+	 * @return a parallel stream of the nodes
+	 */
+	public Stream<Node<K, V>> parallelStream() {
+		return StreamSupport.stream(spliterator(), true);
+	}
+	
+	/** Returns the ordering of the keys
+	 * @return the comparator given at construction, or null if the keys are in their natural ordering
+	 */
+	public Comparator<? super K> comparator() {
+		return comparator;
+	}
+	
+	/** Starts collecting metrics of the operations and structure of the list, the operations are not instrumented until then
+	 * @return the metrics of the list, the same instance until metrics are disabled
+	 */
+	public SkipListMetrics enableMetrics() {
+		if (metrics == null)
+			metrics = new SkipListMetrics(this);
+		return metrics;
+	}
+	
+	/** Stops collecting metrics, leaving the operations uninstrumented */
+	public void disableMetrics() {
+		metrics = null;
+	}
+	
+	/** Returns the metrics of the list
+	 * @return the metrics being collected, or null if metrics are disabled
+	 */
+	public SkipListMetrics metrics() {
+		return metrics;
+	}
+	
+	/** Returns the time the current operation started at if metrics are collected, 0 otherwise */
+	private long startOperation() {
+		if (metrics == null)
+			return 0;
+		visited = -1;
+		return System.nanoTime();
+	}
+	
+	/** Records the current operation if metrics are collected */
+	private void endOperation(Operation operation, long start) {
+		if (metrics != null && start != 0)
+			metrics.record(operation, start, visited);
+	}
+	
+	/** Returns the number of express lists */
+	int skips() {
+		return skips;
+	}
+	
+	/** Returns the number of nodes in each list, index 0 being the full list */
+	long[] levelCounts() {
+		long[] counts = new long[skips + 1];
+		for (int level = 0; level <= skips; level++)
+			for (Node<K,V> node = head.next(level); node != null; node = node.next(level))
+				counts[level]++;
+		return counts;
+	}
+	
+	/** Returns the estimated bytes of the nodes and their arrays, excluding keys and values, with 12 byte object headers and 4 byte references */
+	long memoryEstimate() {
+		long bytes = 0;
+		for (Node<K,V> node = head; node != null; node = node.next) {
+			bytes += 40;
+			if (node.express != null)
+				bytes += 2 * ((16 + 4L * node.express.length + 7) & ~7);
+		}
+		// the scratch arrays of the searches and of the finger have the length of the arrays of the head
+		return bytes + (finger == null ? 2 : 4) * ((16 + 4L * path.length + 7) & ~7);
+	}
+	
+	/** Returns the number of structural modifications, which the iterators of views compare to fail fast */
+	int modCount() {
+		return modCount;
+	}
+	
+	/** Compares two keys by the ordering of the list */
+	@SuppressWarnings("unchecked")
+	int compare(K a, K b) {
+		return comparator == null ? ((Comparable<? super K>) a).compareTo(b) : comparator.compare(a, b);
+	}
+	
+	/** Expands the arrays of the head to hold (number of lists * {@link #ARRAY_RESIZE_MULTIPLICATOR multiplicator}) lists, at most {@link #levelCap} */
 	private void expandArrays() {
-		Node<K,V>[] newHeads = Arrays.copyOf(heads, heads.length*ARRAY_RESIZE_MULTIPLICATOR);
-		Node<K,V>[] newTails = Arrays.copyOf(tails, tails.length*ARRAY_RESIZE_MULTIPLICATOR);
-		heads = newHeads;
-		tails = newTails;
+		int expressLists = Math.min(head.height() * ARRAY_RESIZE_MULTIPLICATOR, levelCap) - 1;
+		head.express = Arrays.copyOf(head.express, expressLists);
+		head.widths = Arrays.copyOf(head.widths, expressLists);
+		path = Arrays.copyOf(path, head.height());
+		positions = Arrays.copyOf(positions, head.height());
+		if (finger != null) {
+			finger = Arrays.copyOf(finger, head.height());
+			fingerPositions = Arrays.copyOf(fingerPositions, head.height());
+		}
+		if (metrics != null)
+			metrics.recordExpansion();
 	}
 	
 	/** removes highway lists when they are empty */
 	private void cleanEmptyLists() {
-		for (int i = skips; i > 0; i--) {
-			if (heads[i].next == tails[i]) {
-				heads[i] = null;
-				tails[i] = null;
-				skips--;
-			}
+		for (int i = skips; i > 0 && head.next(i) == null; i--) {
+			skips--;
+			if (metrics != null)
+				metrics.recordRemovedList();
 		}
 	}
 	
 	
-	/** Adds a key, value pair to the skiplist
+	/** Adds a key, value pair to the skiplist, the value of an existing key is replaced in its node
+	 * 	A new key that a full list would evict at once is not added, see {@link #setCapacity(int, Eviction) setCapacity}.
 	 * @param key the key to identify the value
 	 * @param value the value to store
-	 * @return the node with the supplied key if it exists, null otherwise.
+	 * @return the node with the supplied key if it exists, holding the new value, null otherwise.
 	 */
 	public Node<K, V> add(K key, V value) {
-		Node<K,V> toReturn = null;
+		long start = startOperation();
+		Node<K,V> existing = findOrInsert(key, value);
+		if (existing != null)
+			existing.value = value;
+		endOperation(existing == null ? Operation.INSERT : Operation.UPDATE, start);
+		return existing;
+	}
+	
+	/** Associates value with key, replacing the value of an existing key in its node
+	 * 	A new key that a full list would evict at once is not added, see {@link #setCapacity(int, Eviction) setCapacity}.
+	 * @param key the key to identify the value
+	 * @param value the value to store
+	 * @return the previous value of the key, or null if the key did not exist
+	 */
+	public V put(K key, V value) {
+		long start = startOperation();
+		Node<K,V> existing = findOrInsert(key, value);
+		V previous = null;
+		if (existing != null) {
+			previous = existing.value;
+			existing.value = value;
+		}
+		endOperation(existing == null ? Operation.INSERT : Operation.UPDATE, start);
+		return previous;
+	}
+	
+	/** Associates value with key unless the key exists with a value that is not null
+	 * 	A new key that a full list would evict at once is not added, see {@link #setCapacity(int, Eviction) setCapacity}.
+	 * @param key the key to identify the value
+	 * @param value the value to store
+	 * @return the value of the key, null if the value was stored
+	 */
+	public V putIfAbsent(K key, V value) {
+		long start = startOperation();
+		Node<K,V> existing = findOrInsert(key, value);
+		V previous = null;
+		if (existing != null) {
+			previous = existing.value;
+			if (previous == null)
+				existing.value = value;
+		}
+		endOperation(existing == null ? Operation.INSERT : Operation.UPDATE, start);
+		return previous;
+	}
+	
+	/** Replaces the value of an existing key in its node
+	 * @param key the key of the value to replace
+	 * @param value the value to store
+	 * @return the previous value of the key, or null if the key did not exist
+	 */
+	public V replace(K key, V value) {
+		long start = startOperation();
+		Node<K,V> existing = find(key);
+		V previous = null;
+		if (existing != null) {
+			previous = existing.value;
+			existing.value = value;
+		}
+		endOperation(existing == null ? Operation.GET : Operation.UPDATE, start);
+		return previous;
+	}
+	
+	/** Replaces the value of an existing key in its node if it equals oldValue
+	 * @param key the key of the value to replace
+	 * @param oldValue the value the key has to have
+	 * @param newValue the value to store
+	 * @return true if the value was replaced
+	 */
+	public boolean replace(K key, V oldValue, V newValue) {
+		long start = startOperation();
+		Node<K,V> existing = find(key);
+		boolean replaced = existing != null && Objects.equals(existing.value, oldValue);
+		if (replaced)
+			existing.value = newValue;
+		endOperation(replaced ? Operation.UPDATE : Operation.GET, start);
+		return replaced;
+	}
+	
+	/** Computes the value of a key that does not exist or has a null value, in a single descent.
+	 * 	A new key that a full list would evict at once is not added, see {@link #setCapacity(int, Eviction) setCapacity}.
+	 * 	The function must not modify the list.
+	 * @param key the key to compute the value of
+	 * @param function computes the value from the key, no value is stored if it returns null
+	 * @return the current value of the key, which is the computed value if one was stored
+	 */
+	public V computeIfAbsent(K key, Function<? super K, ? extends V> function) {
+		long start = startOperation();
+		Node<K,V> existing = find(key);
+		V value = existing == null ? null : existing.value;
+		Operation operation = Operation.GET;
+		if (value == null) {
+			value = function.apply(key);
+			if (value != null) {
+				operation = existing == null ? Operation.INSERT : Operation.UPDATE;
+				if (existing == null)
+					insert(key, value);
+				else
+					existing.value = value;
+			}
+		}
+		endOperation(operation, start);
+		return value;
+	}
+	
+	/** Computes a new value for a key that exists with a value that is not null, in a single descent.
+	 * 	The function must not modify the list.
+	 * @param key the key to compute the value of
+	 * @param function computes the new value from the key and its value, the key is removed if it returns null
+	 * @return the new value of the key, null if there is none
+	 */
+	public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> function) {
+		long start = startOperation();
+		Node<K,V> existing = find(key);
+		V value = null;
+		Operation operation = Operation.GET;
+		if (existing != null && existing.value != null) {
+			value = function.apply(key, existing.value);
+			operation = update(existing, value);
+		}
+		endOperation(operation, start);
+		return value;
+	}
+	
+	/** Computes a new value for a key from its current value, null if it does not exist, in a single descent.
+	 * 	A new key that a full list would evict at once is not added, see {@link #setCapacity(int, Eviction) setCapacity}.
+	 * 	The function must not modify the list.
+	 * @param key the key to compute the value of
+	 * @param function computes the new value from the key and its value, the key is removed or not added if it returns null
+	 * @return the new value of the key, null if there is none
+	 */
+	public V compute(K key, BiFunction<? super K, ? super V, ? extends V> function) {
+		long start = startOperation();
+		Node<K,V> existing = find(key);
+		V value = function.apply(key, existing == null ? null : existing.value);
+		Operation operation = Operation.GET;
+		if (existing != null) {
+			operation = update(existing, value);
+		} else if (value != null) {
+			insert(key, value);
+			operation = Operation.INSERT;
+		}
+		endOperation(operation, start);
+		return value;
+	}
+	
+	/** Stores value for a key that does not exist or has a null value, otherwise combines it with the current value, in a single descent.
+	 * 	A new key that a full list would evict at once is not added, see {@link #setCapacity(int, Eviction) setCapacity}.
+	 * 	The function must not modify the list.
+	 * @param key the key to merge value into
+	 * @param value the value to store or combine with the current value
+	 * @param function combines the current value and value, the key is removed if it returns null
+	 * @return the new value of the key, null if there is none
+	 * @throws NullPointerException if value is null
+	 */
+	public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> function) {
+		if (value == null)
+			throw new NullPointerException();
+		long start = startOperation();
+		Node<K,V> existing = find(key);
+		Operation operation;
+		if (existing == null) {
+			insert(key, value);
+			operation = Operation.INSERT;
+		} else {
+			if (existing.value != null)
+				value = function.apply(existing.value, value);
+			operation = update(existing, value);
+		}
+		endOperation(operation, start);
+		return value;
+	}
+	
+	/** Stores value in existing, which was found by the last search, or removes it if value is null
+	 * @return the operation performed
+	 */
+	private Operation update(Node<K,V> existing, V value) {
+		if (value != null) {
+			existing.value = value;
+			return Operation.UPDATE;
+		}
+		if (deterministic) {
+			removeBalanced(existing.ref);
+		} else {
+			unlink();
+			if (finger != null)
+				keepFinger(skips);
+		}
+		return Operation.REMOVE;
+	}
+	
+	/** Sets the back link of node, which was linked after the node before it in the full list, and of the node after it */
+	private void linkPrevious(Node<K,V> node) {
+		Node<K,V> before = path[0];
+		node.prev = before == head ? null : before;
+		if (node.next == null)
+			tail = node;
+		else
+			node.next.prev = node;
+	}
+	
+	/** Finds the node with key in a single descent, leaving the nodes before it in {@link #path}
+	 * @param key the key to find
+	 * @return the node with key, null if there is none
+	 */
+	private Node<K,V> find(K key) {
+		findPath(key);
+		Node<K,V> next = path[0].next;
+		return next != null && compare(next.ref, key) == 0 ? next : null;
+	}
+	
+	/** Links a new node for key after the path found in a single descent, unless the key already exists.
+	 * 	Only the new node and its arrays are allocated.
+	 * @param key the key to identify the value
+	 * @param value the value of the new node
+	 * @return the node with the supplied key if it exists, which is left unchanged, null if a node was added
+	 */
+	private Node<K,V> findOrInsert(K key, V value) {
+		Node<K,V> existing = find(key);
+		if (existing == null)
+			insert(key, value);
+		return existing;
+	}
+	
+	/** Links a new node for key, which does not exist, after the nodes in {@link #path} found by {@link #findPath(Object)} for key,
+	 * 	unless the list is full and would evict the new node at once
+	 * @param key the key to identify the value
+	 * @param value the value of the new node
+	 */
+	private void insert(K key, V value) {
+		if (size >= capacity && (eviction == Eviction.FIRST ? compare(key, head.next.ref) < 0 : compare(key, tail.ref) > 0))
+			return;  // the new node would be evicted at once
+		// lists created for this node only hold the head before it
+		int searched = skips;
+		modCount++;
+		Node<K,V> toAdd = new Node<K,V>(key, value, deterministic ? 1 : randomHeight());
+		if (metrics != null)
+			metrics.recordHeight(toAdd.height());
+		while (skips < toAdd.height() - 1)
+			makeSkip();
 		
-		Node<K,V> before = findItemBefore(key);
-		if (before.next.ref != null && before.next.ref.equals(key))
-			toReturn = remove(key);
+		int position = positions[0] + 1;
+		for (int level = 0; level <= skips; level++) {
+			Node<K,V> before = level <= searched ? path[level] : head;
+			int beforePosition = level <= searched ? positions[level] : 0;
+			if (level < toAdd.height()) {
+				// the width of before still excludes the node being added
+				toAdd.link(level, before.next(level));
+				toAdd.setWidth(level, before.width(level) + 1 - (position - beforePosition));
+				before.link(level, toAdd);
+				before.setWidth(level, position - beforePosition);
+			} else {
+				before.setWidth(level, before.width(level) + 1);
+			}
+		}
+		linkPrevious(toAdd);
+		size++;
+		grown();
+		if (deterministic)
+			splitGaps(searched);
+		else if (finger != null)
+			keepFinger(searched);
+		if (size > capacity)
+			evict();
+	}
+	
+	/** Restores the gap bound of a deterministic list after a node was added to the full list.
+	 * 	The gap of a list is the run of its nodes that are in no further list, between two nodes of the next list or the head and the end.
+	 * 	Each gap that grew past 3 nodes is split by promoting its second node, which grows a gap of the next list.
+	 * 	{@link #path} has to hold the Nodes before the added node as found by the search, whose highest list was searched.
+	 * @param searched the number of express lists when the path was searched
+	 */
+	private void splitGaps(int searched) {
+		for (int level = 0; level <= skips; level++) {
+			// the node before the gap is the last node of the next list before the added node
+			Node<K,V> before = level < searched ? path[level + 1] : head;
+			Node<K,V> end = level < skips ? before.next(level + 1) : null;
+			Node<K,V> first = before.next(level);
+			if (gapSize(first, end, level) <= 3)
+				return;
+			
+			if (level == skips)
+				makeSkip();
+			Node<K,V> second = first.next(level);
+			promote(before, second, level + 1, before.width(level) + first.width(level));
+		}
+	}
+	
+	/** Removes the node with key from a deterministic list in a single descent from the highest list.
+	 * 	Every gap it descends into is first grown to at least 2 nodes, by moving the node between it and a neighbouring gap of the same gap
+	 * 	of the list above into the gap, and the first node of the neighbour into the list above if the neighbour can spare it, or otherwise
+	 * 	by merging the gaps. Removing a node from the full list then leaves no gap empty. A removed node in express lists is replaced there
+	 * 	by the node before it, the last node of the gap before it. {@link #path} is left holding the nodes before the removed key.
+	 * @param key the key of the node to remove
+	 * @return the removed node, null if there is none with key
+	 */
+	private Node<K,V> removeBalanced(K key) {
+		findPath(key);
+		Node<K,V> toRemove = path[0].next;
+		if (toRemove == null || compare(toRemove.ref, key) != 0)
+			return null;
+		// the lists change before the second search, which must not start from the finger, and after it
+		modCount++;
 		
-		Node<K,V> toAdd = new Node<K,V>(before.next, key, null, value);
-		before.next = toAdd;
+		// before is the last node before key in list level + 1, the gap descended into follows it, and above the one in list level + 2
+		Node<K,V> above = head;
+		Node<K,V> before = head;
+		while (before.next(skips) != null && compare(before.next(skips).ref, key) < 0)
+			before = before.next(skips);
+		for (int level = skips - 1; level >= 0; level--) {
+			Node<K,V> after = before.next(level + 1);
+			if (gapSize(before.next(level), after, level) < 2) {
+				if (after != null && after.height() == level + 2) {
+					// the gap after the next node of list level + 1 is in the same gap of that list
+					Node<K,V> neighbour = after.next(level);
+					int distance = before.width(level + 1) + after.width(level);
+					boolean borrow = gapSize(neighbour, after.next(level + 1), level) >= 2;
+					demote(before, after, level + 1);
+					if (borrow)
+						promote(before, neighbour, level + 1, distance);
+				} else {
+					// before is in the gap of list level + 1, the gap before it is in the same gap of that list
+					Node<K,V> previous = above;
+					while (previous.next(level + 1) != before)
+						previous = previous.next(level + 1);
+					Node<K,V> neighbour = previous.next(level);
+					int distance = previous.width(level);
+					while (neighbour.next(level) != before) {
+						distance += neighbour.width(level);
+						neighbour = neighbour.next(level);
+					}
+					boolean borrow = gapSize(previous.next(level), before, level) >= 2;
+					demote(previous, before, level + 1);
+					if (borrow) {
+						promote(previous, neighbour, level + 1, distance);
+						before = neighbour;
+					} else {
+						before = previous;
+					}
+				}
+			}
+			above = before;
+			while (before.next(level) != null && compare(before.next(level).ref, key) < 0)
+				before = before.next(level);
+		}
+		cleanEmptyLists();
 		
-		promote(toAdd, 0);
-		size++;
-		return toReturn;
+		findPath(key);
+		int height = toRemove.height();
+		if (height == 1)
+			return unlink();
+		// the node before is the last node of the gap before the removed node and takes its place in the express lists
+		Node<K,V> replacement = path[0];
+		replacement.resize(height);
+		replacement.next = toRemove.next;
+		if (replacement.next == null)
+			tail = replacement;
+		else
+			replacement.next.prev = replacement;
+		for (int level = 1; level <= skips; level++) {
+			path[level].setWidth(level, path[level].width(level) - 1);
+			if (level < height) {
+				path[level].link(level, replacement);
+				replacement.link(level, toRemove.next(level));
+				replacement.setWidth(level, toRemove.width(level));
+				path[level] = replacement;
+			}
+		}
+		size--;
+		modCount++;
+		return toRemove;
+	}
+	
+	/** Returns the number of nodes in list level from first up to end that are in no further list */
+	private int gapSize(Node<K,V> first, Node<K,V> end, int level) {
+		int count = 0;
+		for (Node<K,V> current = first; current != end; current = current.next(level))
+			count++;
+		return count;
+	}
+	
+	/** Puts node, which is in list level - 1 and distance nodes after before, in list level after before */
+	private void promote(Node<K,V> before, Node<K,V> node, int level, int distance) {
+		node.resize(level + 1);
+		node.link(level, before.next(level));
+		node.setWidth(level, before.width(level) - distance);
+		before.link(level, node);
+		before.setWidth(level, distance);
+	}
+	
+	/** Takes node, which follows before in list level and is in no further list, out of list level */
+	private void demote(Node<K,V> before, Node<K,V> node, int level) {
+		before.setWidth(level, before.width(level) + node.width(level));
+		before.link(level, node.next(level));
+		node.resize(level);
+	}
+	
+	/** Finds the Node before the specified key in every list during a single descent from the highest list, comparing the keys directly.
+	 * 	Index i of {@link #path} is set to the Node before the natural position of the key in list i,
+	 * 	and index i of {@link #positions} to its position in the full list, where the head is at position 0.
+	 * @param key the key to find the Nodes for
+	 */
+	private void findPath(K key) {
+		if (finger != null) {
+			fingerSearch(key);
+			System.arraycopy(finger, 0, path, 0, skips + 1);
+			System.arraycopy(fingerPositions, 0, positions, 0, skips + 1);
+			return;
+		}
+		if (metrics != null) {
+			countingFindPath(key);
+			return;
+		}
+		int position = 0;
+		Node<K,V> current = head;
+		for (int level = skips; level >= 0; level--) {
+			for (Node<K,V> next = current.next(level); next != null && compare(next.ref, key) < 0; next = current.next(level)) {
+				position += current.width(level);
+				current = next;
+			}
+			path[level] = current;
+			positions[level] = position;
+		}
+	}
+	
+	/** {@link #findPath(Object)} counting the visited nodes in {@link #visited}, used while metrics are collected */
+	private void countingFindPath(K key) {
+		visited = 0;
+		int position = 0;
+		Node<K,V> current = head;
+		for (int level = skips; level >= 0; level--) {
+			for (Node<K,V> next = current.next(level); next != null && compare(next.ref, key) < 0; next = current.next(level)) {
+				position += current.width(level);
+				current = next;
+				visited++;
+			}
+			path[level] = current;
+			positions[level] = position;
+		}
+	}
+	
+	/** Finds the Node before key in every list like {@link #findPath(Object)}, starting from the finger and storing the path found as the finger.
+	 * 	The search starts from the lowest list whose gap around the node of the finger holds key, the lists above it keep their nodes.
+	 * 	Every list above a gap that holds key has a gap that holds it too, so a key d nodes from the last key is found in O(log d).
+	 * 	A stale finger or a key before the node of the finger in the highest list starts the search from the head.
+	 * 	Counts the visited nodes and whether the finger was used while metrics are collected.
+	 * @param key the key to find the Nodes for
+	 */
+	private void fingerSearch(K key) {
+		int level = skips;
+		boolean fromFinger = false;
+		if (fingerModCount == modCount) {
+			// skips only changes with modCount, so a valid finger holds a node of every list
+			for (level = 0; level < skips; level++) {
+				Node<K,V> before = finger[level];
+				Node<K,V> next = before.next(level);
+				if ((before == head || compare(before.ref, key) < 0) && (next == null || compare(next.ref, key) >= 0))
+					break;
+			}
+			fromFinger = level < skips || finger[skips] == head || compare(finger[skips].ref, key) < 0;
+		}
+		if (metrics != null)
+			metrics.recordFingerSearch(fromFinger && level < skips);
+		
+		Node<K,V> current = head;
+		int position = 0;
+		if (fromFinger) {
+			current = finger[level];
+			position = fingerPositions[level];
+		} else {
+			level = skips;
+		}
+		int moves = 0;
+		for (; level >= 0; level--) {
+			for (Node<K,V> next = current.next(level); next != null && compare(next.ref, key) < 0; next = current.next(level)) {
+				position += current.width(level);
+				current = next;
+				moves++;
+			}
+			finger[level] = current;
+			fingerPositions[level] = position;
+		}
+		visited = moves;
+		fingerModCount = modCount;
+	}
+	
+	/** Stores the path of a node that was linked or unlinked as the finger, its nodes keep their lists and positions.
+	 * 	The head is the finger of the lists created for the node.
+	 * @param searched the number of express lists when the path was searched
+	 */
+	private void keepFinger(int searched) {
+		int levels = Math.min(searched, skips) + 1;
+		System.arraycopy(path, 0, finger, 0, levels);
+		System.arraycopy(positions, 0, fingerPositions, 0, levels);
+		for (int level = levels; level <= skips; level++) {
+			finger[level] = head;
+			fingerPositions[level] = 0;
+		}
+		fingerModCount = modCount;
+	}
+	
+	/** Starts or stops finger search. While enabled, every search by key records its path and the next search starts from it
+	 * 	instead of the highest list, so a key d nodes from the key of the last search is found in O(log d) instead of O(log n).
+	 * 	Clustered and nearly sorted keys are found with fewer comparisons, random keys pay for copying the path.
+	 * 	The finger is kept across add and remove by key, other structural modifications start the next search from the head.
+	 * 	The hits of the finger are counted by {@link SkipListMetrics#fingerHits()}.
+	 * @param enabled whether searches start from the path of the last search
+	 */
+	@SuppressWarnings("unchecked")
+	public void setFingerSearch(boolean enabled) {
+		if (!enabled) {
+			finger = null;
+			fingerPositions = null;
+		} else if (finger == null) {
+			finger = (Node<K,V>[]) new Node<?,?>[head.height()];
+			fingerPositions = new int[head.height()];
+			fingerModCount = modCount - 1;
+		}
+	}
+	
+	/** Returns whether finger search is enabled
+	 * @return true if searches start from the path of the last search
+	 */
+	public boolean isFingerSearch() {
+		return finger != null;
 	}
 	
 	/** Finds the Node before the specified key
@@ -144,82 +1307,130 @@ public class SkipList<K extends Comparable<K>, V> implements Iterable<SkipList.N
 	 * @return the Node before the natural position of the key
 	 */
 	private Node<K,V> findItemBefore(K key) {
-		if (size == 0)
-			return heads[0];
-		Node<K,V> toFindBefore = new Node<K,V>(null, key, null, null);
-		Node<K,V> toReturn = null;
-		
-		int level = skips;
-		boolean changedLevel = false;
-		for (Node<K,V> current = heads[level]; current != tails[level];) {
-			Node<K,V> next = current.next;
-			if (next.compareTo(toFindBefore) >= 0) {
-				if (level == 0)
-					return current;
-				current = current.under;
-				level--;
-				changedLevel = true;
-			} 
-			if(!changedLevel)
-				current = current.next;
-			else
-				changedLevel = false;
+		if (finger != null) {
+			fingerSearch(key);
+			return finger[0];
 		}
-			
-		return toReturn;
+		if (metrics != null)
+			return countingFindItemBefore(key);
+		Node<K,V> current = head;
+		for (int level = skips; level >= 0; level--) {
+			for (Node<K,V> next = current.next(level); next != null && compare(next.ref, key) < 0; next = current.next(level))
+				current = next;
+		}
+		
+		return current;
 	}
 	
-	/** Determines whether the node should be elevated to a higher list and then does so.
-	 * @param toPromote the node in question
-	 * @param level the current level of the node
-	 * @return true if the node was elevated, false if not
-	 */
-	private boolean promote(Node<K,V> toPromote, int level) {
-		if (!shouldPromote(probability))
-			return false;
-		
-		if (level == skips) {
-			if (skips == heads.length-1)
-				expandArrays();
-			makeSkip();
+	/** {@link #findItemBefore(Object)} counting the visited nodes in {@link #visited}, used while metrics are collected */
+	private Node<K,V> countingFindItemBefore(K key) {
+		visited = 0;
+		Node<K,V> current = head;
+		for (int level = skips; level >= 0; level--) {
+			for (Node<K,V> next = current.next(level); next != null && compare(next.ref, key) < 0; next = current.next(level)) {
+				current = next;
+				visited++;
+			}
 		}
-		Node<K,V> before = findBeforeInSpecificLevel(toPromote, level + 1);
-		Node<K,V> promoteClone = toPromote.clone();
-		promoteClone.next = before.next;
-		before.next = promoteClone;
-		promoteClone.under = toPromote; 
-		promote(promoteClone, level + 1);
-		
-		return true;
+		return current;
+	}
+	
+	/** Returns the Node with the greatest key less than key, or null if there is none */
+	Node<K,V> lowerNode(K key) {
+		long start = startOperation();
+		Node<K,V> before = findItemBefore(key);
+		endOperation(Operation.NAVIGATE, start);
+		return before == head ? null : before;
+	}
+	
+	/** Returns the Node with the greatest key less than or equal to key, or null if there is none */
+	Node<K,V> floorNode(K key) {
+		long start = startOperation();
+		Node<K,V> before = findItemBefore(key);
+		endOperation(Operation.NAVIGATE, start);
+		if (before.next != null && compare(before.next.ref, key) == 0)
+			return before.next;
+		return before == head ? null : before;
+	}
+	
+	/** Returns the Node with the least key greater than or equal to key, or null if there is none */
+	Node<K,V> ceilingNode(K key) {
+		long start = startOperation();
+		Node<K,V> before = findItemBefore(key);
+		endOperation(Operation.NAVIGATE, start);
+		return before.next;
+	}
+	
+	/** Returns the Node with the least key greater than key, or null if there is none */
+	Node<K,V> higherNode(K key) {
+		long start = startOperation();
+		Node<K,V> next = findItemBefore(key).next;
+		endOperation(Operation.NAVIGATE, start);
+		if (next != null && compare(next.ref, key) == 0)
+			next = next.next;
+		return next;
+	}
+	
+	/** Returns the Node with the least key, or null if the list is empty */
+	Node<K,V> firstNode() {
+		return head.next;
 	}
 	
-	/** 
-	 * @param toFind
-	 * @param level
-	 * @return
+	/** Returns the Node with the greatest key, or null if the list is empty */
+	Node<K,V> lastNode() {
+		return tail;
+	}
+	
+	/** Determines how many lists a new node is in, elevating it to each further list with probability 1/{@link #probability}.
+	 * 	The number of promotions is geometrically distributed and drawn at once from a single random number of the thread.
+	 * @return the number of lists, at least 1 for the full list and at most {@link #levelCap}
 	 */
-	private Node<K,V> findBeforeInSpecificLevel(Node<K,V> toFind, int level) {
-		Node<K,V> current = heads[level];
-		for (Node<K,V> next = current.next; current != tails[level]; next = next.next) {
-			if (next.compareTo(toFind) >= 0)
-				break;	
-			current = next;
+	private int randomHeight() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int promotions;
+		if (Integer.bitCount(probability) == 1) {
+			// every bit is a fair coin, so each run of log2(probability) zero bits is one promotion
+			promotions = Long.numberOfTrailingZeros(random.nextLong()) / Integer.numberOfTrailingZeros(probability);
+		} else {
+			// inverse of the geometric distribution, 1 - nextDouble() lies in (0, 1]
+			promotions = (int) (Math.log(1 - random.nextDouble()) / -Math.log(probability));
 		}
-			
-		return current;
+		return Math.min(1 + promotions, levelCap);
 	}
 	
+	/** Creates a new empty list above the current highest list. */
 	private void makeSkip() {
-		Node<K,V> tail = new Node<K,V>(null, null, tails[skips], null);
-		Node<K,V> head = new Node<K,V>(tail, null, heads[skips], null);
-		
+		if (skips == head.height() - 1)
+			expandArrays();
 		skips++;
-		heads[skips] = head;
-		tails[skips] = tail;
+		head.link(skips, null);
+		head.setWidth(skips, size + 1);
 	}
-
-	private boolean shouldPromote(int prob) {
-		return new Random().nextInt(prob) == 0;
+	
+	/** Removes the Node after path[0] from every list it is in.
+	 * 	{@link #path} has to hold the Nodes before the Node to remove in each list.
+	 * @return the removed Node
+	 */
+	private Node<K,V> unlink() {
+		Node<K,V> toRemove = path[0].next;
+		if (toRemove.next == null)
+			tail = toRemove.prev;
+		else
+			toRemove.next.prev = toRemove.prev;
+		for (int level = 0; level <= skips; level++) {
+			Node<K,V> before = path[level];
+			if (before.next(level) == toRemove) {
+				before.setWidth(level, before.width(level) + toRemove.width(level) - 1);
+				before.link(level, toRemove.next(level));
+			} else {
+				before.setWidth(level, before.width(level) - 1);
+			}
+		}
+		size--;
+		modCount++;
+		cleanEmptyLists();
+		
+		return toRemove;
 	}
 
 	/** Removes the node with the specified value
@@ -228,25 +1439,240 @@ public class SkipList<K extends Comparable<K>, V> implements Iterable<SkipList.N
 	 * @throws IndexOutOfBoundsException if the lists size is 0
 	 * @throws ClassCastException if the key cannot be cast to K
 	 */
+	@SuppressWarnings("unchecked")
 	public Node<K,V> remove(Object key) throws ClassCastException{
 		if (size == 0)
 			throw new IndexOutOfBoundsException();
-		Node<K,V> nodeToReturn = null;
 		
-		Node<K,V> tmp = new Node<K,V>(null , (K) key, null, null);
-		for (int i = skips; i>=0; i--) {
-			Node<K,V> before = findBeforeInSpecificLevel(tmp, i);
-			if (before.next.ref != null && before.next.ref.equals(tmp.ref)) {
-				if(i==0)
-					nodeToReturn = before.next;
-				before.next = before.next.next;
+		long start = startOperation();
+		Node<K,V> removed;
+		if (deterministic) {
+			removed = removeBalanced((K) key);
+		} else {
+			findPath((K) key);
+			Node<K,V> next = path[0].next;
+			removed = next == null || compare(next.ref, (K) key) != 0 ? null : unlink();
+			if (removed != null && finger != null)
+				keepFinger(skips);
+		}
+		endOperation(Operation.REMOVE, start);
+		return removed;
+	}
+	
+	/** Removes the node at index
+	 * @param index the position of the node to remove
+	 * @return the removed node
+	 * @throws IndexOutOfBoundsException if index is negative or not less than the size
+	 */
+	public Node<K,V> removeAt(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException();
+		}
+		
+		long start = startOperation();
+		int position = 0;
+		Node<K,V> current = head;
+		for (int level = skips; level >= 0; level--) {
+			while (position + current.width(level) <= index) {
+				position += current.width(level);
+				current = current.next(level);
 			}
+			path[level] = current;
 		}
-		if (nodeToReturn != null)
-			size--;
-		cleanEmptyLists();
 		
-		return nodeToReturn;
+		Node<K,V> removed = deterministic ? removeBalanced(path[0].next.ref) : unlink();
+		endOperation(Operation.POSITIONAL, start);
+		return removed;
+	}
+	
+	/** Returns the node with the least key in O(1)
+	 * @return the first node, null if the list is empty
+	 */
+	public Node<K,V> peekFirst() {
+		return head.next;
+	}
+	
+	/** Returns the node with the greatest key in O(1)
+	 * @return the last node, null if the list is empty
+	 */
+	public Node<K,V> peekLast() {
+		return tail;
+	}
+	
+	/** Removes the node with the least key without a search, unlinking it after the head in every list it is in.
+	 * 	A {@link DeterministicSkipList} removes it in O(log n) to keep its gaps bounded.
+	 * @return the removed node, null if the list is empty
+	 */
+	public Node<K,V> pollFirst() {
+		if (size == 0)
+			return null;
+		long start = startOperation();
+		Node<K,V> removed = unlinkFirst();
+		endOperation(Operation.REMOVE, start);
+		return removed;
+	}
+	
+	/** Removes the node with the greatest key in O(log n), the nodes before it in the express lists are found by a descent
+	 * @return the removed node, null if the list is empty
+	 */
+	public Node<K,V> pollLast() {
+		if (size == 0)
+			return null;
+		long start = startOperation();
+		Node<K,V> removed = unlinkLast();
+		endOperation(Operation.REMOVE, start);
+		return removed;
+	}
+	
+	/** Removes the first node of a list that is not empty */
+	private Node<K,V> unlinkFirst() {
+		if (deterministic)
+			return removeBalanced(head.next.ref);
+		Arrays.fill(path, 0, skips + 1, head);
+		return unlink();
+	}
+	
+	/** Removes the last node of a list that is not empty */
+	private Node<K,V> unlinkLast() {
+		if (deterministic)
+			return removeBalanced(tail.ref);
+		findPath(tail.ref);
+		return unlink();
+	}
+	
+	/** Removes the first or last node, as chosen by the eviction of the capacity */
+	private void evict() {
+		if (eviction == Eviction.FIRST)
+			unlinkFirst();
+		else
+			unlinkLast();
+	}
+	
+	/** Bounds the size of the list, an add of a new key to a full list removes the first or last node.
+	 * 	A new key that would be that node itself, the least key with {@link Eviction#FIRST} or the greatest with {@link Eviction#LAST},
+	 * 	is not added and leaves the list unchanged, though the write methods return as for an added key.
+	 * 	Nodes over a lower capacity are removed at once. Lists built by {@link #fromSorted(Iterator, Comparator, Promotion) fromSorted},
+	 * 	{@link #union(SkipList, SkipList, BinaryOperator) union} and {@link #concat(SkipList) concat} are not bounded.
+	 * @param capacity the maximum number of nodes, {@link #UNBOUNDED} for no limit
+	 * @param eviction which node is removed when the list is full
+	 * @throws IllegalArgumentException if capacity is less than 1
+	 */
+	public void setCapacity(int capacity, Eviction eviction) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("capacity must be at least 1: " + capacity);
+		this.capacity = capacity;
+		this.eviction = Objects.requireNonNull(eviction);
+		while (size > capacity)
+			evict();
+	}
+	
+	/** Returns the maximum size of the list
+	 * @return the capacity, {@link #UNBOUNDED} if there is none
+	 */
+	public int capacity() {
+		return capacity;
+	}
+	
+	/** Removes every node with a key from from inclusive to to exclusive
+	 * @param from the least key to remove
+	 * @param to the key after the greatest key to remove
+	 * @return the number of removed nodes
+	 * @throws IllegalArgumentException if from is greater than to
+	 */
+	public int removeRange(K from, K to) {
+		return removeRange(from, true, to, false);
+	}
+	
+	/** Removes every node with a key between from and to. The range is cut out of every list in two descents in O(log n),
+	 * 	independent of the number of removed nodes, which are left to the garbage collector. A {@link DeterministicSkipList}
+	 * 	removes the nodes one at a time to keep its gaps bounded, in O(log n) each.
+	 * @param from the low end of the range, null to remove from the first node
+	 * @param fromInclusive whether a node with key from is removed
+	 * @param to the high end of the range, null to remove up to the last node
+	 * @param toInclusive whether a node with key to is removed
+	 * @return the number of removed nodes
+	 * @throws IllegalArgumentException if from is greater than to
+	 */
+	@SuppressWarnings("unchecked")
+	public int removeRange(K from, boolean fromInclusive, K to, boolean toInclusive) {
+		if (from != null && to != null && compare(from, to) > 0)
+			throw new IllegalArgumentException("from is greater than to");
+		long start = startOperation();
+		findBound(to, toInclusive);
+		int end = positions[0];
+		if (from == null) {
+			Arrays.fill(path, 0, skips + 1, head);
+			Arrays.fill(positions, 0, skips + 1, 0);
+		} else {
+			findBound(from, !fromInclusive);
+		}
+		int count = Math.max(end - positions[0], 0);
+		if (deterministic) {
+			for (int i = 0; i < count; i++)
+				removeBalanced(path[0].next.ref);
+		} else if (count > 0) {
+			Node<K,V>[] before = Arrays.copyOf(path, skips + 1);
+			int[] beforePositions = Arrays.copyOf(positions, skips + 1);
+			findBound(to, toInclusive);
+			for (int level = 0; level <= skips; level++) {
+				Node<K,V> first = before[level];
+				Node<K,V> last = path[level];
+				if (first != last) {
+					// the nodes of the list after first up to last are in the range
+					first.setWidth(level, positions[level] + last.width(level) - count - beforePositions[level]);
+					first.link(level, last.next(level));
+				} else {
+					first.setWidth(level, first.width(level) - count);
+				}
+			}
+			Node<K,V> after = before[0].next;
+			Node<K,V> previous = before[0] == head ? null : before[0];
+			if (after == null)
+				tail = previous;
+			else
+				after.prev = previous;
+			size -= count;
+			modCount++;
+			cleanEmptyLists();
+		}
+		endOperation(Operation.REMOVE, start);
+		return count;
+	}
+	
+	/** Fills {@link #path} and {@link #positions} with the last node of every list with a key less than key, or less than or equal to key
+	 * @param key the key to find the nodes up to, null for the last node of every list
+	 * @param orEqual whether a node with key is included
+	 */
+	private void findBound(K key, boolean orEqual) {
+		if (key == null) {
+			int position = 0;
+			Node<K,V> current = head;
+			for (int level = skips; level >= 0; level--) {
+				while (current.next(level) != null) {
+					position += current.width(level);
+					current = current.next(level);
+				}
+				path[level] = current;
+				positions[level] = position;
+			}
+			return;
+		}
+		findPath(key);
+		Node<K,V> next = path[0].next;
+		if (orEqual && next != null && compare(next.ref, key) == 0) {
+			int position = positions[0] + 1;
+			for (int level = 0; level < next.height(); level++) {
+				path[level] = next;
+				positions[level] = position;
+			}
+		}
+	}
+	
+	/** Returns a cursor positioned at the first node
+	 * @return a new cursor
+	 */
+	public Cursor cursor() {
+		return new Cursor();
 	}
 	
 	/** Returns the value at index
@@ -257,22 +1683,65 @@ public class SkipList<K extends Comparable<K>, V> implements Iterable<SkipList.N
 		if (index < 0 || index >= size) {
 			throw new IndexOutOfBoundsException();
 		}
-		
-		Node<K,V> current = heads[0];
-		for (int i = 0; i <= index; i++) {
-			current = current.next;
+		long start = startOperation();
+		V value = nodeAt(index).value;
+		endOperation(Operation.POSITIONAL, start);
+		return value;
+	}
+	
+	/** Returns the Node at index by descending through the widths of the lists, index must be valid */
+	private Node<K,V> nodeAt(int index) {
+		int position = 0;
+		Node<K,V> current = head;
+		for (int level = skips; level >= 0; level--) {
+			while (position + current.width(level) <= index + 1) {
+				position += current.width(level);
+				current = current.next(level);
+			}
 		}
-		return current.value;
+		return current;
+	}
+	
+	/** Returns the number of keys in the SkipList that are less than the specified key
+	 * @param key the key to find the rank of
+	 * @return the number of keys less than key, which is the index of key if it exists
+	 * @throws ClassCastException if the key cannot be cast to K
+	 */
+	@SuppressWarnings("unchecked")
+	public int rank(Object key) throws ClassCastException {
+		long start = startOperation();
+		findPath((K) key);
+		endOperation(Operation.RANK, start);
+		return positions[0];
 	}
 	
-	/** Returns the value of the specified key or null if no value that {@link Object#equals(Object) equals(key)}
+	/** Returns the index of the specified key
+	 * @param key the key to find the index of
+	 * @return the index of the key or -1 if no key compares as equal to key
+	 * @throws ClassCastException if the key cannot be cast to K
+	 */
+	@SuppressWarnings("unchecked")
+	public int indexOf(Object key) throws ClassCastException {
+		long start = startOperation();
+		findPath((K) key);
+		Node<K,V> next = path[0].next;
+		int index = next != null && compare(next.ref, (K) key) == 0 ? positions[0] : -1;
+		endOperation(Operation.RANK, start);
+		return index;
+	}
+
+	/** Returns the value of the specified key or null if no key compares as equal to key
 	 * @param key the key to find value of
 	 * @return the value of the key or null if no key is found
 	 * @throws ClassCastException if the key cannot be cast to K
 	 */
+	@SuppressWarnings("unchecked")
 	public V get(Object key) throws ClassCastException {
+		long start = startOperation();
 		Node<K,V> node = findItemBefore((K) key).next;
-		return node.ref.equals(key) ? node.value : null; 
+		V value = node != null && compare(node.ref, (K) key) == 0 ? node.value : null;
+		endOperation(Operation.GET, start);
+		return value;
 	}
 
 	/**	Checks if the SkipList contains the given key
@@ -280,18 +1749,28 @@ public class SkipList<K extends Comparable<K>, V> implements Iterable<SkipList.N
 	 * @return true if the key exists, false if it doesnt
 	 */
 	public boolean contains(K key){
-		K ref = findItemBefore(key).next.ref;
-		return ref != null ? ref.equals(key) : false;
+		long start = startOperation();
+		Node<K,V> node = findItemBefore(key).next;
+		boolean found = node != null && compare(node.ref, key) == 0;
+		endOperation(Operation.CONTAINS, start);
+		return found;
 	}
 
-	/** Clears the SkipList of all elements and sets size, skips to 0  */
+	/** Clears the SkipList of all elements and sets size, skips to 0, lowering an {@link #ADAPTIVE} maximum level to that of an empty list */
+	@SuppressWarnings("unchecked")
 	public void clear() {
 		size = 0;
 		skips = 0;
-		heads = new Node[4];
-		tails = new Node[4];
-		tails[0] = new Node<>(null, null, null, null);
-		heads[0] = new Node<>(tails[0], null, null, null);
+		tail = null;
+		modCount++;
+		adaptLevelCap(0);
+		head = new Node<>(null, null, 4);
+		path = (Node<K,V>[]) new Node<?,?>[head.height()];
+		positions = new int[head.height()];
+		if (finger != null) {
+			finger = (Node<K,V>[]) new Node<?,?>[head.height()];
+			fingerPositions = new int[head.height()];
+		}
 	}
 
 	/** Returns the number of key-value mappings in this SkipList
@@ -303,38 +1782,56 @@ public class SkipList<K extends Comparable<K>, V> implements Iterable<SkipList.N
 	
 	@Override
 	public String toString() {
-		String output = "{";
-		
-		Iterator<Node<K,V>> iter = iterator();
-		if (iter.hasNext()) {
-			Node<K,V> node = iter.next();
-			output += node.ref + "=" + node.value;
+		try {
+			return appendTo(new StringBuilder()).toString();
+		} catch (IOException e) {
+			throw new AssertionError(e);  // a StringBuilder does not throw
 		}
-		while (iter.hasNext()) {
-			Node<K,V> node = iter.next();
-			output += ", "+ node.ref + "=" + node.value;
+	}
+	
+	/** Appends the entries in ascending key order as {key=value, ...}, in time linear in the length of the output
+	 * @param out the destination, a Writer or a StringBuilder
+	 * @return out
+	 * @throws IOException if out cannot be written
+	 */
+	public <A extends Appendable> A appendTo(A out) throws IOException {
+		out.append('{');
+		for (Node<K,V> node = head.next; node != null; node = node.next) {
+			out.append(String.valueOf(node.ref)).append('=').append(String.valueOf(node.value));
+			if (node.next != null)
+				out.append(", ");
 		}
-		
-		return output + "}";
+		out.append('}');
+		return out;
 	}
 
 	/** Returns a string formatted so that the lists are presented in descending order, i.e. starting with the full list.
 	 * @return A string formatted so that the lists are presented in descending order, i.e. starting with the full list.
 	 */
 	public String toStringWithExpress() {
-		String output = "";
-		
+		try {
+			return appendExpressTo(new StringBuilder()).toString();
+		} catch (IOException e) {
+			throw new AssertionError(e);
+		}
+	}
+	
+	/** Appends the keys of every list as [key, ...] on a line each, starting with the full list, in time linear in the length of the output
+	 * @param out the destination, a Writer or a StringBuilder
+	 * @return out
+	 * @throws IOException if out cannot be written
+	 */
+	public <A extends Appendable> A appendExpressTo(A out) throws IOException {
 		for (int i = 0; i <= skips; i++) {
-			output+="[";
-			for (Node<K,V> n = heads[i].next; n != tails[i]; n = n.next) {
-				output+= n.ref;
-				if (n.next != tails[i])
-					output+=", ";
+			out.append('[');
+			for (Node<K,V> n = head.next(i); n != null; n = n.next(i)) {
+				out.append(String.valueOf(n.ref));
+				if (n.next(i) != null)
+					out.append(", ");
 			}
-			output+="]\n";
+			out.append("]\n");
 		}
-		
-		return output;
+		return out;
 	}
 
 	/** Returns whether size == 0
@@ -344,19 +1841,188 @@ public class SkipList<K extends Comparable<K>, V> implements Iterable<SkipList.N
 		return size == 0;
 	}
 
-	/** Iterator for {@link SkipList}. Supports some of the ListIterator methods.
+	/** Spliterator over the nodes at the positions from index up to fence. Splitting finds the node at the middle position
+	 * 	by descending through the widths of the lists, so both halves hold the same number of nodes and nothing is copied.
+	 */
+	private class SkipListSpliterator implements Spliterator<Node<K,V>> {
+		/** the node at index */
+		private Node<K,V> current;
+		private int index;
+		private final int fence;
+		
+		private SkipListSpliterator(Node<K,V> current, int index, int fence) {
+			this.current = current;
+			this.index = index;
+			this.fence = fence;
+		}
+		
+		@Override
+		public boolean tryAdvance(Consumer<? super Node<K,V>> action) {
+			if (index >= fence)
+				return false;
+			Node<K,V> node = current;
+			current = current.next;
+			index++;
+			action.accept(node);
+			return true;
+		}
+		
+		@Override
+		public void forEachRemaining(Consumer<? super Node<K,V>> action) {
+			for (; index < fence; index++) {
+				action.accept(current);
+				current = current.next;
+			}
+		}
+		
+		@Override
+		public Spliterator<Node<K,V>> trySplit() {
+			if (fence - index < 2)
+				return null;
+			int middle = (index + fence) >>> 1;
+			SkipListSpliterator prefix = new SkipListSpliterator(current, index, middle);
+			current = nodeAt(middle);
+			index = middle;
+			return prefix;
+		}
+		
+		@Override
+		public long estimateSize() {
+			return fence - index;
+		}
+		
+		@Override
+		public int characteristics() {
+			return Spliterator.SORTED | Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL
+					| Spliterator.SIZED | Spliterator.SUBSIZED;
+		}
+		
+		/** Nodes are sorted by the ordering of their keys in the list, never null since nodes are not Comparable */
+		@Override
+		public Comparator<? super Node<K,V>> getComparator() {
+			return (a, b) -> compare(a.ref, b.ref);
+		}
+	}
+	
+	/** Position in the full list that keeps the last node before it in every list, so the node at the position is removed
+	 * 	by relinking those nodes, without a search and in time proportional to the number of lists. After a removal the cursor
+	 * 	is at the next node. A {@link DeterministicSkipList} searches again to keep its gaps bounded.
+	 * 	Modifying the list other than through the cursor invalidates it until the next {@link #seek(Object) seek}.
+	 */
+	public class Cursor {
+		/** before[i] is the last node of list i before the position of the cursor */
+		private Node<K,V>[] before;
+		private int expectedModCount;
+		
+		private Cursor() {
+			first();
+		}
+		
+		/** Moves the cursor to the first node
+		 * @return true if the list is not empty
+		 */
+		@SuppressWarnings("unchecked")
+		public boolean first() {
+			before = (Node<K,V>[]) new Node<?,?>[head.height()];
+			Arrays.fill(before, head);
+			expectedModCount = modCount;
+			return head.next != null;
+		}
+		
+		/** Moves the cursor to the node with the least key greater than or equal to key in O(log n)
+		 * @param key the key to seek
+		 * @return true if there is such a node
+		 */
+		public boolean seek(K key) {
+			long start = startOperation();
+			findPath(key);
+			endOperation(Operation.NAVIGATE, start);
+			keepPath();
+			return before[0].next != null;
+		}
+		
+		/** Keeps the nodes of {@link SkipList#path} as the nodes before the cursor */
+		private void keepPath() {
+			if (before.length != path.length)
+				before = Arrays.copyOf(path, path.length);
+			else
+				System.arraycopy(path, 0, before, 0, skips + 1);
+			expectedModCount = modCount;
+		}
+		
+		private void checkForComodification() {
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+		}
+		
+		/** Returns the node at the cursor
+		 * @return the node, null if the cursor is after the last node
+		 * @throws ConcurrentModificationException if the list was modified other than through the cursor
+		 */
+		public Node<K,V> node() {
+			checkForComodification();
+			return before[0].next;
+		}
+		
+		/** Moves the cursor to the next node
+		 * @return true if the cursor is at a node, false if it moved past the last node
+		 * @throws NoSuchElementException if the cursor is already past the last node
+		 * @throws ConcurrentModificationException if the list was modified other than through the cursor
+		 */
+		public boolean next() {
+			checkForComodification();
+			Node<K,V> current = before[0].next;
+			if (current == null)
+				throw new NoSuchElementException();
+			for (int level = 0; level < current.height(); level++)
+				before[level] = current;
+			return current.next != null;
+		}
+		
+		/** Removes the node at the cursor and moves the cursor to the node after it
+		 * @return the removed node
+		 * @throws IllegalStateException if the cursor is past the last node
+		 * @throws ConcurrentModificationException if the list was modified other than through the cursor
+		 */
+		public Node<K,V> remove() {
+			checkForComodification();
+			Node<K,V> current = before[0].next;
+			if (current == null)
+				throw new IllegalStateException();
+			long start = startOperation();
+			if (deterministic) {
+				removeBalanced(current.ref);
+			} else {
+				System.arraycopy(before, 0, path, 0, skips + 1);
+				unlink();
+			}
+			endOperation(Operation.REMOVE, start);
+			keepPath();
+			return current;
+		}
+	}
+	
+	/** Iterator for {@link SkipList} over the full list in both directions, following the back links when moving backwards.
+	 * 	Removing a node searches for it again, a {@link Cursor} removes without searching. Other structural changes to the list
+	 * 	while iterating throw a {@link ConcurrentModificationException}.
 	 * @author Fredrik
 	 */
-	public class SkipListIterator implements Iterator<Node<K,V>> {
-		private Node<K,V> prev = null;
-		private Node<K,V> lastReturned = heads[0];
-		private int index = 0;
+	public class SkipListIterator implements ListIterator<Node<K,V>> {
+		/** the node returned by the next call to next, null at the end of the list */
+		private Node<K,V> next;
+		/** the node returned by the last call to next or previous, null if there is none or it was removed */
+		private Node<K,V> lastReturned;
+		private int index;
+		private int expectedModCount = modCount;
 		
-		private SkipListIterator() {}
+		private SkipListIterator(Node<K,V> next, int index) {
+			this.next = next;
+			this.index = index;
+		}
 		
 		@Override
 		public boolean hasNext() {
-			return index != SkipList.this.size;
+			return next != null;
 		}
 	
 		@Override
@@ -364,34 +2030,108 @@ public class SkipList<K extends Comparable<K>, V> implements Iterable<SkipList.N
 			if (!hasNext()) {
 				throw new NoSuchElementException();
 			}
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
 			
-			prev = lastReturned;
-			lastReturned = lastReturned.next;
+			lastReturned = next;
+			next = next.next;
 			index++;
 			return lastReturned;
 		}
 		
+		@Override
 		public boolean hasPrevious() {
-			return prev != null && prev != heads[0];
+			return (next == null ? tail : next.prev) != null;
 		}
 	
+		@Override
 		public int nextIndex() {
 			return index;
 		}
 	
-		public K previous() {
+		@Override
+		public Node<K, V> previous() {
 			if(!hasPrevious()) {
 				throw new NoSuchElementException();
 			}
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
 			
-			lastReturned = prev;
-			prev = null;
+			next = next == null ? tail : next.prev;
+			lastReturned = next;
 			index--;
-			return lastReturned.ref;
+			return lastReturned;
 		}
 	
+		@Override
 		public int previousIndex() {
 			return index - 1;
 		}
+		
+		/** Removes the node last returned by next or previous */
+		@Override
+		public void remove() {
+			if (lastReturned == null)
+				throw new IllegalStateException();
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			if (lastReturned == next)
+				next = next.next;
+			else
+				index--;
+			SkipList.this.remove(lastReturned.ref);
+			expectedModCount = modCount;
+			lastReturned = null;
+		}
+		
+		/** Not supported, the keys of the list determine the position of their nodes */
+		@Override
+		public void set(Node<K, V> node) {
+			throw new UnsupportedOperationException();
+		}
+		
+		/** Not supported, the keys of the list determine the position of their nodes */
+		@Override
+		public void add(Node<K, V> node) {
+			throw new UnsupportedOperationException();
+		}
+	}
+	
+	/** Iterator over the full list in descending key order, following the back links */
+	private class DescendingIterator implements Iterator<Node<K,V>> {
+		private Node<K,V> next;
+		private Node<K,V> lastReturned;
+		private int expectedModCount = modCount;
+		
+		private DescendingIterator(Node<K,V> next) {
+			this.next = next;
+		}
+		
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+		
+		@Override
+		public Node<K,V> next() {
+			if (next == null)
+				throw new NoSuchElementException();
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			lastReturned = next;
+			next = next.prev;
+			return lastReturned;
+		}
+		
+		@Override
+		public void remove() {
+			if (lastReturned == null)
+				throw new IllegalStateException();
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+			SkipList.this.remove(lastReturned.ref);
+			expectedModCount = modCount;
+			lastReturned = null;
+		}
 	}
 }
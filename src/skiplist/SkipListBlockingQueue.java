@@ -0,0 +1,354 @@
+package skiplist;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import skiplist.SkipList.Node;
+
+/** {@link BlockingQueue} of elements in priority order, backed by a {@link SkipList} of elements and guarded by a single lock.
+ * 	The head of the queue is the least element, taken with {@link SkipList#pollFirst()} without a search. A bounded queue blocks
+ * 	producers while it is full, unlike {@link SkipList#setCapacity(int, SkipList.Eviction)} which removes an entry.
+ * 	Elements that compare equal share a node, the further ones are queued in its value. They are all kept and
+ * 	taken in no particular order, as in {@link java.util.concurrent.PriorityBlockingQueue}.
+ * 	The iterator walks a snapshot taken when it is created.
+ *
+ * @param <E> element
+ */
+public class SkipListBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+	/** the value of a node without ties */
+	private static final Object SINGLE = new Object();
+
+	/** nodes hold {@link #SINGLE} or an {@link ArrayDeque} of the elements comparing equal to their key, besides the key */
+	private final SkipList<E, Object> list;
+	private final int capacity;
+	/** the number of elements, ties included */
+	private int count;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition();
+	private final Condition notFull = lock.newCondition();
+
+	/** Creates an unbounded queue ordered by the natural ordering of its elements */
+	public SkipListBlockingQueue() {
+		this(SkipList.UNBOUNDED, null);
+	}
+
+	/** Creates a queue
+	 * @param capacity the maximum number of elements, {@link SkipList#UNBOUNDED} for no limit
+	 * @param comparator the ordering of the elements, null for their natural ordering
+	 * @throws IllegalArgumentException if capacity is less than 1
+	 */
+	public SkipListBlockingQueue(int capacity, Comparator<? super E> comparator) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("capacity must be at least 1: " + capacity);
+		this.capacity = capacity;
+		this.list = new SkipList<>(comparator);
+	}
+
+	/** Returns the elements tied with the key of node, null if there are none */
+	@SuppressWarnings("unchecked")
+	private static <E> ArrayDeque<E> ties(Node<E, Object> node) {
+		Object value = node.getValue();
+		return value == SINGLE || ((ArrayDeque<E>) value).isEmpty() ? null : (ArrayDeque<E>) value;
+	}
+
+	/** Adds e to the list, or to the ties of an equal key, the lock must be held and the queue must not be full */
+	@SuppressWarnings("unchecked")
+	private void enqueue(E e) {
+		list.compute(e, (key, value) -> {
+			if (value == null)
+				return SINGLE;
+			ArrayDeque<E> ties = value == SINGLE ? new ArrayDeque<>() : (ArrayDeque<E>) value;
+			ties.add(e);
+			return ties;
+		});
+		count++;
+		notEmpty.signal();
+	}
+
+	/** Removes the least element, the lock must be held and the queue must not be empty */
+	private E dequeue() {
+		Node<E, Object> first = list.peekFirst();
+		ArrayDeque<E> ties = ties(first);
+		E e = ties == null ? list.pollFirst().getKey() : ties.poll();
+		count--;
+		notFull.signal();
+		return e;
+	}
+
+	/** Returns the node holding an element equal to o, null if there is none, the lock must be held
+	 * @throws ClassCastException if o cannot be compared with the elements
+	 */
+	@SuppressWarnings("unchecked")
+	private Node<E, Object> find(Object o) {
+		Node<E, Object> node = list.ceilingNode((E) o);
+		return node == null || list.compare(node.getKey(), (E) o) != 0 ? null : node;
+	}
+
+	@Override
+	public boolean offer(E e) {
+		if (e == null)
+			throw new NullPointerException();
+		lock.lock();
+		try {
+			if (count >= capacity)
+				return false;
+			enqueue(e);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void put(E e) throws InterruptedException {
+		if (e == null)
+			throw new NullPointerException();
+		lock.lockInterruptibly();
+		try {
+			while (count >= capacity)
+				notFull.await();
+			enqueue(e);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+		if (e == null)
+			throw new NullPointerException();
+		long nanos = unit.toNanos(timeout);
+		lock.lockInterruptibly();
+		try {
+			while (count >= capacity) {
+				if (nanos <= 0)
+					return false;
+				nanos = notFull.awaitNanos(nanos);
+			}
+			enqueue(e);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public E take() throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			while (count == 0)
+				notEmpty.await();
+			return dequeue();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+		long nanos = unit.toNanos(timeout);
+		lock.lockInterruptibly();
+		try {
+			while (count == 0) {
+				if (nanos <= 0)
+					return null;
+				nanos = notEmpty.awaitNanos(nanos);
+			}
+			return dequeue();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public E poll() {
+		lock.lock();
+		try {
+			return count == 0 ? null : dequeue();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/** Removes the greatest element, the one with the lowest priority
+	 * @return the greatest element, null if the queue is empty
+	 */
+	public E pollLast() {
+		lock.lock();
+		try {
+			Node<E, Object> last = list.peekLast();
+			if (last == null)
+				return null;
+			ArrayDeque<E> ties = ties(last);
+			E e = ties == null ? list.pollLast().getKey() : ties.pollLast();
+			count--;
+			notFull.signal();
+			return e;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public E peek() {
+		lock.lock();
+		try {
+			Node<E, Object> first = list.peekFirst();
+			return first == null ? null : first.getKey();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int size() {
+		lock.lock();
+		try {
+			return count;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int remainingCapacity() {
+		if (capacity == SkipList.UNBOUNDED)
+			return Integer.MAX_VALUE;
+		lock.lock();
+		try {
+			return capacity - count;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if (o == null)
+			return false;
+		lock.lock();
+		try {
+			Node<E, Object> node = find(o);
+			if (node == null)
+				return false;
+			ArrayDeque<E> ties = ties(node);
+			return node.getKey().equals(o) || ties != null && ties.contains(o);
+		} catch (ClassCastException e) {
+			return false;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		if (o == null)
+			return false;
+		lock.lock();
+		try {
+			Node<E, Object> node = find(o);
+			if (node == null)
+				return false;
+			ArrayDeque<E> ties = ties(node);
+			if (node.getKey().equals(o)) {
+				list.remove(node.getKey());
+				if (ties != null)
+					list.add(ties.poll(), ties.isEmpty() ? SINGLE : ties);
+			} else if (ties == null || !ties.remove(o)) {
+				return false;
+			}
+			count--;
+			notFull.signal();
+			return true;
+		} catch (ClassCastException e) {
+			return false;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void clear() {
+		lock.lock();
+		try {
+			list.clear();
+			count = 0;
+			notFull.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> c) {
+		return drainTo(c, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> c, int maxElements) {
+		if (c == this)
+			throw new IllegalArgumentException();
+		lock.lock();
+		try {
+			int drained = 0;
+			for (; drained < maxElements && count > 0; drained++)
+				c.add(dequeue());
+			if (drained > 0)
+				notFull.signalAll();
+			return drained;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		List<E> snapshot = new ArrayList<>();
+		lock.lock();
+		try {
+			for (Node<E, Object> node : list) {
+				snapshot.add(node.getKey());
+				ArrayDeque<E> ties = ties(node);
+				if (ties != null)
+					snapshot.addAll(ties);
+			}
+		} finally {
+			lock.unlock();
+		}
+		return new Iterator<E>() {
+			private int index;
+			private E last;
+
+			@Override
+			public boolean hasNext() {
+				return index < snapshot.size();
+			}
+
+			@Override
+			public E next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				return last = snapshot.get(index++);
+			}
+
+			@Override
+			public void remove() {
+				if (last == null)
+					throw new IllegalStateException();
+				SkipListBlockingQueue.this.remove(last);
+				last = null;
+			}
+		};
+	}
+}
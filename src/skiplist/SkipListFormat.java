@@ -0,0 +1,277 @@
+package skiplist;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.AbstractMap;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+
+import skiplist.SkipList.Node;
+import skiplist.SkipList.Promotion;
+
+/** Compact, versioned binary format of the entries of a {@link SkipList}, with the keys and values converted by {@link Serializer}s.
+ * 	Entries are streamed from the full list in key order through a buffer of fixed size, only an entry larger than the buffer
+ * 	allocates a larger one. Reading builds the list with {@link SkipList#fromSorted(Iterator, Comparator, Promotion) fromSorted}
+ * 	in O(n), without searching for the position of any key.
+ * 	<pre>
+ * 	long magic | int version | int size | (int key length | int value length, -1 for null | key bytes | value bytes)[size] | int crc
+ * 	</pre>
+ * 	The crc is the CRC32 of every byte before it. Streams and channels are neither closed nor flushed.
+ * 	Entries are limited to {@link #MAX_ENTRY_BYTES}, so damaged lengths cannot make reading allocate without bound.
+ *
+ * @param <K> key
+ * @param <V> value
+ */
+public class SkipListFormat<K, V> {
+
+	/** Version of the format written by this class */
+	public static final int VERSION = 1;
+	/** Largest key and value of an entry, in bytes together */
+	public static final int MAX_ENTRY_BYTES = 1 << 28;
+	/** "SKIPLIST" in ASCII */
+	private static final long MAGIC = 0x534b49504c495354L;
+	private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+	/** key length and value length */
+	private static final int ENTRY_HEADER = 2 * Integer.BYTES;
+	private static final int NULL = -1;
+
+	private final Serializer<K> keySerializer;
+	private final Serializer<V> valueSerializer;
+	private final int bufferSize;
+
+	/** Creates a format with buffers of 64 KB
+	 * @param keySerializer serializer for the keys
+	 * @param valueSerializer serializer for the values
+	 */
+	public SkipListFormat(Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+		this(keySerializer, valueSerializer, DEFAULT_BUFFER_SIZE);
+	}
+
+	/** Creates a format
+	 * @param keySerializer serializer for the keys
+	 * @param valueSerializer serializer for the values
+	 * @param bufferSize the number of bytes buffered between writes to and reads from a channel
+	 * @throws IllegalArgumentException if bufferSize is smaller than the header of the format
+	 */
+	public SkipListFormat(Serializer<K> keySerializer, Serializer<V> valueSerializer, int bufferSize) {
+		if (keySerializer == null || valueSerializer == null)
+			throw new NullPointerException();
+		if (bufferSize < Long.BYTES + 2 * Integer.BYTES)
+			throw new IllegalArgumentException("buffer too small: " + bufferSize);
+		this.keySerializer = keySerializer;
+		this.valueSerializer = valueSerializer;
+		this.bufferSize = bufferSize;
+	}
+
+	/** Writes the entries of list to channel, the list must not be modified while it is written
+	 * @param list the list to write
+	 * @param channel the channel to write to
+	 * @return the number of bytes written
+	 * @throws IOException if the channel cannot be written or an entry is larger than {@link #MAX_ENTRY_BYTES}
+	 */
+	public long write(SkipList<K, V> list, WritableByteChannel channel) throws IOException {
+		CRC32 crc = new CRC32();
+		ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+		long written = 0;
+		buffer.putLong(MAGIC).putInt(VERSION).putInt(list.size());
+		for (Node<K, V> node : list) {
+			V value = node.getValue();
+			int keyLength = keySerializer.size(node.getKey());
+			int valueLength = value == null ? NULL : valueSerializer.size(value);
+			if ((long) keyLength + Math.max(valueLength, 0) > MAX_ENTRY_BYTES)
+				throw new IOException("entry of key " + node.getKey() + " is larger than " + MAX_ENTRY_BYTES + " bytes");
+			int length = ENTRY_HEADER + keyLength + Math.max(valueLength, 0);
+			if (buffer.remaining() < length) {
+				written += flush(channel, buffer, crc);
+				if (buffer.capacity() < length)
+					buffer = ByteBuffer.allocate(length);
+			}
+			buffer.putInt(keyLength).putInt(valueLength);
+			keySerializer.write(node.getKey(), buffer);
+			if (value != null)
+				valueSerializer.write(value, buffer);
+		}
+		if (buffer.remaining() < Integer.BYTES)
+			written += flush(channel, buffer, crc);
+		crc.update(buffer.array(), 0, buffer.position());
+		buffer.putInt((int) crc.getValue()).flip();
+		written += buffer.remaining();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		return written;
+	}
+
+	/** Writes the entries of list to out, the list must not be modified while it is written
+	 * @param list the list to write
+	 * @param out the stream to write to
+	 * @return the number of bytes written
+	 * @throws IOException if the stream cannot be written or an entry is larger than {@link #MAX_ENTRY_BYTES}
+	 */
+	public long write(SkipList<K, V> list, OutputStream out) throws IOException {
+		return write(list, Channels.newChannel(out));
+	}
+
+	/** Writes the content of buffer to channel, adds it to crc and clears the buffer
+	 * @return the number of bytes written
+	 */
+	private static int flush(WritableByteChannel channel, ByteBuffer buffer, CRC32 crc) throws IOException {
+		buffer.flip();
+		int length = buffer.limit();
+		crc.update(buffer.array(), 0, length);
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+		return length;
+	}
+
+	/** Reads a list ordered by the natural ordering of its keys, giving the nodes random heights
+	 * @param channel the channel to read from, positioned at the start of the format
+	 * @return the list holding the entries read
+	 * @throws IOException if the channel cannot be read or does not hold a valid list
+	 */
+	public SkipList<K, V> read(ReadableByteChannel channel) throws IOException {
+		return read(channel, null, Promotion.RANDOM);
+	}
+
+	/** Reads a list ordered by the natural ordering of its keys, giving the nodes random heights
+	 * @param in the stream to read from, positioned at the start of the format
+	 * @return the list holding the entries read
+	 * @throws IOException if the stream cannot be read or does not hold a valid list
+	 */
+	public SkipList<K, V> read(InputStream in) throws IOException {
+		return read(Channels.newChannel(in), null, Promotion.RANDOM);
+	}
+
+	/** Reads a list in a single pass. The channel is read up to the end of the format, though a buffer's worth of bytes after it may be consumed.
+	 * @param channel the channel to read from, positioned at the start of the format
+	 * @param comparator the ordering the list was written in, null for the natural ordering of the keys
+	 * @param promotion how the heights of the nodes are chosen
+	 * @return the list holding the entries read
+	 * @throws IOException if the channel cannot be read or does not hold a valid list
+	 */
+	public SkipList<K, V> read(ReadableByteChannel channel, Comparator<? super K> comparator, Promotion promotion) throws IOException {
+		Input input = new Input(channel);
+		input.require(Long.BYTES + 2 * Integer.BYTES);
+		if (input.buffer.getLong() != MAGIC)
+			throw new IOException("not a skiplist");
+		int version = input.buffer.getInt();
+		if (version != VERSION)
+			throw new IOException("unsupported skiplist version " + version);
+		int size = input.buffer.getInt();
+		if (size < 0)
+			throw new IOException("damaged skiplist, size " + size);
+
+		Iterator<Map.Entry<K, V>> entries = new Iterator<Map.Entry<K, V>>() {
+			private int read;
+
+			@Override
+			public boolean hasNext() {
+				return read < size;
+			}
+
+			@Override
+			public Map.Entry<K, V> next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				read++;
+				try {
+					input.require(ENTRY_HEADER);
+					int keyLength = input.buffer.getInt();
+					int valueLength = input.buffer.getInt();
+					long length = (long) keyLength + Math.max(valueLength, 0);
+					if (keyLength < 0 || valueLength < NULL || length > MAX_ENTRY_BYTES)
+						throw new IOException("damaged skiplist, entry lengths " + keyLength + ", " + valueLength);
+					input.require((int) length);
+					K key = read(keySerializer, keyLength, input);
+					V value = valueLength == NULL ? null : read(valueSerializer, valueLength, input);
+					return new AbstractMap.SimpleImmutableEntry<>(key, value);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		};
+		SkipList<K, V> list;
+		try {
+			list = SkipList.fromSorted(entries, comparator, promotion);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} catch (IllegalArgumentException e) {
+			throw new IOException("damaged skiplist", e);
+		}
+
+		int checksum = input.checksum();
+		input.require(Integer.BYTES);
+		if (input.buffer.getInt() != checksum)
+			throw new IOException("damaged skiplist, checksum mismatch");
+		return list;
+	}
+
+	/** Reads length bytes of the input with serializer, which must consume exactly those bytes
+	 * @throws IOException if the serializer fails or consumes a different number of bytes
+	 */
+	private <T> T read(Serializer<T> serializer, int length, Input input) throws IOException {
+		int end = input.buffer.position() + length;
+		T value;
+		try {
+			value = serializer.read(input.buffer, length);
+		} catch (RuntimeException e) {
+			throw new IOException("damaged skiplist, cannot read an entry", e);
+		}
+		if (input.buffer.position() != end)
+			throw new IOException("damaged skiplist, serializer read " + (input.buffer.position() - end + length) + " of " + length + " bytes");
+		return value;
+	}
+
+	/** Buffered reads from a channel, adding every consumed byte to a crc */
+	private class Input {
+		private final ReadableByteChannel channel;
+		private final CRC32 crc = new CRC32();
+		private ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+
+		Input(ReadableByteChannel channel) {
+			this.channel = channel;
+			buffer.flip();
+		}
+
+		/** Adds the bytes consumed since the last call to the crc */
+		private void update() {
+			crc.update(buffer.array(), 0, buffer.position());
+		}
+
+		/** Makes at least length bytes available at the position of the buffer, growing it if they do not fit */
+		void require(int length) throws IOException {
+			if (buffer.remaining() >= length)
+				return;
+			update();
+			buffer.compact();
+			if (buffer.capacity() < length) {
+				ByteBuffer larger = ByteBuffer.allocate(length);
+				buffer.flip();
+				larger.put(buffer);
+				buffer = larger;
+			}
+			while (buffer.position() < length) {
+				if (channel.read(buffer) < 0)
+					throw new IOException("truncated skiplist");
+			}
+			buffer.flip();
+		}
+
+		/** Returns the crc of every byte consumed so far */
+		int checksum() {
+			update();
+			// the consumed bytes are dropped so they are not counted again
+			buffer.compact().flip();
+			return (int) crc.getValue();
+		}
+	}
+}
@@ -0,0 +1,662 @@
+package skiplist;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import skiplist.SkipList.Node;
+
+/** {@link NavigableMap} view of a {@link SkipList}. Every navigation method and the first entry of a range
+ * 	are found by descending through the express lists in O(log n), iteration then follows the full list lazily.
+ * 	Descending iteration follows the back links of the full list from the last entry, which is found in O(1). Sub maps are views restricted to a range of keys,
+ * 	their size is computed from the ranks of the bounds. Entries returned by the map are snapshots and do not support
+ * 	{@link Map.Entry#setValue(Object) setValue}. Null keys are not supported.
+ *
+ * @param <K> key
+ * @param <V> value
+ */
+public class SkipListMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K, V> {
+
+	private final SkipList<K, V> list;
+
+	/** true if the map has no lower bound, lo is ignored */
+	private final boolean fromStart;
+	private final K lo;
+	private final boolean loInclusive;
+	/** true if the map has no upper bound, hi is ignored */
+	private final boolean toEnd;
+	private final K hi;
+	private final boolean hiInclusive;
+	/** true if the map presents the range in descending key order, lo and hi are always in ascending order */
+	private final boolean descending;
+
+	/** Creates an empty map backed by a new skiplist */
+	public SkipListMap() {
+		this(new SkipList<K, V>());
+	}
+
+	/** Creates an empty map backed by a new skiplist ordered by comparator
+	 * @param comparator the ordering of the keys, null for their natural ordering
+	 */
+	public SkipListMap(Comparator<? super K> comparator) {
+		this(new SkipList<K, V>(comparator));
+	}
+
+	/** Creates a map backed by list, changes to either are visible in the other
+	 * @param list the skiplist holding the entries
+	 */
+	public SkipListMap(SkipList<K, V> list) {
+		this(list, true, null, false, true, null, false, false);
+	}
+
+	private SkipListMap(SkipList<K, V> list, boolean fromStart, K lo, boolean loInclusive,
+			boolean toEnd, K hi, boolean hiInclusive, boolean descending) {
+		this.list = list;
+		this.fromStart = fromStart;
+		this.lo = lo;
+		this.loInclusive = loInclusive;
+		this.toEnd = toEnd;
+		this.hi = hi;
+		this.hiInclusive = hiInclusive;
+		this.descending = descending;
+	}
+
+	private boolean tooLow(K key) {
+		if (fromStart)
+			return false;
+		int comparison = list.compare(key, lo);
+		return comparison < 0 || comparison == 0 && !loInclusive;
+	}
+
+	private boolean tooHigh(K key) {
+		if (toEnd)
+			return false;
+		int comparison = list.compare(key, hi);
+		return comparison > 0 || comparison == 0 && !hiInclusive;
+	}
+
+	private boolean inRange(K key) {
+		return !tooLow(key) && !tooHigh(key);
+	}
+
+	/** Checks if key lies within the bounds, treating them as inclusive */
+	private boolean inClosedRange(K key) {
+		return (fromStart || list.compare(key, lo) >= 0) && (toEnd || list.compare(key, hi) <= 0);
+	}
+
+	/** Casts key, rejecting null */
+	@SuppressWarnings("unchecked")
+	private static <K> K key(Object key) {
+		if (key == null)
+			throw new NullPointerException();
+		return (K) key;
+	}
+
+	/** Returns the node with the least key in range, or null */
+	private Node<K, V> loNode() {
+		Node<K, V> node = fromStart ? list.firstNode() : loInclusive ? list.ceilingNode(lo) : list.higherNode(lo);
+		return node == null || tooHigh(node.getKey()) ? null : node;
+	}
+
+	/** Returns the node with the greatest key in range, or null */
+	private Node<K, V> hiNode() {
+		Node<K, V> node = toEnd ? list.lastNode() : hiInclusive ? list.floorNode(hi) : list.lowerNode(hi);
+		return node == null || tooLow(node.getKey()) ? null : node;
+	}
+
+	private Node<K, V> ceilingNode(K key) {
+		if (tooLow(key))
+			return loNode();
+		Node<K, V> node = list.ceilingNode(key);
+		return node == null || tooHigh(node.getKey()) ? null : node;
+	}
+
+	private Node<K, V> higherNode(K key) {
+		if (tooLow(key))
+			return loNode();
+		Node<K, V> node = list.higherNode(key);
+		return node == null || tooHigh(node.getKey()) ? null : node;
+	}
+
+	private Node<K, V> floorNode(K key) {
+		if (tooHigh(key))
+			return hiNode();
+		Node<K, V> node = list.floorNode(key);
+		return node == null || tooLow(node.getKey()) ? null : node;
+	}
+
+	private Node<K, V> lowerNode(K key) {
+		if (tooHigh(key))
+			return hiNode();
+		Node<K, V> node = list.lowerNode(key);
+		return node == null || tooLow(node.getKey()) ? null : node;
+	}
+
+	/** Returns the node following node in the order of this map, or null at the end of the range */
+	private Node<K, V> successor(Node<K, V> node) {
+		if (descending) {
+			Node<K, V> previous = node.previous();
+			return previous == null || tooLow(previous.getKey()) ? null : previous;
+		}
+		Node<K, V> next = node.next();
+		return next == null || tooHigh(next.getKey()) ? null : next;
+	}
+
+	private static <K, V> Map.Entry<K, V> entry(Node<K, V> node) {
+		return node == null ? null : new AbstractMap.SimpleImmutableEntry<>(node.getKey(), node.getValue());
+	}
+
+	private static <K, V> K keyOrNull(Node<K, V> node) {
+		return node == null ? null : node.getKey();
+	}
+
+	private static <K, V> K keyOrThrow(Node<K, V> node) {
+		if (node == null)
+			throw new NoSuchElementException();
+		return node.getKey();
+	}
+
+	@Override
+	public int size() {
+		if (fromStart && toEnd)
+			return list.size();
+		int start = fromStart ? 0 : list.rank(lo) + (!loInclusive && list.contains(lo) ? 1 : 0);
+		int end = toEnd ? list.size() : list.rank(hi) + (hiInclusive && list.contains(hi) ? 1 : 0);
+		return Math.max(0, end - start);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return loNode() == null;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		K k = key(key);
+		return inRange(k) && list.contains(k);
+	}
+
+	@Override
+	public V get(Object key) {
+		K k = key(key);
+		return inRange(k) ? list.get(k) : null;
+	}
+
+	/** Associates value with key, replacing the value of an existing key in its node
+	 * @throws IllegalArgumentException if key is outside the range of this map
+	 */
+	@Override
+	public V put(K key, V value) {
+		return list.put(checkedKey(key), value);
+	}
+
+	/** Checks that key is in range of this map for an operation that may add it */
+	private K checkedKey(K key) {
+		if (!inRange(key(key)))
+			throw new IllegalArgumentException("key out of range");
+		return key;
+	}
+
+	/** Stores value unless key has a value that is not null, in a single descent
+	 * @throws IllegalArgumentException if key is outside the range of this map
+	 */
+	@Override
+	public V putIfAbsent(K key, V value) {
+		return list.putIfAbsent(checkedKey(key), value);
+	}
+
+	/** Computes the value of a key without one in a single descent, the function must not modify the map
+	 * @throws IllegalArgumentException if key is outside the range of this map
+	 */
+	@Override
+	public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+		return list.computeIfAbsent(checkedKey(key), Objects.requireNonNull(mappingFunction));
+	}
+
+	/** Computes a new value for an existing key in a single descent, the function must not modify the map
+	 * @throws IllegalArgumentException if key is outside the range of this map
+	 */
+	@Override
+	public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		return list.computeIfPresent(checkedKey(key), Objects.requireNonNull(remappingFunction));
+	}
+
+	/** Computes a new value for a key in a single descent, the function must not modify the map
+	 * @throws IllegalArgumentException if key is outside the range of this map
+	 */
+	@Override
+	public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		return list.compute(checkedKey(key), Objects.requireNonNull(remappingFunction));
+	}
+
+	/** Stores or combines value in a single descent, the function must not modify the map
+	 * @throws IllegalArgumentException if key is outside the range of this map
+	 */
+	@Override
+	public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+		return list.merge(checkedKey(key), value, Objects.requireNonNull(remappingFunction));
+	}
+
+	@Override
+	public V replace(K key, V value) {
+		return inRange(key(key)) ? list.replace(key, value) : null;
+	}
+
+	@Override
+	public boolean replace(K key, V oldValue, V newValue) {
+		return inRange(key(key)) && list.replace(key, oldValue, newValue);
+	}
+
+	@Override
+	public V remove(Object key) {
+		K k = key(key);
+		if (!inRange(k) || list.isEmpty())
+			return null;
+		Node<K, V> removed = list.remove(k);
+		return removed == null ? null : removed.getValue();
+	}
+
+	@Override
+	public void clear() {
+		if (fromStart && toEnd)
+			list.clear();
+		else
+			list.removeRange(fromStart ? null : lo, loInclusive, toEnd ? null : hi, hiInclusive);
+	}
+
+	@Override
+	public Set<Map.Entry<K, V>> entrySet() {
+		return new EntrySet();
+	}
+
+	@Override
+	public NavigableSet<K> keySet() {
+		return new KeySet<>(this);
+	}
+
+	@Override
+	public Comparator<? super K> comparator() {
+		return descending ? Collections.reverseOrder(list.comparator()) : list.comparator();
+	}
+
+	@Override
+	public K firstKey() {
+		return keyOrThrow(descending ? hiNode() : loNode());
+	}
+
+	@Override
+	public K lastKey() {
+		return keyOrThrow(descending ? loNode() : hiNode());
+	}
+
+	@Override
+	public SortedMap<K, V> subMap(K fromKey, K toKey) {
+		return subMap(fromKey, true, toKey, false);
+	}
+
+	@Override
+	public SortedMap<K, V> headMap(K toKey) {
+		return headMap(toKey, false);
+	}
+
+	@Override
+	public SortedMap<K, V> tailMap(K fromKey) {
+		return tailMap(fromKey, true);
+	}
+
+	@Override
+	public Map.Entry<K, V> lowerEntry(K key) {
+		return entry(descending ? higherNode(key(key)) : lowerNode(key(key)));
+	}
+
+	@Override
+	public K lowerKey(K key) {
+		return keyOrNull(descending ? higherNode(key(key)) : lowerNode(key(key)));
+	}
+
+	@Override
+	public Map.Entry<K, V> floorEntry(K key) {
+		return entry(descending ? ceilingNode(key(key)) : floorNode(key(key)));
+	}
+
+	@Override
+	public K floorKey(K key) {
+		return keyOrNull(descending ? ceilingNode(key(key)) : floorNode(key(key)));
+	}
+
+	@Override
+	public Map.Entry<K, V> ceilingEntry(K key) {
+		return entry(descending ? floorNode(key(key)) : ceilingNode(key(key)));
+	}
+
+	@Override
+	public K ceilingKey(K key) {
+		return keyOrNull(descending ? floorNode(key(key)) : ceilingNode(key(key)));
+	}
+
+	@Override
+	public Map.Entry<K, V> higherEntry(K key) {
+		return entry(descending ? lowerNode(key(key)) : higherNode(key(key)));
+	}
+
+	@Override
+	public K higherKey(K key) {
+		return keyOrNull(descending ? lowerNode(key(key)) : higherNode(key(key)));
+	}
+
+	@Override
+	public Map.Entry<K, V> firstEntry() {
+		return entry(descending ? hiNode() : loNode());
+	}
+
+	@Override
+	public Map.Entry<K, V> lastEntry() {
+		return entry(descending ? loNode() : hiNode());
+	}
+
+	@Override
+	public Map.Entry<K, V> pollFirstEntry() {
+		return poll(descending ? hiNode() : loNode());
+	}
+
+	@Override
+	public Map.Entry<K, V> pollLastEntry() {
+		return poll(descending ? loNode() : hiNode());
+	}
+
+	private Map.Entry<K, V> poll(Node<K, V> node) {
+		if (node == null)
+			return null;
+		list.remove(node.getKey());
+		return entry(node);
+	}
+
+	@Override
+	public NavigableMap<K, V> descendingMap() {
+		return new SkipListMap<>(list, fromStart, lo, loInclusive, toEnd, hi, hiInclusive, !descending);
+	}
+
+	@Override
+	public NavigableSet<K> navigableKeySet() {
+		return new KeySet<>(this);
+	}
+
+	@Override
+	public NavigableSet<K> descendingKeySet() {
+		return new KeySet<>(descendingMap());
+	}
+
+	@Override
+	public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+		if (descending)
+			return subMap(false, key(toKey), toInclusive, false, key(fromKey), fromInclusive);
+		return subMap(false, key(fromKey), fromInclusive, false, key(toKey), toInclusive);
+	}
+
+	@Override
+	public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+		if (descending)
+			return subMap(false, key(toKey), inclusive, true, null, false);
+		return subMap(true, null, false, false, key(toKey), inclusive);
+	}
+
+	@Override
+	public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+		if (descending)
+			return subMap(true, null, false, false, key(fromKey), inclusive);
+		return subMap(false, key(fromKey), inclusive, true, null, false);
+	}
+
+	/** Creates a view restricted to the ascending range, bounds that are not set are inherited from this map
+	 * @throws IllegalArgumentException if the range is reversed or a bound is outside the range of this map
+	 */
+	private NavigableMap<K, V> subMap(boolean fromStart, K lo, boolean loInclusive, boolean toEnd, K hi, boolean hiInclusive) {
+		if (!fromStart && !toEnd && list.compare(lo, hi) > 0)
+			throw new IllegalArgumentException("fromKey > toKey");
+		if (fromStart) {
+			fromStart = this.fromStart;
+			lo = this.lo;
+			loInclusive = this.loInclusive;
+		} else if (loInclusive ? !inRange(lo) : !inClosedRange(lo)) {
+			throw new IllegalArgumentException("fromKey out of range");
+		}
+		if (toEnd) {
+			toEnd = this.toEnd;
+			hi = this.hi;
+			hiInclusive = this.hiInclusive;
+		} else if (hiInclusive ? !inRange(hi) : !inClosedRange(hi)) {
+			throw new IllegalArgumentException("toKey out of range");
+		}
+		return new SkipListMap<>(list, fromStart, lo, loInclusive, toEnd, hi, hiInclusive, descending);
+	}
+
+	/** Iterator over the nodes of the range in the order of the map, removing through the skiplist.
+	 * 	Fails fast like the iterators of {@link SkipList} when the list is structurally modified other than through it. */
+	private abstract class RangeIterator<T> implements Iterator<T> {
+		private Node<K, V> next = descending ? hiNode() : loNode();
+		private Node<K, V> lastReturned;
+		private int expectedModCount = list.modCount();
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		Node<K, V> nextNode() {
+			if (next == null)
+				throw new NoSuchElementException();
+			if (list.modCount() != expectedModCount)
+				throw new ConcurrentModificationException();
+			lastReturned = next;
+			next = successor(next);
+			return lastReturned;
+		}
+
+		@Override
+		public void remove() {
+			if (lastReturned == null)
+				throw new IllegalStateException();
+			if (list.modCount() != expectedModCount)
+				throw new ConcurrentModificationException();
+			list.remove(lastReturned.getKey());
+			expectedModCount = list.modCount();
+			lastReturned = null;
+		}
+	}
+
+	private class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+		@Override
+		public Iterator<Map.Entry<K, V>> iterator() {
+			return new RangeIterator<Map.Entry<K, V>>() {
+				@Override
+				public Map.Entry<K, V> next() {
+					return entry(nextNode());
+				}
+			};
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			V value = get(e.getKey());
+			return value != null ? value.equals(e.getValue()) : e.getValue() == null && containsKey(e.getKey());
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			if (!contains(o))
+				return false;
+			SkipListMap.this.remove(((Map.Entry<?, ?>) o).getKey());
+			return true;
+		}
+
+		@Override
+		public int size() {
+			return SkipListMap.this.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return SkipListMap.this.isEmpty();
+		}
+
+		@Override
+		public void clear() {
+			SkipListMap.this.clear();
+		}
+	}
+
+	/** Iterator over the keys of the range */
+	Iterator<K> keyIterator() {
+		return new RangeIterator<K>() {
+			@Override
+			public K next() {
+				return nextNode().getKey();
+			}
+		};
+	}
+
+	/** {@link NavigableSet} of the keys of a map, every method delegates to the map */
+	private static class KeySet<K> extends AbstractSet<K> implements NavigableSet<K> {
+		private final NavigableMap<K, ?> map;
+
+		private KeySet(NavigableMap<K, ?> map) {
+			this.map = map;
+		}
+
+		@Override
+		public Iterator<K> iterator() {
+			return ((SkipListMap<K, ?>) map).keyIterator();
+		}
+
+		@Override
+		public int size() {
+			return map.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return map.isEmpty();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return map.containsKey(o);
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			if (!map.containsKey(o))
+				return false;
+			map.remove(o);
+			return true;
+		}
+
+		@Override
+		public void clear() {
+			map.clear();
+		}
+
+		@Override
+		public K lower(K e) {
+			return map.lowerKey(e);
+		}
+
+		@Override
+		public K floor(K e) {
+			return map.floorKey(e);
+		}
+
+		@Override
+		public K ceiling(K e) {
+			return map.ceilingKey(e);
+		}
+
+		@Override
+		public K higher(K e) {
+			return map.higherKey(e);
+		}
+
+		@Override
+		public K pollFirst() {
+			Map.Entry<K, ?> e = map.pollFirstEntry();
+			return e == null ? null : e.getKey();
+		}
+
+		@Override
+		public K pollLast() {
+			Map.Entry<K, ?> e = map.pollLastEntry();
+			return e == null ? null : e.getKey();
+		}
+
+		@Override
+		public Comparator<? super K> comparator() {
+			return map.comparator();
+		}
+
+		@Override
+		public K first() {
+			return map.firstKey();
+		}
+
+		@Override
+		public K last() {
+			return map.lastKey();
+		}
+
+		@Override
+		public NavigableSet<K> descendingSet() {
+			return new KeySet<>(map.descendingMap());
+		}
+
+		@Override
+		public Iterator<K> descendingIterator() {
+			return descendingSet().iterator();
+		}
+
+		@Override
+		public NavigableSet<K> subSet(K fromElement, boolean fromInclusive, K toElement, boolean toInclusive) {
+			return new KeySet<>(map.subMap(fromElement, fromInclusive, toElement, toInclusive));
+		}
+
+		@Override
+		public NavigableSet<K> headSet(K toElement, boolean inclusive) {
+			return new KeySet<>(map.headMap(toElement, inclusive));
+		}
+
+		@Override
+		public NavigableSet<K> tailSet(K fromElement, boolean inclusive) {
+			return new KeySet<>(map.tailMap(fromElement, inclusive));
+		}
+
+		@Override
+		public SortedSet<K> subSet(K fromElement, K toElement) {
+			return subSet(fromElement, true, toElement, false);
+		}
+
+		@Override
+		public SortedSet<K> headSet(K toElement) {
+			return headSet(toElement, false);
+		}
+
+		@Override
+		public SortedSet<K> tailSet(K fromElement) {
+			return tailSet(fromElement, true);
+		}
+	}
+}
@@ -0,0 +1,207 @@
+package skiplist;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Instrumentation of a {@link SkipList}, collected only after {@link SkipList#enableMetrics()}.
+ * 	Counts every operation, the number of nodes visited by each search and the height drawn for each new node in {@link LongAdder}s,
+ * 	which may be read from other threads while the list is in use. Operations slower than a threshold are emitted to
+ * 	JDK Flight Recorder as {@link SlowOperationEvent}s, which are only recorded while a recording enables them.
+ * 	The structure of the list, its number of express lists, the nodes in each list and its memory, is computed when asked for
+ * 	and must not be read while the list is modified.
+ */
+public class SkipListMetrics {
+
+	/** The operations that are counted */
+	public enum Operation {
+		/** {@link SkipList#get(Object)}, or a conditional update that left the list unchanged */
+		GET,
+		/** {@link SkipList#contains(Object)} */
+		CONTAINS,
+		/** the floor, ceiling, lower and higher lookups of {@link SkipListMap} */
+		NAVIGATE,
+		/** add, put, compute or merge of a key that did not exist */
+		INSERT,
+		/** add, put, compute, merge or replace of an existing key, which replaces its value in place */
+		UPDATE,
+		/** {@link SkipList#remove(Object)}, whether the key existed or not, a compute or merge that removed the key, or a poll of the first or last node */
+		REMOVE,
+		/** {@link SkipList#rank(Object)} and {@link SkipList#indexOf(Object)} */
+		RANK,
+		/** {@link SkipList#get(int)} and {@link SkipList#removeAt(int)} */
+		POSITIONAL
+	}
+
+	/** Number of buckets of the histograms, the last bucket also counts every larger value */
+	public static final int BUCKETS = 64;
+
+	private final SkipList<?, ?> list;
+	private final LongAdder[] operations = adders(Operation.values().length);
+	/** searchLengths[i] is the number of searches that visited i nodes */
+	private final LongAdder[] searchLengths = adders(BUCKETS);
+	/** heights[i] is the number of new nodes that were put in i + 1 lists */
+	private final LongAdder[] heights = adders(BUCKETS);
+	private final LongAdder expansions = new LongAdder();
+	private final LongAdder removedLists = new LongAdder();
+	private final LongAdder fingerHits = new LongAdder();
+	private final LongAdder fingerMisses = new LongAdder();
+	private volatile long slowOperationNanos = TimeUnit.MILLISECONDS.toNanos(1);
+
+	SkipListMetrics(SkipList<?, ?> list) {
+		this.list = list;
+	}
+
+	private static LongAdder[] adders(int length) {
+		LongAdder[] adders = new LongAdder[length];
+		for (int i = 0; i < length; i++)
+			adders[i] = new LongAdder();
+		return adders;
+	}
+
+	private static long[] sums(LongAdder[] adders) {
+		long[] sums = new long[adders.length];
+		for (int i = 0; i < adders.length; i++)
+			sums[i] = adders[i].sum();
+		return sums;
+	}
+
+	/** Records an operation that started at start, which visited the given number of nodes, and emits it if it was slow */
+	void record(Operation operation, long start, int visited) {
+		long duration = System.nanoTime() - start;
+		operations[operation.ordinal()].increment();
+		if (visited >= 0)
+			searchLengths[Math.min(visited, BUCKETS - 1)].increment();
+		if (duration >= slowOperationNanos) {
+			SlowOperationEvent event = new SlowOperationEvent();
+			if (event.isEnabled()) {
+				event.operation = operation.name();
+				event.elapsed = duration;
+				event.visited = visited;
+				event.size = list.size();
+				event.skips = list.skips();
+				event.commit();
+			}
+		}
+	}
+
+	/** Records the height drawn for a new node */
+	void recordHeight(int height) {
+		heights[Math.min(height, BUCKETS) - 1].increment();
+	}
+
+	/** Records that the arrays of the head were expanded */
+	void recordExpansion() {
+		expansions.increment();
+	}
+
+	/** Records that an empty express list was removed */
+	void recordRemovedList() {
+		removedLists.increment();
+	}
+
+	/** Returns the number of times operation was performed
+	 * @param operation the operation to count
+	 * @return the number of operations since the metrics were enabled or reset
+	 */
+	public long count(Operation operation) {
+		return operations[operation.ordinal()].sum();
+	}
+
+	/** Returns the histogram of the number of nodes visited by the searches of the operations, the last bucket also counts longer searches
+	 * @return an array where index i is the number of searches that visited i nodes
+	 */
+	public long[] searchLengthHistogram() {
+		return sums(searchLengths);
+	}
+
+	/** Returns the histogram of the heights drawn for new nodes, the last bucket also counts larger heights
+	 * @return an array where index i is the number of new nodes that were put in i + 1 lists
+	 */
+	public long[] heightHistogram() {
+		return sums(heights);
+	}
+
+	/** Records whether a finger search started below the highest list */
+	void recordFingerSearch(boolean hit) {
+		(hit ? fingerHits : fingerMisses).increment();
+	}
+
+	/** Returns how often the arrays of the head were expanded to hold more express lists
+	 * @return the number of expansions
+	 */
+	public long expansions() {
+		return expansions.sum();
+	}
+
+	/** Returns how many express lists were removed because they became empty
+	 * @return the number of removed express lists
+	 */
+	public long removedLists() {
+		return removedLists.sum();
+	}
+
+	/** Returns the number of searches while {@link SkipList#setFingerSearch(boolean) finger search} was enabled that started
+	 * 	from the finger below the highest list
+	 * @return the number of finger hits
+	 */
+	public long fingerHits() {
+		return fingerHits.sum();
+	}
+
+	/** Returns the number of searches while finger search was enabled that started from the head or the highest list,
+	 * 	because the finger was stale or the key was not near the key of the last search
+	 * @return the number of finger misses
+	 */
+	public long fingerMisses() {
+		return fingerMisses.sum();
+	}
+
+	/** Returns the fraction of the searches while finger search was enabled that started from the finger below the highest list
+	 * @return the finger hits divided by all finger searches, 0 if there were none
+	 */
+	public double fingerHitRate() {
+		long hits = fingerHits.sum();
+		long searches = hits + fingerMisses.sum();
+		return searches == 0 ? 0 : (double) hits / searches;
+	}
+
+	/** Returns the current number of express lists
+	 * @return the number of lists excluding the full list
+	 */
+	public int skips() {
+		return list.skips();
+	}
+
+	/** Returns the current number of nodes in each list by walking every list
+	 * @return an array where index i is the number of nodes in list i, index 0 being the full list
+	 */
+	public long[] levelCounts() {
+		return list.levelCounts();
+	}
+
+	/** Returns an estimate of the bytes held by the nodes of the list, excluding the keys and values, assuming compressed references
+	 * @return the estimated number of bytes
+	 */
+	public long memoryEstimate() {
+		return list.memoryEstimate();
+	}
+
+	/** Sets how long an operation has to take to be emitted as a {@link SlowOperationEvent}
+	 * @param duration the threshold, 0 emits every operation
+	 * @param unit the unit of duration
+	 */
+	public void setSlowOperationThreshold(long duration, TimeUnit unit) {
+		slowOperationNanos = unit.toNanos(duration);
+	}
+
+	/** Sets every counter and histogram to 0 */
+	public void reset() {
+		for (LongAdder[] adders : new LongAdder[][] { operations, searchLengths, heights })
+			for (LongAdder adder : adders)
+				adder.reset();
+		expansions.reset();
+		removedLists.reset();
+		fingerHits.reset();
+		fingerMisses.reset();
+	}
+}
@@ -0,0 +1,34 @@
+package skiplist;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/** JDK Flight Recorder event for an operation of a {@link SkipList} that took longer than the threshold of its {@link SkipListMetrics} */
+@Name("skiplist.SlowOperation")
+@Label("Slow SkipList Operation")
+@Category("SkipList")
+@Description("An operation of a SkipList with metrics enabled that took longer than the slow operation threshold")
+public class SlowOperationEvent extends Event {
+
+	@Label("Operation")
+	String operation;
+
+	@Label("Elapsed")
+	@Description("Time the operation took, the duration of the event only covers its emission")
+	@Timespan(Timespan.NANOSECONDS)
+	long elapsed;
+
+	@Label("Nodes Visited")
+	@Description("Nodes visited by the search of the operation, -1 for positional operations")
+	int visited;
+
+	@Label("Size")
+	int size;
+
+	@Label("Express Lists")
+	int skips;
+}
@@ -0,0 +1,196 @@
+package test;
+
+import skiplist.BlockedSkipList;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link BlockedSkipList}. Small blocks are used so that every split, merge and unlink can be
+ * followed through {@link BlockedSkipList#blocks()}.
+ */
+public class BlockedSkipListTest {
+
+	private static List<Integer> keys(BlockedSkipList<Integer, Integer> list) {
+		List<Integer> keys = new ArrayList<>();
+		for (Map.Entry<Integer, Integer> entry : list) {
+			assertEquals(entry.getKey(), entry.getValue());
+			keys.add(entry.getKey());
+		}
+		return keys;
+	}
+
+	private static void assertPresent(boolean[] present, BlockedSkipList<Integer, Integer> list) {
+		int size = 0;
+		for (int key = 0; key < present.length; key++) {
+			assertEquals(present[key], list.contains(key));
+			assertEquals(present[key] ? Integer.valueOf(key) : null, list.get(key));
+			if (present[key])
+				size++;
+		}
+		assertEquals(size, list.size());
+		assertEquals(size, keys(list).size());
+	}
+
+	@Test
+	public void testSplit() {
+		BlockedSkipList<Integer, Integer> list = new BlockedSkipList<>(null, 4);
+		for (int key : new int[] { 10, 20, 30, 40 })
+			list.put(key, key);
+		assertEquals(1, list.blocks());
+
+		// 25 belongs at index 2, which is the count of the lower half, so it ends the lower block instead of starting the upper one
+		list.put(25, 25);
+		assertEquals(2, list.blocks());
+		assertEquals(Arrays.asList(10, 20, 25, 30, 40), keys(list));
+		// [10, 20, 25] has room for one key only
+		list.put(15, 15);
+		assertEquals(2, list.blocks());
+		list.put(12, 12);
+		assertEquals(3, list.blocks());
+
+		// past the lower half, the key goes to the upper block: [30, 35, 40, 45] splits into [30, 35] and [40, 45, 50]
+		list.put(35, 35);
+		list.put(45, 45);
+		assertEquals(3, list.blocks());
+		list.put(50, 50);
+		assertEquals(4, list.blocks());
+
+		// a key less than every key starts the first block: [5, 10, 12, 15] splits into [1, 5, 10] and [12, 15]
+		list.put(5, 5);
+		assertEquals(4, list.blocks());
+		list.put(1, 1);
+		assertEquals(5, list.blocks());
+
+		List<Integer> expected = Arrays.asList(1, 5, 10, 12, 15, 20, 25, 30, 35, 40, 45, 50);
+		assertEquals(expected, keys(list));
+		for (Integer key : expected)
+			assertEquals(key, list.get(key));
+		assertEquals(expected.size(), list.size());
+	}
+
+	@Test
+	public void testMergeThreshold() {
+		// minFill is 2, two blocks are merged if they fit in 6 keys
+		BlockedSkipList<Integer, Integer> list = new BlockedSkipList<>(null, 8);
+		for (int i = 0; i <= 9; i++)
+			list.put(i, i);
+		// [0, 1, 2, 3] and [4, ..., 9]
+		assertEquals(2, list.blocks());
+
+		list.remove(0);
+		list.remove(1);
+		// [2, 3] is not below minFill
+		assertEquals(2, list.blocks());
+		list.remove(2);
+		// [3] is below minFill, but [3] and [4, ..., 9] are 7 keys
+		assertEquals(2, list.blocks());
+
+		list.remove(9);
+		list.put(2, 2);
+		list.remove(2);
+		// [3] and [4, ..., 8] are 6 keys
+		assertEquals(1, list.blocks());
+		assertEquals(Arrays.asList(3, 4, 5, 6, 7, 8), keys(list));
+
+		// the merged block is split when it is full again
+		list.put(9, 9);
+		list.put(10, 10);
+		assertEquals(1, list.blocks());
+		list.put(11, 11);
+		assertEquals(2, list.blocks());
+		assertEquals(Arrays.asList(3, 4, 5, 6, 7, 8, 9, 10, 11), keys(list));
+	}
+
+	@Test
+	public void testUnlinkAfterFirstKeyRemoved() {
+		BlockedSkipList<Integer, Integer> list = new BlockedSkipList<>(null, 8);
+		int n = 4000;
+		for (int i = 0; i < n; i++)
+			list.put(i, i);
+		// ascending keys leave blocks of four keys [4b, 4b + 4), enough of them to be in several express lists,
+		// the last few blocks are left alone
+		int full = n - 16;
+		int tail = list.blocks() - full / 4;
+		boolean[] present = new boolean[n];
+		Arrays.fill(present, true);
+
+		// the blocks keep their place in the express lists while their first keys change
+		for (int key = 0; key < full; key += 4) {
+			list.remove(key);
+			present[key] = false;
+		}
+		assertEquals(full / 4 + tail, list.blocks());
+		assertPresent(present, list);
+
+		// [8j + 3] is merged with [8j + 5, 8j + 6, 8j + 7], whose predecessors are found by the key it starts with now
+		for (int key = 0; key < full; key += 8) {
+			list.remove(key + 1);
+			list.remove(key + 2);
+			present[key + 1] = present[key + 2] = false;
+		}
+		assertEquals(full / 8 + tail, list.blocks());
+		assertPresent(present, list);
+
+		// every remove takes the first key of a block until the block is unlinked
+		for (int key = 0; key < full; key++) {
+			list.remove(key);
+			present[key] = false;
+		}
+		assertEquals(tail, list.blocks());
+		assertPresent(present, list);
+
+		for (int key = full; key < n; key++)
+			list.remove(key);
+		assertEquals(0, list.blocks());
+		assertTrue(list.isEmpty());
+		assertNull(list.remove(1));
+		assertNull(list.put(1, 1));
+		assertEquals(1, list.blocks());
+	}
+
+	@Test
+	public void testBlockFill() {
+		BlockedSkipList<Integer, Integer> list = new BlockedSkipList<>();
+		int n = 100000;
+		for (int i = 0; i < n; i++)
+			list.put(i, i);
+		// ascending keys fill the last block, which is split in half when full
+		assertTrue(list.blocks() <= 2 * n / list.blockSize() + 1);
+
+		// descending keys fill the first block in the same way
+		BlockedSkipList<Integer, Integer> reversed = new BlockedSkipList<>(Comparator.reverseOrder(), 16);
+		for (int i = 0; i < n; i++)
+			reversed.put(i, i);
+		assertTrue(reversed.blocks() <= 2 * n / 16 + 1);
+		assertEquals(Integer.valueOf(n - 1), reversed.iterator().next().getKey());
+
+		// removing most keys merges the blocks that are left sparse
+		Random rand = new Random(7);
+		for (int i = 0; i < n; i++) {
+			if (rand.nextInt(8) != 0)
+				list.remove(i);
+		}
+		assertTrue(list.blocks() < list.size() / 2);
+		for (int i = 0; i < n; i++)
+			assertEquals(list.contains(i) ? Integer.valueOf(i) : null, list.get(i));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBlockSizeTooSmall() {
+		new BlockedSkipList<Integer, Integer>(null, 3);
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void testNullKey() {
+		new BlockedSkipList<Integer, Integer>().put(null, 1);
+	}
+}
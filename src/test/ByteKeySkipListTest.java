@@ -0,0 +1,106 @@
+package test;
+
+import skiplist.ByteKeySkipList;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link ByteKeySkipList}, checked against a {@link TreeMap} ordered by {@link Arrays#compareUnsigned(byte[], byte[])}.
+ * Keys are drawn from a few byte values so that they share long prefixes, are prefixes of each other and differ in the sign bit.
+ */
+public class ByteKeySkipListTest {
+
+	private static final byte[] ALPHABET = { 0, 1, 0x7f, (byte) 0x80, (byte) 0xff };
+
+	private static byte[] randomKey(Random rand) {
+		byte[] key = new byte[rand.nextInt(7)];
+		for (int i = 0; i < key.length; i++)
+			key[i] = ALPHABET[rand.nextInt(i < 3 ? 2 : ALPHABET.length)];
+		return key;
+	}
+
+	private static void assertMatches(TreeMap<byte[], Integer> oracle, ByteKeySkipList<Integer> list) {
+		assertEquals(oracle.size(), list.size());
+		Iterator<Map.Entry<byte[], Integer>> expected = oracle.entrySet().iterator();
+		for (Map.Entry<byte[], Integer> entry : list) {
+			Map.Entry<byte[], Integer> expectedEntry = expected.next();
+			assertArrayEquals(expectedEntry.getKey(), entry.getKey());
+			assertEquals(expectedEntry.getValue(), entry.getValue());
+		}
+		assertFalse(expected.hasNext());
+	}
+
+	@Test
+	public void testAgainstTreeMap() {
+		ByteKeySkipList<Integer> list = new ByteKeySkipList<>();
+		TreeMap<byte[], Integer> oracle = new TreeMap<>(Arrays::compareUnsigned);
+		Random rand = new Random(3);
+
+		for (int n = 0; n < 30000; n++) {
+			byte[] key = randomKey(rand);
+			switch (rand.nextInt(3)) {
+			case 0:
+				assertEquals(oracle.put(key, n), list.put(key, n));
+				break;
+			case 1:
+				if (!oracle.isEmpty())
+					assertEquals(oracle.remove(key), list.remove(key));
+				break;
+			case 2:
+				assertEquals(oracle.get(key), list.get(key));
+				assertEquals(oracle.containsKey(key), list.contains(key));
+				break;
+			}
+			assertEquals(oracle.size(), list.size());
+			if (n % 1000 == 0)
+				assertMatches(oracle, list);
+		}
+		assertMatches(oracle, list);
+
+		while (!oracle.isEmpty()) {
+			byte[] key = oracle.firstKey();
+			assertEquals(oracle.remove(key), list.remove(key));
+		}
+		assertMatches(oracle, list);
+	}
+
+	@Test
+	public void testSharedPrefixes() {
+		ByteKeySkipList<Integer> list = new ByteKeySkipList<>();
+		TreeMap<byte[], Integer> oracle = new TreeMap<>(Arrays::compareUnsigned);
+		Random rand = new Random(4);
+		for (int n = 0; n < 2000; n++) {
+			byte[] key = ("https://example.com/catalog/" + rand.nextInt(50) + "/item-" + rand.nextInt(100)).getBytes(StandardCharsets.UTF_8);
+			assertEquals(oracle.put(key, n), list.put(key, n));
+		}
+		assertMatches(oracle, list);
+		assertNull(list.get("https://example.com/catalog/".getBytes(StandardCharsets.UTF_8)));
+		assertNull(list.get("https://example.com/catalog/1/item-1000".getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	public void testKeysAreCopied() {
+		ByteKeySkipList<String> list = new ByteKeySkipList<>();
+		byte[] key = { 1, 2, 3 };
+		list.put(key, "a");
+		list.put(new byte[] { 1, 2, 4 }, "b");
+		key[2] = 9;
+		assertEquals("a", list.get(new byte[] { 1, 2, 3 }));
+		list.iterator().next().getKey()[0] = 9;
+		assertEquals("{[1, 2, 3]=a, [1, 2, 4]=b}", list.toString());
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void testNullKey() {
+		new ByteKeySkipList<String>().put(null, "a");
+	}
+}
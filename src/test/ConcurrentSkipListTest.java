@@ -0,0 +1,282 @@
+package test;
+
+import skiplist.ConcurrentSkipList;
+import skiplist.ConcurrentSkipList.Node;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ConcurrentSkipList}. The multi-threaded tests check every operation against a sequential
+ * model: either each thread owns a disjoint set of keys, so every result must match its own TreeMap, or all
+ * threads race on the same keys and the recorded results must reconcile with a sequential execution.
+ * The reconciliation checks counts and which values were returned, not the real-time order of the calls,
+ * so it is not a linearizability check: a history whose calls could only be ordered against their timing would pass.
+ */
+public class ConcurrentSkipListTest {
+
+	private static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+	private ConcurrentSkipList<Integer, Integer> list;
+	private ExecutorService pool;
+
+	@Before
+	public void setUp() {
+		list = new ConcurrentSkipList<>();
+		pool = Executors.newFixedThreadPool(THREADS);
+	}
+
+	@After
+	public void tearDown() throws InterruptedException {
+		pool.shutdownNow();
+		assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+	}
+
+	private void assertMatches(TreeMap<Integer, Integer> oracle) {
+		assertEquals(oracle.size(), list.size());
+		assertEquals(oracle.toString(), list.toString());
+		Iterator<Map.Entry<Integer, Integer>> expected = oracle.entrySet().iterator();
+		for (Node<Integer, Integer> node : list) {
+			Map.Entry<Integer, Integer> entry = expected.next();
+			assertEquals(entry.getKey(), node.getKey());
+			assertEquals(entry.getValue(), node.getValue());
+		}
+		assertFalse(expected.hasNext());
+	}
+
+	private <T> List<T> runAll(List<Callable<T>> tasks) throws Exception {
+		List<T> results = new ArrayList<>();
+		for (Future<T> future : pool.invokeAll(tasks, 2, TimeUnit.MINUTES))
+			results.add(future.get());
+		return results;
+	}
+
+	@Test
+	public void testSequentialAgainstTreeMap() {
+		TreeMap<Integer, Integer> oracle = new TreeMap<>();
+		Random rand = new Random(1);
+		for (int n = 0; n < 20000; n++) {
+			Integer key = rand.nextInt(500);
+			switch (rand.nextInt(4)) {
+			case 0:
+			case 1:
+				assertEquals(oracle.put(key, n), list.put(key, n));
+				break;
+			case 2:
+				assertEquals(oracle.remove(key), list.remove(key));
+				break;
+			case 3:
+				assertEquals(oracle.get(key), list.get(key));
+				assertEquals(oracle.containsKey(key), list.contains(key));
+				break;
+			}
+		}
+		assertMatches(oracle);
+		assertEquals(oracle.firstEntry().getValue(), list.get(0));
+		assertEquals(oracle.lastEntry().getValue(), list.get(oracle.size() - 1));
+		list.clear();
+		assertTrue(list.isEmpty());
+		assertEquals(0, list.size());
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void testNullValue() {
+		list.put(1, null);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testGetIndexAboveMax() {
+		list.put(1, 1);
+		list.get(1);
+	}
+
+	/** Each writer owns the keys equal to its id modulo the number of writers, so every result is determined
+	 * 	by that thread's own history, while readers iterate over the whole list concurrently. */
+	@Test
+	public void testDisjointKeysAgainstSequentialModels() throws Exception {
+		final int operations = 50000;
+		final AtomicBoolean running = new AtomicBoolean(true);
+		List<Callable<TreeMap<Integer, Integer>>> writers = new ArrayList<>();
+		for (int t = 0; t < THREADS - 1; t++) {
+			final int id = t;
+			writers.add(() -> {
+				TreeMap<Integer, Integer> model = new TreeMap<>();
+				Random rand = new Random(id);
+				for (int n = 0; n < operations; n++) {
+					Integer key = rand.nextInt(2000) * (THREADS - 1) + id;
+					switch (rand.nextInt(3)) {
+					case 0:
+						assertEquals(model.put(key, n), list.put(key, n));
+						break;
+					case 1:
+						assertEquals(model.remove(key), list.remove(key));
+						break;
+					case 2:
+						assertEquals(model.get(key), list.get(key));
+						break;
+					}
+				}
+				return model;
+			});
+		}
+		Future<Integer> reader = pool.submit(() -> {
+			int iterations = 0;
+			while (running.get()) {
+				Integer previous = null;
+				for (Node<Integer, Integer> node : list) {
+					if (previous != null)
+						assertTrue(previous < node.getKey());
+					previous = node.getKey();
+				}
+				iterations++;
+			}
+			return iterations;
+		});
+
+		TreeMap<Integer, Integer> oracle = new TreeMap<>();
+		try {
+			for (TreeMap<Integer, Integer> model : runAll(writers))
+				oracle.putAll(model);
+		} finally {
+			running.set(false);
+		}
+		assertTrue(reader.get() > 0);
+		assertMatches(oracle);
+	}
+
+	/** All threads mix put, remove and get on the same few keys and record each call with its result. Every written
+	 * 	value is unique, so in any sequential execution each value of a key is returned by exactly one later put or remove
+	 * 	of that key, except the value left in the list, and successful inserts and removes differ by its presence. */
+	@Test
+	public void testContendedMixedOperationsReconcile() throws Exception {
+		final int keys = 16, operations = 30000;
+		final int put = 0, remove = 1, get = 2;
+		final CountDownLatch start = new CountDownLatch(THREADS);
+		List<Callable<List<int[]>>> workers = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			final int id = t;
+			workers.add(() -> {
+				List<int[]> history = new ArrayList<>();
+				Random rand = new Random(id);
+				start.countDown();
+				start.await();
+				for (int n = 0; n < operations; n++) {
+					int operation = rand.nextInt(3), written = id * operations + n;
+					Integer key = rand.nextInt(keys);
+					Integer returned = operation == put ? list.put(key, written)
+							: operation == remove ? list.remove(key) : list.get(key);
+					history.add(new int[] { operation, key, written, returned == null ? -1 : returned });
+				}
+				return history;
+			});
+		}
+
+		List<Set<Integer>> written = new ArrayList<>(), consumed = new ArrayList<>(), read = new ArrayList<>();
+		for (int k = 0; k < keys; k++) {
+			written.add(new HashSet<>());
+			consumed.add(new HashSet<>());
+			read.add(new HashSet<>());
+		}
+		int[] inserted = new int[keys], removed = new int[keys];
+		for (List<int[]> history : runAll(workers)) {
+			for (int[] call : history) {
+				int operation = call[0], key = call[1], returned = call[3];
+				if (operation == put) {
+					written.get(key).add(call[2]);
+					if (returned < 0)
+						inserted[key]++;
+				} else if (operation == remove && returned >= 0) {
+					removed[key]++;
+				}
+				if (returned >= 0 && operation != get)
+					assertTrue("value returned twice: " + returned, consumed.get(key).add(returned));
+				else if (returned >= 0)
+					read.get(key).add(returned);
+			}
+		}
+
+		int present = 0;
+		for (int k = 0; k < keys; k++) {
+			Integer last = list.get((Integer) k);
+			int live = last == null ? 0 : 1;
+			present += live;
+			assertEquals(live, inserted[k] - removed[k]);
+			assertEquals(live, written.get(k).size() - consumed.get(k).size());
+			assertTrue(written.get(k).containsAll(consumed.get(k)));
+			assertTrue(written.get(k).containsAll(read.get(k)));
+			if (last != null) {
+				assertTrue(written.get(k).contains(last));
+				assertFalse(consumed.get(k).contains(last));
+			}
+		}
+		assertEquals(present, list.size());
+	}
+
+	/** All threads race to add and then remove the same keys, exactly one add and one remove per key may succeed. */
+	@Test
+	public void testContendedKeysSucceedOnce() throws Exception {
+		final int keys = 20000;
+		final CountDownLatch start = new CountDownLatch(THREADS);
+		List<Callable<Integer>> adders = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			final int id = t;
+			adders.add(() -> {
+				start.countDown();
+				start.await();
+				int inserted = 0;
+				for (int k = 0; k < keys; k++) {
+					int key = (k * 7919 + id * 31) % keys;
+					if (list.put(key, id) == null)
+						inserted++;
+				}
+				return inserted;
+			});
+		}
+		int inserted = 0;
+		for (int count : runAll(adders))
+			inserted += count;
+		assertEquals(keys, inserted);
+		assertEquals(keys, list.size());
+
+		final CountDownLatch removeStart = new CountDownLatch(THREADS);
+		List<Callable<Integer>> removers = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			final int id = t;
+			removers.add(() -> {
+				removeStart.countDown();
+				removeStart.await();
+				int removed = 0;
+				for (int k = 0; k < keys; k++) {
+					if (list.remove((k * 104729 + id * 17) % keys) != null)
+						removed++;
+				}
+				return removed;
+			});
+		}
+		int removed = 0;
+		for (int count : runAll(removers))
+			removed += count;
+		assertEquals(keys, removed);
+		assertEquals(0, list.size());
+		assertTrue(list.isEmpty());
+	}
+}
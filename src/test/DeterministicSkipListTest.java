@@ -0,0 +1,177 @@
+package test;
+
+import skiplist.DeterministicSkipList;
+import skiplist.SkipList;
+import skiplist.SkipList.Node;
+import skiplist.SkipList.Promotion;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+public class DeterministicSkipListTest {
+
+	/** Returns the keys of every list, index 0 being the full list */
+	private static List<List<Integer>> lists(SkipList<Integer, ?> list) {
+		return Arrays.stream(list.toStringWithExpress().split("\n"))
+				.map(level -> level.equals("[]") ? new ArrayList<Integer>()
+						: Arrays.stream(level.substring(1, level.length() - 1).split(", ")).map(Integer::valueOf).collect(Collectors.toList()))
+				.collect(Collectors.toList());
+	}
+
+	/** Asserts that every gap of every list holds 1 to 3 nodes, the last gap of a list 0 to 3 */
+	private static void assertGaps(SkipList<Integer, ?> list) {
+		List<List<Integer>> lists = lists(list);
+		for (int level = 0; level < lists.size(); level++) {
+			Set<Integer> above = level + 1 < lists.size() ? new HashSet<>(lists.get(level + 1)) : new HashSet<>();
+			int gap = 0;
+			for (Integer key : lists.get(level)) {
+				if (above.contains(key)) {
+					assertTrue("gap of " + gap + " before " + key + " in list " + level, gap >= 1 && gap <= 3);
+					gap = 0;
+				} else {
+					gap++;
+				}
+			}
+			assertTrue("last gap of " + gap + " in list " + level, gap <= 3);
+			if (level > 0)
+				assertFalse("empty express list " + level, lists.get(level).isEmpty());
+		}
+		assertTrue(lists.size() <= 1 + 31 - Integer.numberOfLeadingZeros(Math.max(list.size(), 1)));
+	}
+
+	private static void assertContents(TreeMap<Integer, Integer> expected, SkipList<Integer, Integer> list) {
+		assertEquals(expected.size(), list.size());
+		int index = 0;
+		for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+			assertEquals(entry.getValue(), list.get(entry.getKey()));
+			assertEquals(entry.getValue(), list.get(index));
+			assertEquals(index, list.indexOf(entry.getKey()));
+			index++;
+		}
+		Iterator<Node<Integer, Integer>> descending = list.descendingIterator();
+		for (Integer key : expected.descendingKeySet())
+			assertEquals(key, descending.next().getKey());
+		assertFalse(descending.hasNext());
+	}
+
+	@Test
+	public void testAscendingAndDescending() {
+		DeterministicSkipList<Integer, Integer> list = new DeterministicSkipList<>();
+		for (int i = 0; i < 1000; i++) {
+			list.add(i, i);
+			assertGaps(list);
+		}
+		for (int i = 999; i >= 0; i -= 2) {
+			assertEquals(i, list.remove((Object) i).getKey().intValue());
+			assertGaps(list);
+		}
+		for (int i = 0; i < 1000; i += 2) {
+			list.remove((Object) i);
+			assertGaps(list);
+		}
+		assertTrue(list.isEmpty());
+		assertEquals("[]\n", list.toStringWithExpress());
+
+		for (int i = 1000; i > 0; i--)
+			list.add(i, i);
+		assertGaps(list);
+		assertEquals(Integer.valueOf(1), list.iterator().next().getKey());
+	}
+
+	@Test
+	public void testRandomOperations() {
+		Random rand = new Random(1);
+		DeterministicSkipList<Integer, Integer> list = new DeterministicSkipList<>();
+		TreeMap<Integer, Integer> expected = new TreeMap<>();
+		for (int n = 0; n < 20000; n++) {
+			int key = rand.nextInt(600);
+			switch (rand.nextInt(5)) {
+			case 0:
+			case 1:
+				assertEquals(expected.put(key, n), list.put(key, n));
+				break;
+			case 2:
+				Node<Integer, Integer> removed = list.remove((Object) key);
+				assertEquals(expected.remove(key), removed == null ? null : removed.getValue());
+				break;
+			case 3:
+				// removes odd values and adds absent keys
+				int value = n;
+				assertEquals(expected.compute(key, (k, v) -> v != null && v % 2 == 1 ? null : value),
+						list.compute(key, (k, v) -> v != null && v % 2 == 1 ? null : value));
+				break;
+			default:
+				if (!expected.isEmpty()) {
+					int index = rand.nextInt(expected.size());
+					Integer at = new ArrayList<>(expected.keySet()).get(index);
+					assertEquals(at, list.removeAt(index).getKey());
+					expected.remove(at);
+				}
+			}
+			if (n % 100 == 0) {
+				assertGaps(list);
+				assertContents(expected, list);
+			}
+		}
+		assertGaps(list);
+		assertContents(expected, list);
+	}
+
+	@Test
+	public void testRemovedNodesKeepTheirIdentity() {
+		DeterministicSkipList<String, Integer> list = new DeterministicSkipList<>(String.CASE_INSENSITIVE_ORDER);
+		List<Node<String, Integer>> nodes = new ArrayList<>();
+		for (int i = 0; i < 100; i++)
+			list.add(String.format("Key%03d", i), i);
+		for (Node<String, Integer> node : list)
+			nodes.add(node);
+		for (int i = 0; i < 100; i++) {
+			Node<String, Integer> removed = list.remove((Object) String.format("key%03d", (i * 37) % 100));
+			assertSame(nodes.get((i * 37) % 100), removed);
+		}
+		assertTrue(list.isEmpty());
+	}
+
+	@Test
+	public void testSplitConcatAndUnionKeepGaps() {
+		DeterministicSkipList<Integer, Integer> list = new DeterministicSkipList<>();
+		DeterministicSkipList<Integer, Integer> other = new DeterministicSkipList<>();
+		for (int i = 0; i < 500; i++) {
+			list.add(i, i);
+			other.add(i * 3, i);
+		}
+		SkipList<Integer, Integer> right = list.split(123);
+		assertGaps(list);
+		assertGaps(right);
+		list.concat(right);
+		assertGaps(list);
+		SkipList<Integer, Integer> merged = SkipList.union(list, other, Integer::sum);
+		assertGaps(merged);
+		assertEquals(500 + 500 - 167, merged.size());
+	}
+
+	@Test
+	public void testRebalanceKeepsGaps() {
+		DeterministicSkipList<Integer, Integer> list = new DeterministicSkipList<>();
+		for (int i = 0; i < 777; i++)
+			list.add(i, i);
+		list.rebalance(Promotion.RANDOM);
+		assertGaps(list);
+		for (int i = 0; i < 777; i += 3)
+			list.remove((Object) i);
+		assertGaps(list);
+		assertEquals(2, list.probability());
+	}
+}
@@ -0,0 +1,193 @@
+package test;
+
+import skiplist.DurableSkipList;
+import skiplist.DurableSkipList.FsyncPolicy;
+import skiplist.Serializer;
+import skiplist.SkipList;
+import skiplist.SkipList.Node;
+import skiplist.SkipListFormat;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DurableSkipListTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private DurableSkipList<Integer, String> open(Path directory, FsyncPolicy policy, long snapshotBytes) throws IOException {
+		return new DurableSkipList<>(directory, Serializer.INTEGER, Serializer.STRING, policy, 10, snapshotBytes);
+	}
+
+	/** Applies random adds and removes to both lists */
+	private static void modify(DurableSkipList<Integer, String> list, TreeMap<Integer, String> oracle, Random rand, int operations) {
+		for (int n = 0; n < operations; n++) {
+			Integer key = rand.nextInt(1000);
+			if (rand.nextInt(3) == 0 && !oracle.isEmpty()) {
+				Node<Integer, String> removed = list.remove(key);
+				assertEquals(oracle.remove(key), removed == null ? null : removed.getValue());
+			} else {
+				assertEquals(oracle.put(key, "v" + n), list.put(key, "v" + n));
+			}
+		}
+	}
+
+	private static void assertMatches(TreeMap<Integer, String> oracle, DurableSkipList<Integer, String> list) {
+		assertEquals(oracle.size(), list.size());
+		assertEquals(oracle.toString(), list.toString());
+		Iterator<Map.Entry<Integer, String>> expected = oracle.entrySet().iterator();
+		for (Node<Integer, String> node : list) {
+			Map.Entry<Integer, String> entry = expected.next();
+			assertEquals(entry.getKey(), node.getKey());
+			assertEquals(entry.getValue(), node.getValue());
+		}
+		assertFalse(expected.hasNext());
+	}
+
+	@Test
+	public void testReopenEveryPolicy() throws IOException {
+		for (FsyncPolicy policy : FsyncPolicy.values()) {
+			Path directory = folder.getRoot().toPath().resolve(policy.name());
+			TreeMap<Integer, String> oracle = new TreeMap<>();
+			Random rand = new Random(policy.ordinal());
+			try (DurableSkipList<Integer, String> list = open(directory, policy, Long.MAX_VALUE)) {
+				modify(list, oracle, rand, 3000);
+			}
+			try (DurableSkipList<Integer, String> list = open(directory, policy, Long.MAX_VALUE)) {
+				assertMatches(oracle, list);
+				list.snapshot();
+				assertEquals(0, list.logSize());
+				modify(list, oracle, rand, 3000);
+			}
+			try (DurableSkipList<Integer, String> list = open(directory, policy, Long.MAX_VALUE)) {
+				assertMatches(oracle, list);
+			}
+		}
+	}
+
+	/** The directory is opened again without closing the first list, as after a crash of the process */
+	@Test
+	public void testRecoverWithoutClose() throws IOException {
+		for (FsyncPolicy policy : FsyncPolicy.values()) {
+			Path directory = folder.getRoot().toPath().resolve(policy.name());
+			TreeMap<Integer, String> oracle = new TreeMap<>();
+			DurableSkipList<Integer, String> crashed = open(directory, policy, 16 * 1024);
+			modify(crashed, oracle, new Random(policy.ordinal()), 5000);
+			assertTrue(crashed.logSize() < 16 * 1024);
+
+			try (DurableSkipList<Integer, String> list = open(directory, policy, 16 * 1024)) {
+				assertMatches(oracle, list);
+			}
+		}
+	}
+
+	@Test
+	public void testTornLogRecordIsDropped() throws IOException {
+		Path directory = folder.getRoot().toPath();
+		TreeMap<Integer, String> oracle = new TreeMap<>();
+		try (DurableSkipList<Integer, String> list = open(directory, FsyncPolicy.NEVER, Long.MAX_VALUE)) {
+			modify(list, oracle, new Random(7), 1000);
+		}
+		Path log = directory.resolve("log");
+		long size = Files.size(log);
+		Files.write(log, new byte[] { 0x12, 0x34, 0x56, 0x78, 0, 0, 0, 4, 0, 0, 0, 9, 1, 2 }, StandardOpenOption.APPEND);
+
+		try (DurableSkipList<Integer, String> list = open(directory, FsyncPolicy.NEVER, Long.MAX_VALUE)) {
+			assertMatches(oracle, list);
+			assertEquals(size, Files.size(log));
+			list.add(-1, "after");
+			oracle.put(-1, "after");
+		}
+		try (DurableSkipList<Integer, String> list = open(directory, FsyncPolicy.NEVER, Long.MAX_VALUE)) {
+			assertMatches(oracle, list);
+		}
+	}
+
+	@Test
+	public void testSnapshotIsSkipListFormat() throws IOException {
+		Path directory = folder.getRoot().toPath();
+		TreeMap<Integer, String> oracle = new TreeMap<>();
+		try (DurableSkipList<Integer, String> list = open(directory, FsyncPolicy.NEVER, Long.MAX_VALUE)) {
+			modify(list, oracle, new Random(9), 1000);
+			list.snapshot();
+		}
+		try (InputStream in = Files.newInputStream(directory.resolve("snapshot"))) {
+			SkipList<Integer, String> snapshot = new SkipListFormat<>(Serializer.INTEGER, Serializer.STRING).read(in);
+			assertEquals(oracle.size(), snapshot.size());
+			for (Map.Entry<Integer, String> entry : oracle.entrySet())
+				assertEquals(entry.getValue(), snapshot.get(entry.getKey()));
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testDamagedSnapshot() throws IOException {
+		Path directory = folder.getRoot().toPath();
+		try (DurableSkipList<Integer, String> list = open(directory, FsyncPolicy.NEVER, Long.MAX_VALUE)) {
+			modify(list, new TreeMap<>(), new Random(8), 100);
+			list.snapshot();
+		}
+		Path snapshot = directory.resolve("snapshot");
+		byte[] bytes = Files.readAllBytes(snapshot);
+		bytes[bytes.length / 2] ^= 1;
+		Files.write(snapshot, bytes);
+		open(directory, FsyncPolicy.NEVER, Long.MAX_VALUE);
+	}
+
+	/** Writers own disjoint keys and commit in groups, the reopened list must hold every thread's final state */
+	@Test
+	public void testConcurrentGroupCommit() throws Exception {
+		Path directory = folder.getRoot().toPath();
+		final int threads = 4;
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		TreeMap<Integer, String> oracle = new TreeMap<>();
+		try (DurableSkipList<Integer, String> list = open(directory, FsyncPolicy.EVERY_WRITE, 8 * 1024)) {
+			List<Callable<TreeMap<Integer, String>>> writers = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				final int id = t;
+				writers.add(() -> {
+					TreeMap<Integer, String> model = new TreeMap<>();
+					Random rand = new Random(id);
+					for (int n = 0; n < 300; n++) {
+						Integer key = rand.nextInt(100) * threads + id;
+						if (rand.nextInt(3) == 0) {
+							model.remove(key);
+							if (list.contains(key))
+								list.remove(key);
+						} else {
+							model.put(key, id + ":" + n);
+							list.add(key, id + ":" + n);
+						}
+					}
+					return model;
+				});
+			}
+			for (Future<TreeMap<Integer, String>> future : pool.invokeAll(writers))
+				oracle.putAll(future.get());
+			assertMatches(oracle, list);
+		} finally {
+			pool.shutdownNow();
+		}
+		try (DurableSkipList<Integer, String> list = open(directory, FsyncPolicy.EVERY_WRITE, 8 * 1024)) {
+			assertMatches(oracle, list);
+		}
+	}
+}
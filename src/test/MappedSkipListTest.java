@@ -0,0 +1,137 @@
+package test;
+
+import skiplist.MappedSkipList;
+import skiplist.Serializer;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedSkipListTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private MappedSkipList<Integer, String> open(Path file) throws IOException {
+		return new MappedSkipList<>(file, Serializer.INTEGER, Serializer.STRING, 4096);
+	}
+
+	/** Applies random adds and removes to both lists */
+	private static void modify(MappedSkipList<Integer, String> list, TreeMap<Integer, String> oracle, Random rand, int operations) {
+		for (int n = 0; n < operations; n++) {
+			Integer key = rand.nextInt(2000);
+			if (rand.nextInt(3) == 0 && !oracle.isEmpty())
+				assertEquals(oracle.remove(key), list.remove(key));
+			else
+				assertEquals(oracle.put(key, "v" + n), list.add(key, "v" + n));
+		}
+	}
+
+	private static void assertMatches(TreeMap<Integer, String> oracle, MappedSkipList<Integer, String> list) {
+		assertEquals(oracle.size(), list.size());
+		assertEquals(oracle.toString(), list.toString());
+		Iterator<Map.Entry<Integer, String>> expected = oracle.entrySet().iterator();
+		for (Map.Entry<Integer, String> entry : list)
+			assertEquals(expected.next(), entry);
+		assertFalse(expected.hasNext());
+		for (int key = -1; key <= 2000; key++)
+			assertEquals(oracle.get(key), list.get((Object) key));
+	}
+
+	@Test
+	public void testReopenAfterClose() throws IOException {
+		Path file = folder.getRoot().toPath().resolve("list");
+		TreeMap<Integer, String> oracle = new TreeMap<>();
+		Random rand = new Random(1);
+
+		try (MappedSkipList<Integer, String> list = open(file)) {
+			assertFalse(list.isRecovered());
+			modify(list, oracle, rand, 20000);
+		}
+		assertTrue(Files.size(file) > 4096);
+
+		try (MappedSkipList<Integer, String> list = open(file)) {
+			assertFalse(list.isRecovered());
+			assertMatches(oracle, list);
+			modify(list, oracle, rand, 5000);
+			assertMatches(oracle, list);
+		}
+		try (MappedSkipList<Integer, String> list = open(file)) {
+			assertMatches(oracle, list);
+			list.clear();
+			assertTrue(list.isEmpty());
+		}
+		try (MappedSkipList<Integer, String> list = open(file)) {
+			assertTrue(list.isEmpty());
+			assertEquals("{}", list.toString());
+		}
+	}
+
+	/** The file is opened again while the first list is still mapped and dirty, as after a crash of the process */
+	@Test
+	public void testRecoverWithoutClose() throws IOException {
+		Path file = folder.getRoot().toPath().resolve("list");
+		TreeMap<Integer, String> oracle = new TreeMap<>();
+		Random rand = new Random(2);
+
+		MappedSkipList<Integer, String> crashed = open(file);
+		modify(crashed, oracle, rand, 10000);
+		crashed.force();
+		modify(crashed, oracle, rand, 10000);
+
+		try (MappedSkipList<Integer, String> list = open(file)) {
+			assertTrue(list.isRecovered());
+			assertMatches(oracle, list);
+			modify(list, oracle, rand, 5000);
+			assertMatches(oracle, list);
+		}
+		try (MappedSkipList<Integer, String> list = open(file)) {
+			assertFalse(list.isRecovered());
+			assertMatches(oracle, list);
+		}
+		crashed.close();
+	}
+
+	@Test
+	public void testDamagedHeaderSlot() throws IOException {
+		Path file = folder.getRoot().toPath().resolve("list");
+		TreeMap<Integer, String> oracle = new TreeMap<>();
+		try (MappedSkipList<Integer, String> list = open(file)) {
+			modify(list, oracle, new Random(3), 5000);
+		}
+		try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+			raf.seek(100);
+			raf.writeInt(0xdeadbeef);
+		}
+		try (MappedSkipList<Integer, String> list = open(file)) {
+			assertMatches(oracle, list);
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testForeignFile() throws IOException {
+		Path file = folder.getRoot().toPath().resolve("list");
+		byte[] bytes = new byte[8192];
+		new Random(4).nextBytes(bytes);
+		Files.write(file, bytes);
+		open(file);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testAddAfterClose() throws IOException {
+		MappedSkipList<Integer, String> list = open(folder.getRoot().toPath().resolve("list"));
+		list.close();
+		list.add(1, "a");
+	}
+}
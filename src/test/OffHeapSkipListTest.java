@@ -0,0 +1,225 @@
+package test;
+
+import skiplist.OffHeapSkipList;
+import skiplist.Serializer;
+import skiplist.SkipList;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link OffHeapSkipList}, checked against a {@link TreeMap} oracle, and a comparison of the heap
+ * it retains with the heap retained by {@link SkipList}.
+ */
+public class OffHeapSkipListTest {
+
+	private static String randomString(Random rand) {
+		StringBuilder s = new StringBuilder();
+		for (int i = rand.nextInt(40); i >= 0; i--)
+			s.append((char) ('a' + rand.nextInt(26)));
+		if (rand.nextInt(10) == 0)
+			s.append("\u00e5\u4e2d\ud83d\ude00");
+		return s.toString();
+	}
+
+	private static void assertMatches(TreeMap<String, String> oracle, OffHeapSkipList<String, String> list) {
+		assertEquals(oracle.size(), list.size());
+		Iterator<Map.Entry<String, String>> expected = oracle.entrySet().iterator();
+		for (Map.Entry<String, String> entry : list)
+			assertEquals(expected.next(), entry);
+		assertFalse(expected.hasNext());
+		assertEquals(oracle.toString(), list.toString());
+	}
+
+	@Test
+	public void testAgainstTreeMap() {
+		// a tiny arena makes the list grow it many times
+		OffHeapSkipList<String, String> list = new OffHeapSkipList<>(Serializer.STRING, Serializer.STRING, 64);
+		TreeMap<String, String> oracle = new TreeMap<>();
+		Random rand = new Random(3);
+		String[] keys = new String[500];
+		for (int i = 0; i < keys.length; i++)
+			keys[i] = randomString(rand);
+
+		for (int n = 0; n < 30000; n++) {
+			String key = keys[rand.nextInt(keys.length)];
+			switch (rand.nextInt(3)) {
+			case 0:
+				String value = randomString(rand);
+				assertEquals(oracle.put(key, value), list.add(key, value));
+				break;
+			case 1:
+				if (!oracle.isEmpty())
+					assertEquals(oracle.remove(key), list.remove(key));
+				break;
+			case 2:
+				assertEquals(oracle.get(key), list.get(key));
+				assertEquals(oracle.containsKey(key), list.contains(key));
+				break;
+			}
+		}
+		assertMatches(oracle, list);
+		for (int i = 0; i < oracle.size(); i += 17)
+			assertEquals(oracle.values().toArray()[i], list.get(i));
+	}
+
+	@Test
+	public void testFreedRecordsAreReused() {
+		OffHeapSkipList<Integer, Long> list = new OffHeapSkipList<>(Serializer.INTEGER, Serializer.LONG);
+		for (int i = 0; i < 10000; i++)
+			list.add(i, (long) i);
+		for (int round = 0; round < 5; round++) {
+			long used = list.offHeapBytes();
+			for (int i = 0; i < 10000; i++)
+				assertEquals(Long.valueOf(i), list.remove(i));
+			assertTrue(list.isEmpty());
+			for (int i = 0; i < 10000; i++)
+				assertNull(list.add(i, (long) i));
+			// towers get new random heights, so a few records may land in a size class that ran out
+			assertTrue(list.offHeapBytes() < used + 10000);
+		}
+		list.clear();
+		assertEquals("{}", list.toString());
+	}
+
+	@Test
+	public void testSearchesDoNotDeserializeKeys() {
+		int[] reads = new int[1];
+		Serializer<Integer> counting = new Serializer<Integer>() {
+			@Override
+			public int size(Integer value) {
+				return Serializer.INTEGER.size(value);
+			}
+
+			@Override
+			public void write(Integer value, ByteBuffer buffer) {
+				Serializer.INTEGER.write(value, buffer);
+			}
+
+			@Override
+			public Integer read(ByteBuffer buffer, int length) {
+				reads[0]++;
+				return Serializer.INTEGER.read(buffer, length);
+			}
+
+			@Override
+			public int compare(ByteBuffer a, int aOffset, int aLength, ByteBuffer b, int bOffset, int bLength) {
+				return Serializer.INTEGER.compare(a, aOffset, aLength, b, bOffset, bLength);
+			}
+		};
+		OffHeapSkipList<Integer, Long> list = new OffHeapSkipList<>(counting, Serializer.LONG);
+		Random rand = new Random(5);
+		for (int i = 0; i < 10000; i++)
+			list.add(rand.nextInt(20000) - 10000, (long) i);
+		for (int i = -10000; i < 10000; i++) {
+			list.get((Integer) i);
+			list.contains(i);
+		}
+		for (int i = 0; i < 1000; i++)
+			list.remove(i);
+		assertEquals(0, reads[0]);
+
+		int previous = Integer.MIN_VALUE;
+		for (Map.Entry<Integer, Long> entry : list) {
+			assertTrue(entry.getKey() > previous);
+			previous = entry.getKey();
+		}
+	}
+
+	@Test
+	public void testStringsInStringOrder() {
+		// supplementary characters sort below U+E000 to U+FFFF in String order but above them in UTF-8
+		String[] chars = { "a", "\u00e5", "\u4e2d", "\ue000", "\uffff", "\ud83d\ude00", "\udbff\udfff" };
+		Random rand = new Random(6);
+		List<String> keys = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			StringBuilder key = new StringBuilder();
+			for (int j = rand.nextInt(4); j >= 0; j--)
+				key.append(chars[rand.nextInt(chars.length)]);
+			keys.add(key.toString());
+		}
+		ByteBuffer a = ByteBuffer.allocate(64);
+		ByteBuffer b = ByteBuffer.allocate(64);
+		for (int i = 0; i + 1 < keys.size(); i++) {
+			a.clear();
+			b.clear();
+			Serializer.STRING.write(keys.get(i), a);
+			Serializer.STRING.write(keys.get(i + 1), b);
+			assertEquals(Integer.signum(keys.get(i).compareTo(keys.get(i + 1))),
+					Integer.signum(Serializer.STRING.compare(a, 0, a.position(), b, 0, b.position())));
+		}
+
+		OffHeapSkipList<String, String> list = new OffHeapSkipList<>(Serializer.STRING, Serializer.STRING);
+		TreeMap<String, String> oracle = new TreeMap<>();
+		for (String key : keys) {
+			list.add(key, key);
+			oracle.put(key, key);
+		}
+		assertMatches(oracle, list);
+	}
+
+	@Test
+	public void testDefaultCompareDeserializes() {
+		Serializer<Long> plain = new Serializer<Long>() {
+			@Override
+			public int size(Long value) {
+				return Long.BYTES;
+			}
+
+			@Override
+			public void write(Long value, ByteBuffer buffer) {
+				buffer.putLong(value);
+			}
+
+			@Override
+			public Long read(ByteBuffer buffer, int length) {
+				return buffer.getLong();
+			}
+		};
+		OffHeapSkipList<Long, Long> list = new OffHeapSkipList<>(plain, plain);
+		for (long i = 100; i >= -100; i--)
+			list.add(i * 1000, i);
+		assertEquals(Long.valueOf(-3), list.get(-3000L));
+		assertEquals(Long.valueOf(-100), list.get(0));
+		assertEquals(Long.valueOf(3), list.remove(3000L));
+		assertNull(list.get(3000L));
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testRemoveOnEmptyList() {
+		new OffHeapSkipList<>(Serializer.STRING, Serializer.STRING).remove("A");
+	}
+
+	/** The whole point of the off-heap list: the entries are held by the arena instead of by objects on the heap.
+	 * 	The arena is compared with an estimate of the nodes, boxed keys and strings of a {@link SkipList}, since measuring
+	 * 	the heap itself depends on the collector. */
+	@Test
+	public void testArenaHoldsLessThanHeapEstimate() {
+		final int n = 200000;
+		SkipList<Integer, String> onHeap = new SkipList<>();
+		OffHeapSkipList<Integer, String> offHeap = new OffHeapSkipList<>(Serializer.INTEGER, Serializer.STRING);
+		long entries = 0, serialized = 0;
+		for (int i = 0; i < n; i++) {
+			String value = "value" + i;
+			onHeap.add(i, value);
+			offHeap.add(i, value);
+			// Integer, String and its byte array, with 12 byte object headers and 8 byte alignment
+			entries += 16 + 24 + ((16 + value.length() + 7) & ~7);
+			serialized += Serializer.INTEGER.size(i) + Serializer.STRING.size(value);
+		}
+		long onHeapBytes = onHeap.enableMetrics().memoryEstimate() + entries;
+		long offHeapBytes = offHeap.offHeapBytes();
+		assertEquals(n, offHeap.size());
+		assertTrue("the arena holds " + offHeapBytes + " bytes for " + serialized + " serialized bytes", offHeapBytes > serialized);
+		assertTrue("on heap " + onHeapBytes + " bytes, off heap " + offHeapBytes + " bytes", 2 * offHeapBytes < onHeapBytes);
+	}
+}
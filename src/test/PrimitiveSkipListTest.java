@@ -0,0 +1,116 @@
+package test;
+
+import skiplist.IntSkipList;
+import skiplist.LongLongSkipList;
+import skiplist.LongSkipList;
+
+import static org.junit.Assert.*;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+/**
+ * Tests for the primitive key specializations {@link LongSkipList}, {@link LongLongSkipList} and {@link IntSkipList},
+ * each checked against a {@link TreeMap} oracle.
+ */
+public class PrimitiveSkipListTest {
+
+	@Test
+	public void testLongSkipListAgainstTreeMap() {
+		LongSkipList<String> list = new LongSkipList<>();
+		TreeMap<Long, String> oracle = new TreeMap<>();
+		Random rand = new Random(5);
+
+		for (int n = 0; n < 20000; n++) {
+			long key = rand.nextInt(1000) - 500L + Long.MAX_VALUE / 3 * rand.nextInt(3);
+			String value = Integer.toString(n);
+			switch (rand.nextInt(3)) {
+			case 0:
+				assertEquals(oracle.containsKey(key), list.add(key, value) != null);
+				oracle.put(key, value);
+				break;
+			case 1:
+				if (!oracle.isEmpty()) {
+					LongSkipList.Node<String> removed = list.remove(key);
+					assertEquals(oracle.remove(key), removed == null ? null : removed.getValue());
+				}
+				break;
+			case 2:
+				assertEquals(oracle.get(key), list.get(key));
+				assertEquals(oracle.containsKey(key), list.contains(key));
+				break;
+			}
+			assertEquals(oracle.size(), list.size());
+		}
+
+		Iterator<Map.Entry<Long, String>> expected = oracle.entrySet().iterator();
+		for (LongSkipList.Node<String> node : list) {
+			Map.Entry<Long, String> entry = expected.next();
+			assertEquals(entry.getKey().longValue(), node.getKey());
+			assertEquals(entry.getValue(), node.getValue());
+		}
+		assertFalse(expected.hasNext());
+		assertEquals(oracle.toString(), list.toString());
+	}
+
+	@Test
+	public void testLongLongSkipList() {
+		LongLongSkipList list = new LongLongSkipList();
+		TreeMap<Long, Long> oracle = new TreeMap<>();
+		Random rand = new Random(7);
+
+		for (int n = 0; n < 20000; n++) {
+			long key = rand.nextLong() >> 50;
+			if (rand.nextInt(3) == 0) {
+				if (!oracle.isEmpty()) {
+					LongLongSkipList.Node removed = list.remove(key);
+					Long old = oracle.remove(key);
+					assertEquals(old != null, removed != null);
+					if (old != null)
+						assertEquals(old.longValue(), removed.getValue());
+				}
+			} else {
+				list.add(key, n);
+				oracle.put(key, (long) n);
+			}
+			assertEquals(oracle.containsKey(key) ? oracle.get(key) : -1L, list.get(key, -1L));
+		}
+
+		assertEquals(oracle.size(), list.size());
+		assertEquals(oracle.toString(), list.toString());
+	}
+
+	@Test
+	public void testIntSkipList() {
+		IntSkipList<Integer> list = new IntSkipList<>();
+		assertTrue(list.isEmpty());
+		for (int key = 100; key > -100; key -= 3)
+			assertNull(list.add(key, key * 2));
+		assertEquals(67, list.size());
+		assertEquals(Integer.valueOf(-4), list.get(-2));
+		assertNull(list.get(-3));
+		assertTrue(list.contains(-98));
+		assertEquals(Integer.valueOf(200), list.add(100, 0).getValue());
+
+		int previous = Integer.MIN_VALUE;
+		for (IntSkipList.Node<Integer> node : list) {
+			assertTrue(previous < node.getKey());
+			previous = node.getKey();
+		}
+		assertEquals(-98, list.remove(-98).getKey());
+		assertNull(list.remove(-98));
+		assertEquals(66, list.size());
+		list.clear();
+		assertEquals("{}", list.toString());
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testIterationOnEmptyList() {
+		new IntSkipList<String>().iterator().next();
+	}
+}
@@ -0,0 +1,204 @@
+package test;
+
+import skiplist.SkipList;
+import skiplist.SkipListBlockingQueue;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SkipListBlockingQueueTest {
+
+	private ExecutorService pool;
+
+	@Before
+	public void setUp() {
+		pool = Executors.newFixedThreadPool(4);
+	}
+
+	@After
+	public void tearDown() throws InterruptedException {
+		pool.shutdownNow();
+		assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testPriorityOrder() {
+		SkipListBlockingQueue<Integer> queue = new SkipListBlockingQueue<>();
+		assertNull(queue.peek());
+		assertNull(queue.poll());
+		for (int i : new int[] { 5, 1, 4, 2, 3 })
+			assertTrue(queue.offer(i));
+		assertEquals(5, queue.size());
+		assertEquals(Integer.MAX_VALUE, queue.remainingCapacity());
+		assertTrue(queue.contains(4));
+		assertFalse(queue.contains("4"));
+		assertEquals(Arrays.asList(1, 2, 3, 4, 5), new ArrayList<>(queue));
+
+		assertEquals(Integer.valueOf(1), queue.peek());
+		assertEquals(Integer.valueOf(1), queue.poll());
+		assertEquals(Integer.valueOf(5), queue.pollLast());
+		assertTrue(queue.remove(3));
+		assertFalse(queue.remove(3));
+
+		Iterator<Integer> it = queue.iterator();
+		assertEquals(Integer.valueOf(2), it.next());
+		it.remove();
+		assertEquals(Arrays.asList(4), new ArrayList<>(queue));
+
+		SkipListBlockingQueue<Integer> reversed = new SkipListBlockingQueue<>(SkipList.UNBOUNDED, Comparator.reverseOrder());
+		reversed.addAll(Arrays.asList(1, 3, 2));
+		List<Integer> drained = new ArrayList<>();
+		assertEquals(2, reversed.drainTo(drained, 2));
+		assertEquals(Arrays.asList(3, 2), drained);
+		assertEquals(1, reversed.drainTo(drained));
+		assertTrue(reversed.isEmpty());
+	}
+
+	@Test
+	public void testBounded() throws Exception {
+		SkipListBlockingQueue<Integer> queue = new SkipListBlockingQueue<>(2, null);
+		assertTrue(queue.offer(2));
+		assertTrue(queue.offer(1));
+		assertEquals(0, queue.remainingCapacity());
+		assertFalse(queue.offer(3));
+		assertFalse(queue.offer(3, 10, TimeUnit.MILLISECONDS));
+
+		Future<?> producer = pool.submit(() -> {
+			queue.put(3);
+			return null;
+		});
+		Thread.sleep(50);
+		assertFalse(producer.isDone());
+		assertEquals(Integer.valueOf(1), queue.take());
+		producer.get(10, TimeUnit.SECONDS);
+		assertEquals(Arrays.asList(2, 3), new ArrayList<>(queue));
+
+		queue.clear();
+		assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void testDuplicates() {
+		SkipListBlockingQueue<String> queue = new SkipListBlockingQueue<>(SkipList.UNBOUNDED, Comparator.comparing(String::length));
+		for (String s : new String[] { "bb", "a", "cc", "bb", "dd", "e" })
+			assertTrue(queue.add(s));
+		assertEquals(6, queue.size());
+		List<String> snapshot = new ArrayList<>(queue);
+		Collections.sort(snapshot);
+		assertEquals(Arrays.asList("a", "bb", "bb", "cc", "dd", "e"), snapshot);
+		assertTrue(queue.contains("cc"));
+		assertFalse(queue.contains("ff"));
+
+		assertFalse(queue.remove("ff"));
+		assertTrue(queue.remove("bb"));
+		assertTrue(queue.remove("bb"));
+		assertFalse(queue.remove("bb"));
+		assertEquals(4, queue.size());
+		assertEquals(1, queue.peek().length());
+
+		List<String> taken = new ArrayList<>();
+		queue.drainTo(taken);
+		assertEquals(2, taken.get(0).length() + taken.get(1).length());
+		assertEquals(4, taken.get(2).length() + taken.get(3).length());
+		assertEquals(new HashSet<>(Arrays.asList("a", "e", "cc", "dd")), new HashSet<>(taken));
+		assertTrue(queue.isEmpty());
+
+		queue.addAll(Arrays.asList("xx", "yy", "z"));
+		assertEquals(2, queue.pollLast().length());
+		assertEquals(2, queue.pollLast().length());
+		assertEquals("z", queue.pollLast());
+		assertNull(queue.pollLast());
+	}
+
+	@Test
+	public void testDuplicatesWhenFull() throws Exception {
+		SkipListBlockingQueue<Integer> queue = new SkipListBlockingQueue<>(2, null);
+		assertTrue(queue.add(2));
+		assertTrue(queue.add(2));
+		try {
+			queue.add(2);
+			fail();
+		} catch (IllegalStateException e) {
+		}
+
+		Future<?> producer = pool.submit(() -> {
+			queue.put(2);
+			return null;
+		});
+		Thread.sleep(50);
+		assertFalse(producer.isDone());
+		assertEquals(Integer.valueOf(2), queue.take());
+		producer.get(10, TimeUnit.SECONDS);
+		assertEquals(Arrays.asList(2, 2), new ArrayList<>(queue));
+	}
+
+	@Test
+	public void testRemoveFromEmpty() {
+		SkipListBlockingQueue<Integer> queue = new SkipListBlockingQueue<>();
+		assertFalse(queue.remove(1));
+
+		queue.add(1);
+		Iterator<Integer> it = queue.iterator();
+		assertEquals(Integer.valueOf(1), it.next());
+		assertEquals(Integer.valueOf(1), queue.poll());
+		it.remove();
+		assertTrue(queue.isEmpty());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCapacityTooSmall() {
+		new SkipListBlockingQueue<Integer>(0, null);
+	}
+
+	@Test
+	public void testProducersAndConsumers() throws Exception {
+		SkipListBlockingQueue<Integer> queue = new SkipListBlockingQueue<>(16, null);
+		int producers = 2, perProducer = 10000;
+		List<Future<List<Integer>>> consumers = new ArrayList<>();
+		for (int c = 0; c < 2; c++) {
+			consumers.add(pool.submit(() -> {
+				List<Integer> taken = new ArrayList<>();
+				Integer e;
+				while ((e = queue.poll(1, TimeUnit.SECONDS)) != null)
+					taken.add(e);
+				return taken;
+			}));
+		}
+		List<Future<?>> futures = new ArrayList<>();
+		for (int p = 0; p < producers; p++) {
+			int offset = p;
+			futures.add(pool.submit(() -> {
+				for (int i = 0; i < perProducer; i++)
+					queue.put(i * producers + offset);
+				return null;
+			}));
+		}
+		for (Future<?> future : futures)
+			future.get(30, TimeUnit.SECONDS);
+
+		boolean[] seen = new boolean[producers * perProducer];
+		for (Future<List<Integer>> consumer : consumers) {
+			for (int e : consumer.get(30, TimeUnit.SECONDS)) {
+				assertFalse(seen[e]);
+				seen[e] = true;
+			}
+		}
+		for (boolean s : seen)
+			assertTrue(s);
+	}
+}
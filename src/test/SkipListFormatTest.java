@@ -0,0 +1,123 @@
+package test;
+
+import skiplist.DeterministicSkipList;
+import skiplist.Serializer;
+import skiplist.SkipList;
+import skiplist.SkipList.Promotion;
+import skiplist.SkipListFormat;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SkipListFormatTest {
+
+	private final SkipListFormat<String, Integer> format = new SkipListFormat<>(Serializer.STRING, Serializer.INTEGER);
+
+	private static byte[] write(SkipListFormat<String, Integer> format, SkipList<String, Integer> list) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long written = format.write(list, out);
+		assertEquals(out.size(), written);
+		return out.toByteArray();
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		Random rand = new Random(3);
+		SkipList<String, Integer> list = new SkipList<>();
+		for (int i = 0; i < 10000; i++)
+			list.add(Integer.toString(rand.nextInt(), 36), rand.nextInt(10) == 0 ? null : i);
+
+		byte[] bytes = write(format, list);
+		SkipList<String, Integer> read = format.read(new ByteArrayInputStream(bytes));
+		assertEquals(list.size(), read.size());
+		assertEquals(list.toString(), read.toString());
+
+		SkipList<String, Integer> even = format.read(Channels.newChannel(new ByteArrayInputStream(bytes)), null, Promotion.EVENLY_SPACED);
+		assertEquals(list.toString(), even.toString());
+
+		SkipList<String, Integer> empty = format.read(new ByteArrayInputStream(write(format, new SkipList<>())));
+		assertTrue(empty.isEmpty());
+	}
+
+	@Test
+	public void testEntriesLargerThanTheBuffer() throws IOException {
+		SkipListFormat<String, Integer> small = new SkipListFormat<>(Serializer.STRING, Serializer.INTEGER, 16);
+		SkipList<String, Integer> list = new DeterministicSkipList<>(Collections.reverseOrder());
+		StringBuilder key = new StringBuilder();
+		for (int i = 0; i < 50; i++) {
+			key.append((char) ('a' + i % 26));
+			list.add(key.toString() + "é中", i);
+		}
+		byte[] bytes = write(small, list);
+		assertArrayEquals(bytes, write(format, list));
+		SkipList<String, Integer> read = small.read(Channels.newChannel(new ByteArrayInputStream(bytes)), Collections.reverseOrder(), Promotion.RANDOM);
+		assertEquals(list.toString(), read.toString());
+	}
+
+	@Test
+	public void testDamagedInput() throws IOException {
+		SkipList<String, Integer> list = new SkipList<>();
+		for (int i = 0; i < 100; i++)
+			list.add("key" + i, i);
+		byte[] bytes = write(format, list);
+
+		byte[] flipped = bytes.clone();
+		flipped[bytes.length / 2] ^= 1;
+		byte[] truncated = new byte[bytes.length - 1];
+		System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+		byte[] foreign = bytes.clone();
+		foreign[0] = 0;
+		List<byte[]> damaged = new ArrayList<>(Arrays.asList(flipped, truncated, foreign));
+		// key and value length of the first entry: overflowing their sum, too large, and not what the serializers read
+		int[][] lengths = { { Integer.MAX_VALUE, Integer.MAX_VALUE }, { SkipListFormat.MAX_ENTRY_BYTES, 4 }, { 4, 2 }, { 1, 4 } };
+		for (int[] length : lengths) {
+			byte[] copy = bytes.clone();
+			ByteBuffer.wrap(copy).putInt(Long.BYTES + 2 * Integer.BYTES, length[0]).putInt(Long.BYTES + 3 * Integer.BYTES, length[1]);
+			damaged.add(copy);
+		}
+		for (byte[] input : damaged) {
+			try {
+				format.read(new ByteArrayInputStream(input));
+				fail("read a damaged list");
+			} catch (IOException e) {
+				// expected
+			}
+		}
+	}
+
+	/** The entry is rejected by its size, before anything is written */
+	@Test(expected = IOException.class)
+	public void testEntryTooLarge() throws IOException {
+		SkipList<String, Integer> list = new SkipList<>();
+		list.add("large", 1);
+		Serializer<Integer> large = new Serializer<Integer>() {
+			@Override
+			public int size(Integer value) {
+				return SkipListFormat.MAX_ENTRY_BYTES;
+			}
+
+			@Override
+			public void write(Integer value, ByteBuffer buffer) {
+				throw new AssertionError();
+			}
+
+			@Override
+			public Integer read(ByteBuffer buffer, int length) {
+				throw new AssertionError();
+			}
+		};
+		new SkipListFormat<>(Serializer.STRING, large).write(list, new ByteArrayOutputStream());
+	}
+}
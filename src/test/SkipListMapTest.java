@@ -0,0 +1,296 @@
+package test;
+
+import skiplist.SkipList;
+import skiplist.SkipListMap;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link SkipListMap}. Every view of the map is compared against the same view of a {@link TreeMap}
+ * holding the same entries, for random keys inside and outside the bounds of the view.
+ */
+public class SkipListMapTest {
+
+	private static final int KEYS = 200;
+
+	private final Random rand = new Random(5);
+
+	/** Returns pairs of the same views of both maps: the maps, their descending maps and random sub, head and tail maps */
+	private List<NavigableMap<Integer, Integer>[]> views(NavigableMap<Integer, Integer> expected, NavigableMap<Integer, Integer> actual) {
+		List<NavigableMap<Integer, Integer>[]> views = new ArrayList<>();
+		views.add(pair(expected, actual));
+		views.add(pair(expected.descendingMap(), actual.descendingMap()));
+		for (int i = 0; i < 4; i++) {
+			int from = rand.nextInt(KEYS);
+			int to = from + rand.nextInt(KEYS - from + 1);
+			boolean fromInclusive = rand.nextBoolean();
+			boolean toInclusive = rand.nextBoolean();
+			views.add(pair(expected.subMap(from, fromInclusive, to, toInclusive), actual.subMap(from, fromInclusive, to, toInclusive)));
+			views.add(pair(expected.headMap(to, toInclusive), actual.headMap(to, toInclusive)));
+			views.add(pair(expected.tailMap(from, fromInclusive).descendingMap(), actual.tailMap(from, fromInclusive).descendingMap()));
+			views.add(pair(expected.descendingMap().subMap(to, toInclusive, from, fromInclusive),
+					actual.descendingMap().subMap(to, toInclusive, from, fromInclusive)));
+			if (from < to)
+				views.add(pair(expected.subMap(from, true, to, true).tailMap(from, fromInclusive).headMap(to, toInclusive),
+						actual.subMap(from, true, to, true).tailMap(from, fromInclusive).headMap(to, toInclusive)));
+		}
+		return views;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static NavigableMap<Integer, Integer>[] pair(NavigableMap<Integer, Integer> expected, NavigableMap<Integer, Integer> actual) {
+		return (NavigableMap<Integer, Integer>[]) new NavigableMap<?, ?>[] { expected, actual };
+	}
+
+	private void assertSameView(NavigableMap<Integer, Integer> expected, NavigableMap<Integer, Integer> actual) {
+		assertEquals(expected.size(), actual.size());
+		assertEquals(expected.isEmpty(), actual.isEmpty());
+		assertEquals(expected.toString(), actual.toString());
+		assertEquals(expected, actual);
+		assertEquals(expected.hashCode(), actual.hashCode());
+		assertEquals(expected.firstEntry(), actual.firstEntry());
+		assertEquals(expected.lastEntry(), actual.lastEntry());
+		assertEquals(new ArrayList<>(expected.descendingKeySet()), new ArrayList<>(actual.descendingKeySet()));
+		assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(actual.values()));
+		if (expected.isEmpty()) {
+			try {
+				actual.firstKey();
+				fail();
+			} catch (NoSuchElementException e) {
+				// expected
+			}
+		} else {
+			assertEquals(expected.firstKey(), actual.firstKey());
+			assertEquals(expected.lastKey(), actual.lastKey());
+		}
+		for (int key = -1; key <= KEYS; key++) {
+			assertEquals(expected.get(key), actual.get(key));
+			assertEquals(expected.containsKey(key), actual.containsKey(key));
+			assertEquals(expected.lowerEntry(key), actual.lowerEntry(key));
+			assertEquals(expected.floorEntry(key), actual.floorEntry(key));
+			assertEquals(expected.ceilingEntry(key), actual.ceilingEntry(key));
+			assertEquals(expected.higherEntry(key), actual.higherEntry(key));
+			assertEquals(expected.lowerKey(key), actual.lowerKey(key));
+			assertEquals(expected.floorKey(key), actual.floorKey(key));
+			assertEquals(expected.ceilingKey(key), actual.ceilingKey(key));
+			assertEquals(expected.higherKey(key), actual.higherKey(key));
+		}
+		NavigableSet<Integer> keys = actual.navigableKeySet();
+		assertEquals(expected.navigableKeySet(), keys);
+		if (!expected.isEmpty()) {
+			Integer middle = expected.navigableKeySet().toArray(new Integer[0])[expected.size() / 2];
+			assertEquals(new ArrayList<>(expected.navigableKeySet().headSet(middle, true)), new ArrayList<>(keys.headSet(middle, true)));
+			assertEquals(new ArrayList<>(expected.navigableKeySet().tailSet(middle, false)), new ArrayList<>(keys.tailSet(middle, false)));
+		}
+	}
+
+	@Test
+	public void testViewsAgainstTreeMap() {
+		TreeMap<Integer, Integer> expected = new TreeMap<>();
+		SkipListMap<Integer, Integer> actual = new SkipListMap<>();
+		for (int round = 0; round < 20; round++) {
+			for (int n = 0; n < 50; n++) {
+				int key = rand.nextInt(KEYS);
+				if (rand.nextInt(3) == 0)
+					assertEquals(expected.remove(key), actual.remove(key));
+				else
+					assertEquals(expected.put(key, n), actual.put(key, n));
+			}
+			for (NavigableMap<Integer, Integer>[] view : views(expected, actual))
+				assertSameView(view[0], view[1]);
+		}
+	}
+
+	@Test
+	public void testModifyThroughViews() {
+		TreeMap<Integer, Integer> expected = new TreeMap<>();
+		SkipListMap<Integer, Integer> actual = new SkipListMap<>();
+		for (int key = 0; key < KEYS; key++) {
+			expected.put(key, key);
+			actual.put(key, key);
+		}
+		for (int round = 0; round < 30; round++) {
+			List<NavigableMap<Integer, Integer>[]> views = views(expected, actual);
+			NavigableMap<Integer, Integer>[] view = views.get(rand.nextInt(views.size()));
+			switch (rand.nextInt(5)) {
+			case 0:
+				assertEquals(view[0].pollFirstEntry(), view[1].pollFirstEntry());
+				break;
+			case 1:
+				assertEquals(view[0].pollLastEntry(), view[1].pollLastEntry());
+				break;
+			case 2:
+				Iterator<Integer> e = view[0].keySet().iterator();
+				Iterator<Integer> a = view[1].keySet().iterator();
+				while (e.hasNext()) {
+					assertEquals(e.next(), a.next());
+					if (rand.nextInt(4) == 0) {
+						e.remove();
+						a.remove();
+					}
+				}
+				assertFalse(a.hasNext());
+				break;
+			case 3:
+				if (!view[0].isEmpty()) {
+					Integer key = view[0].firstKey();
+					assertEquals(view[0].put(key, -key), view[1].put(key, -key));
+					assertEquals(view[0].remove(key), view[1].remove(key));
+				}
+				break;
+			case 4:
+				if (rand.nextInt(5) == 0) {
+					view[0].clear();
+					view[1].clear();
+				}
+				break;
+			}
+			assertSameView(expected, actual);
+		}
+	}
+
+	@Test
+	public void testViewOfExistingList() {
+		SkipList<String, Integer> list = new SkipList<>();
+		list.add("b", 2);
+		list.add("d", 4);
+		SkipListMap<String, Integer> map = new SkipListMap<>(list);
+		assertEquals("b", map.headMap("c").lastKey());
+		map.put("c", 3);
+		assertEquals(3, list.size());
+		assertEquals("{b=2, c=3, d=4}", map.toString());
+		assertEquals("{d=4, c=3}", map.descendingMap().headMap("b").toString());
+	}
+
+	@Test
+	public void testComparator() {
+		TreeMap<Integer, Integer> expected = new TreeMap<>(Collections.reverseOrder());
+		SkipListMap<Integer, Integer> actual = new SkipListMap<>(Collections.reverseOrder());
+		for (int n = 0; n < 300; n++) {
+			int key = rand.nextInt(KEYS);
+			assertEquals(expected.put(key, n), actual.put(key, n));
+		}
+		assertSameView(expected, actual);
+		assertSameView(expected.descendingMap(), actual.descendingMap());
+		assertSameView(expected.subMap(150, false, 50, true), actual.subMap(150, false, 50, true));
+		assertSameView(expected.headMap(100, true).descendingMap(), actual.headMap(100, true).descendingMap());
+		assertEquals(Collections.reverseOrder(), actual.comparator());
+		assertTrue(actual.descendingMap().comparator().compare(1, 2) < 0);
+	}
+
+	@Test
+	public void testComputeAndMergeAgainstTreeMap() {
+		TreeMap<Integer, Integer> expected = new TreeMap<>();
+		SkipListMap<Integer, Integer> actual = new SkipListMap<>();
+		NavigableMap<Integer, Integer> expectedRange = expected.subMap(KEYS / 4, true, 3 * KEYS / 4, false);
+		NavigableMap<Integer, Integer> actualRange = actual.subMap(KEYS / 4, true, 3 * KEYS / 4, false);
+		for (int n = 0; n < 5000; n++) {
+			boolean range = rand.nextBoolean();
+			NavigableMap<Integer, Integer> e = range ? expectedRange : expected;
+			NavigableMap<Integer, Integer> a = range ? actualRange : actual;
+			int key = range ? KEYS / 4 + rand.nextInt(KEYS / 2) : rand.nextInt(KEYS);
+			int value = rand.nextInt(10);
+			switch (rand.nextInt(8)) {
+			case 0:
+				assertEquals(e.putIfAbsent(key, value), a.putIfAbsent(key, value));
+				break;
+			case 1:
+				assertEquals(e.computeIfAbsent(key, k -> value == 0 ? null : value), a.computeIfAbsent(key, k -> value == 0 ? null : value));
+				break;
+			case 2:
+				assertEquals(e.computeIfPresent(key, (k, v) -> v + value == 0 ? null : v + value),
+						a.computeIfPresent(key, (k, v) -> v + value == 0 ? null : v + value));
+				break;
+			case 3:
+				assertEquals(e.compute(key, (k, v) -> value < 3 ? null : value), a.compute(key, (k, v) -> value < 3 ? null : value));
+				break;
+			case 4:
+			case 5:
+				assertEquals(e.merge(key, value, (v, w) -> v + w > 20 ? null : v + w), a.merge(key, value, (v, w) -> v + w > 20 ? null : v + w));
+				break;
+			case 6:
+				assertEquals(e.replace(key, value), a.replace(key, value));
+				break;
+			default:
+				assertEquals(e.replace(key, value, -value), a.replace(key, value, -value));
+			}
+		}
+		assertEquals(expected, actual);
+		assertEquals(expectedRange, actualRange);
+	}
+
+	/** Views fail fast on structural modifications made around them, but not on their own removes or on value updates */
+	@Test
+	public void testIteratorsFailFast() {
+		SkipListMap<Integer, Integer> map = new SkipListMap<>();
+		for (int i = 0; i < 10; i++)
+			map.put(i, i);
+
+		Iterator<Map.Entry<Integer, Integer>> entries = map.entrySet().iterator();
+		entries.next();
+		map.put(3, 30);
+		entries.next();
+		map.put(10, 10);
+		try {
+			entries.next();
+			fail("missed an add");
+		} catch (ConcurrentModificationException e) {
+		}
+
+		Iterator<Integer> keys = map.descendingMap().headMap(5).keySet().iterator();
+		assertEquals(Integer.valueOf(10), keys.next());
+		keys.remove();
+		assertEquals(Integer.valueOf(9), keys.next());
+		map.remove(0);
+		try {
+			keys.remove();
+			fail("missed a remove");
+		} catch (ConcurrentModificationException e) {
+		}
+		try {
+			keys.next();
+			fail("missed a remove");
+		} catch (ConcurrentModificationException e) {
+		}
+		assertEquals(9, map.size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMergeOutOfRange() {
+		new SkipListMap<Integer, Integer>().headMap(5).merge(5, 5, Integer::sum);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPutOutOfRange() {
+		new SkipListMap<Integer, Integer>().subMap(1, 5).put(5, 5);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSubMapOutsideRange() {
+		new SkipListMap<Integer, Integer>().headMap(5, false).headMap(5, true);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testReversedRange() {
+		new SkipListMap<Integer, Integer>().subMap(5, 1);
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void testNullKey() {
+		new SkipListMap<Integer, Integer>().get(null);
+	}
+}
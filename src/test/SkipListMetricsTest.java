@@ -0,0 +1,132 @@
+package test;
+
+import skiplist.SkipList;
+import skiplist.SkipListMap;
+import skiplist.SkipListMetrics;
+import skiplist.SkipListMetrics.Operation;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class SkipListMetricsTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testOperationsAreCounted() {
+		SkipList<Integer, Integer> list = new SkipList<>();
+		list.add(-1, -1);
+		SkipListMetrics metrics = list.enableMetrics();
+		assertSame(metrics, list.enableMetrics());
+		assertSame(metrics, list.metrics());
+
+		Random rand = new Random(1);
+		int inserts = 0;
+		for (int n = 0; n < 1000; n++) {
+			if (list.put(rand.nextInt(500), n) == null)
+				inserts++;
+		}
+		list.add(-1, 0);
+		list.get((Object) 3);
+		list.contains(4);
+		list.remove((Object) 5);
+		list.remove((Object) 1000);
+		list.rank(6);
+		list.indexOf(7);
+		list.get(0);
+		list.removeAt(0);
+		new SkipListMap<>(list).floorKey(8);
+
+		assertEquals(inserts, metrics.count(Operation.INSERT));
+		assertEquals(1000 - inserts + 1, metrics.count(Operation.UPDATE));
+		assertEquals(1, metrics.count(Operation.GET));
+		assertEquals(1, metrics.count(Operation.CONTAINS));
+		assertEquals(2, metrics.count(Operation.REMOVE));
+		assertEquals(2, metrics.count(Operation.RANK));
+		assertEquals(2, metrics.count(Operation.POSITIONAL));
+		assertEquals(1, metrics.count(Operation.NAVIGATE));
+
+		// every operation but the positional ones searched by key
+		long searches = Arrays.stream(metrics.searchLengthHistogram()).sum();
+		assertEquals(1000 + 8, searches);
+		assertEquals(inserts, Arrays.stream(metrics.heightHistogram()).sum());
+
+		metrics.reset();
+		assertEquals(0, metrics.count(Operation.INSERT));
+		assertEquals(0, Arrays.stream(metrics.searchLengthHistogram()).sum());
+
+		list.disableMetrics();
+		assertNull(list.metrics());
+		list.get((Object) 3);
+		assertEquals(0, metrics.count(Operation.GET));
+	}
+
+	@Test
+	public void testStructure() {
+		SkipList<Integer, Integer> list = new SkipList<>();
+		SkipListMetrics metrics = list.enableMetrics();
+		long empty = metrics.memoryEstimate();
+		for (int i = 0; i < 10000; i++)
+			list.add(i, i);
+
+		long[] counts = metrics.levelCounts();
+		assertEquals(metrics.skips() + 1, counts.length);
+		List<Long> expected = Arrays.stream(list.toStringWithExpress().split("\n"))
+				.map(level -> level.equals("[]") ? 0L : level.split(", ").length)
+				.collect(Collectors.toList());
+		assertEquals(expected, Arrays.stream(counts).boxed().collect(Collectors.toList()));
+		assertTrue(metrics.expansions() > 0);
+		// at least the node, its key and value references and the links of the full list
+		assertTrue(metrics.memoryEstimate() - empty >= 32 * 10000);
+
+		for (int i = 0; i < 10000; i++)
+			list.remove((Object) i);
+		assertEquals(0, metrics.skips());
+		assertTrue(metrics.removedLists() > 0);
+		assertArrayEquals(new long[] { 0 }, metrics.levelCounts());
+	}
+
+	@Test
+	public void testSlowOperationEvents() throws IOException {
+		SkipList<Integer, Integer> list = new SkipList<>();
+		SkipListMetrics metrics = list.enableMetrics();
+		for (int i = 0; i < 100; i++)
+			list.add(i, i);
+		metrics.setSlowOperationThreshold(0, TimeUnit.NANOSECONDS);
+
+		Path file = folder.getRoot().toPath().resolve("recording.jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable("skiplist.SlowOperation");
+			recording.start();
+			list.get((Object) 50);
+			metrics.setSlowOperationThreshold(1, TimeUnit.HOURS);
+			list.get((Object) 60);
+			recording.stop();
+			recording.dump(file);
+		}
+
+		List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+		assertEquals(1, events.size());
+		RecordedEvent event = events.get(0);
+		assertEquals("GET", event.getString("operation"));
+		assertEquals(100, event.getInt("size"));
+		assertTrue(event.getInt("visited") > 0);
+		assertTrue(event.getDuration("elapsed").toNanos() >= 0);
+	}
+}
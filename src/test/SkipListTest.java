@@ -1,16 +1,34 @@
 package test;
 
+import skiplist.DeterministicSkipList;
 import skiplist.SkipList;
+import skiplist.SkipListMetrics;
 import skiplist.SkipList.Node;
+import skiplist.SkipList.Promotion;
 
 import static org.junit.Assert.*;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
 import java.util.Map.Entry;
 import java.util.NoSuchElementException;
 import java.util.Random;
+import java.util.Spliterator;
 import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -161,6 +179,69 @@ public class SkipListTest {
 		assertEquals("Fourth", list.get(1));
 	}
 
+	@Test
+	public void testRankAndIndexOf() {
+		assertEquals(0, list.rank("A"));
+		assertEquals(2, list.rank("BD"));
+		assertEquals(2, list.rank("BC"));
+		assertEquals(5, list.rank("E"));
+		assertEquals(0, list.indexOf("A"));
+		assertEquals(4, list.indexOf("DE"));
+		assertEquals(-1, list.indexOf("BC"));
+	}
+
+	@Test
+	public void testRemoveAt() {
+		assertEquals("BD", list.removeAt(2).getKey());
+		assertEquals(4, list.size());
+		assertEquals("Fourth", list.get(2));
+		assertEquals("A", list.removeAt(0).getKey());
+		assertEquals("DE", list.removeAt(2).getKey());
+		assertEquals("{B=Second, D=Fourth}", list.toString());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testRemoveAtIndexAboveMax() {
+		list.removeAt(5);
+	}
+
+	@Test
+	public void testPositionalAccessAgainstOracle() {
+		SkipList<Integer, Integer> ilist = new SkipList<>();
+		TreeMap<Integer, Integer> oracle = new TreeMap<>();
+		Random rand = new Random(42);
+
+		for (int n = 0; n < 20000; n++) {
+			int key = rand.nextInt(2000);
+			switch (rand.nextInt(3)) {
+			case 0:
+				ilist.add(key, n);
+				oracle.put(key, n);
+				break;
+			case 1:
+				if (!oracle.isEmpty())
+					assertEquals(oracle.remove(key) != null, ilist.remove((Object) key) != null);
+				break;
+			case 2:
+				if (!oracle.isEmpty()) {
+					int index = rand.nextInt(oracle.size());
+					Integer expected = oracle.keySet().toArray(new Integer[0])[index];
+					assertEquals(expected, ilist.removeAt(index).getKey());
+					oracle.remove(expected);
+				}
+				break;
+			}
+			assertEquals(oracle.size(), ilist.size());
+			assertEquals(oracle.headMap(key).size(), ilist.rank(key));
+		}
+
+		Integer[] keys = oracle.keySet().toArray(new Integer[0]);
+		for (int i = 0; i < keys.length; i++) {
+			assertEquals(oracle.get(keys[i]), ilist.get(i));
+			assertEquals(i, ilist.indexOf(keys[i]));
+		}
+	}
+
 	private static final java.util.Random rnd = new java.util.Random();
 	private static final String[] names = { "Adam", "Bertil", "Cesar", "David", "Erik", "Filip", "Gustav", "Helge",
 			"Ivar", "Johan", "Kalle", "ludvig", "Martin", "Niklas" };
@@ -349,4 +430,907 @@ public class SkipListTest {
 		}
 	}
 
+	/** Key that counts every comparison made against it, used to measure the cost of operations. */
+	private static class CountingKey implements Comparable<CountingKey> {
+		private static long comparisons = 0;
+		private final int key;
+
+		CountingKey(int key) {
+			this.key = key;
+		}
+
+		@Override
+		public int compareTo(CountingKey other) {
+			comparisons++;
+			return Integer.compare(key, other.key);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof CountingKey && ((CountingKey) other).key == key;
+		}
+
+		@Override
+		public int hashCode() {
+			return key;
+		}
+	}
+
+	private static double averageInsertComparisons(int n) {
+		List<CountingKey> keys = new ArrayList<>();
+		for (int i = 0; i < n; i++)
+			keys.add(new CountingKey(i));
+		Collections.shuffle(keys, new Random(n));
+
+		SkipList<CountingKey, Integer> clist = new SkipList<>();
+		CountingKey.comparisons = 0;
+		for (CountingKey key : keys)
+			clist.add(key, key.key);
+		assertEquals(n, clist.size());
+		return (double) CountingKey.comparisons / n;
+	}
+
+	@Test
+	public void testInsertScalesLogarithmically() {
+		double small = averageInsertComparisons(1 << 10);
+		double large = averageInsertComparisons(1 << 16);
+		// 64 times the elements gives log2 16 / log2 10 = 1.6 times the comparisons if insert is O(log n)
+		assertTrue("average comparisons per insert grew from " + small + " to " + large, large < small * 3);
+	}
+
+	@Test
+	public void testFromSortedAgainstOracle() {
+		TreeMap<Integer, Integer> oracle = new TreeMap<>();
+		Random rand = new Random(9);
+		for (int n = 0; n < 5000; n++)
+			oracle.put(rand.nextInt(100000), n);
+
+		for (Promotion promotion : Promotion.values()) {
+			SkipList<Integer, Integer> ilist = SkipList.fromSorted(oracle.entrySet().iterator(), promotion);
+			assertEquals(oracle.size(), ilist.size());
+			assertEquals(oracle.toString(), ilist.toString());
+			Integer[] keys = oracle.keySet().toArray(new Integer[0]);
+			for (int i = 0; i < keys.length; i++) {
+				assertEquals(oracle.get(keys[i]), ilist.get(i));
+				assertEquals(oracle.get(keys[i]), ilist.get((Object) keys[i]));
+				assertEquals(i, ilist.rank(keys[i]));
+			}
+
+			// the built list has to stay consistent under further modifications
+			for (int n = 0; n < 5000; n++) {
+				int key = rand.nextInt(100000);
+				if (rand.nextBoolean()) {
+					ilist.add(key, n);
+					oracle.put(key, n);
+				} else {
+					assertEquals(oracle.remove(key) != null, ilist.remove((Object) key) != null);
+				}
+				assertEquals(oracle.headMap(key).size(), ilist.rank(key));
+			}
+			assertEquals(oracle.size(), ilist.size());
+			keys = oracle.keySet().toArray(new Integer[0]);
+			for (int i = 0; i < keys.length; i++)
+				assertEquals(oracle.get(keys[i]), ilist.get(i));
+		}
+	}
+
+	@Test
+	public void testFromSortedEvenlySpaced() {
+		SkipList<Integer, String> ilist = SkipList.fromSorted(
+				IntStream.rangeClosed(1, 8).mapToObj(i -> new SimpleEntry<>(i, "v" + i)), Promotion.EVENLY_SPACED);
+		assertEquals("[1, 2, 3, 4, 5, 6, 7, 8]\n[2, 4, 6, 8]\n[4, 8]\n[8]\n", ilist.toStringWithExpress());
+		assertEquals("v5", ilist.get(4));
+		assertEquals("{}", SkipList.fromSorted(Collections.<Entry<Integer, String>>emptyIterator(), Promotion.RANDOM).toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testFromSortedRejectsUnsorted() {
+		SkipList.fromSorted(IntStream.of(1, 3, 2).mapToObj(i -> new SimpleEntry<>(i, i)), Promotion.RANDOM);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testFromSortedRejectsDuplicates() {
+		SkipList.fromSorted(IntStream.of(1, 2, 2).mapToObj(i -> new SimpleEntry<>(i, i)), Promotion.EVENLY_SPACED);
+	}
+
+	@Test
+	public void testSpliteratorSplitsInHalves() {
+		SkipList<Integer, Integer> ilist = new SkipList<>();
+		for (int i = 0; i < 1001; i++)
+			ilist.add(i, i);
+		Spliterator<Node<Integer, Integer>> suffix = ilist.spliterator();
+		assertTrue(suffix.hasCharacteristics(Spliterator.SORTED | Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SIZED));
+		assertEquals(1001, suffix.getExactSizeIfKnown());
+
+		Spliterator<Node<Integer, Integer>> prefix = suffix.trySplit();
+		assertEquals(500, prefix.getExactSizeIfKnown());
+		assertEquals(501, suffix.getExactSizeIfKnown());
+		List<Integer> keys = new ArrayList<>();
+		prefix.forEachRemaining(node -> keys.add(node.getKey()));
+		assertTrue(suffix.tryAdvance(node -> keys.add(node.getKey())));
+		Spliterator<Node<Integer, Integer>> middle = suffix.trySplit();
+		middle.forEachRemaining(node -> keys.add(node.getKey()));
+		suffix.forEachRemaining(node -> keys.add(node.getKey()));
+		assertFalse(suffix.tryAdvance(node -> fail()));
+		assertEquals(IntStream.range(0, 1001).boxed().collect(Collectors.toList()), keys);
+
+		Spliterator<Node<Integer, Integer>> single = SkipList.fromSorted(
+				Collections.singletonMap(1, 1).entrySet().iterator(), Promotion.RANDOM).spliterator();
+		assertNull(single.trySplit());
+	}
+
+	/** Nodes are not Comparable, so even a list in the natural order of its keys reports a comparator */
+	@Test
+	public void testSpliteratorComparatorOfNaturalOrder() {
+		SkipList<Integer, Integer> ilist = new SkipList<>();
+		for (int i = 0; i < 10; i++)
+			ilist.add(i, i);
+		Comparator<? super Node<Integer, Integer>> comparator = ilist.spliterator().getComparator();
+		assertNotNull(comparator);
+		Node<Integer, Integer> first = ilist.peekFirst(), last = ilist.peekLast();
+		assertTrue(comparator.compare(first, last) < 0);
+		assertTrue(comparator.compare(last, first) > 0);
+		assertEquals(0, comparator.compare(first, first));
+		try {
+			ilist.stream().sorted().collect(Collectors.toList());
+			fail("sorted nodes that are not Comparable");
+		} catch (ClassCastException e) {
+		}
+	}
+
+	@Test
+	public void testParallelStream() {
+		SkipList<Integer, Integer> ilist = new SkipList<>();
+		Random rand = new Random(11);
+		TreeMap<Integer, Integer> oracle = new TreeMap<>();
+		for (int i = 0; i < 100000; i++) {
+			int key = rand.nextInt(1000000);
+			ilist.add(key, i);
+			oracle.put(key, i);
+		}
+		assertEquals(oracle.values().stream().mapToLong(Integer::longValue).sum(),
+				ilist.parallelStream().mapToLong(node -> node.getValue()).sum());
+		assertEquals(new ArrayList<>(oracle.keySet()),
+				ilist.parallelStream().map(Node::getKey).collect(Collectors.toList()));
+		assertEquals(oracle.size(), ilist.stream().count());
+		assertEquals(oracle.firstKey(), ilist.parallelStream().filter(node -> true).findFirst().get().getKey());
+	}
+
+	@Test
+	public void testAddReplacesValueInPlace() {
+		Node<String, String> node = list.add("A", "Replaced");
+		assertEquals("Replaced", node.getValue());
+		assertSame(node, list.add("A", "Again"));
+		assertEquals("Again", list.get("A"));
+		assertEquals("Again", list.put("A", "Put"));
+		assertNull(list.put("AA", "New"));
+		assertEquals(6, list.size());
+		assertEquals("{A=Put, AA=New, B=Second, BD=Third, D=Fourth, DE=Fifth}", list.toString());
+	}
+
+	@Test
+	public void testListIterator() {
+		ListIterator<Node<String, String>> i = list.listIterator();
+		assertFalse(i.hasPrevious());
+		assertEquals("A", i.next().getKey());
+		assertEquals("B", i.next().getKey());
+		assertEquals("B", i.previous().getKey());
+		assertEquals("A", i.previous().getKey());
+		assertFalse(i.hasPrevious());
+		assertEquals(0, i.nextIndex());
+		assertEquals("A", i.next().getKey());
+		assertEquals("B", i.next().getKey());
+		i.remove();
+		assertEquals(1, i.nextIndex());
+		assertEquals("BD", i.next().getKey());
+		assertEquals("BD", i.previous().getKey());
+		i.remove();
+		assertEquals(1, i.nextIndex());
+		assertEquals("A", i.previous().getKey());
+		assertEquals("{A=First, D=Fourth, DE=Fifth}", list.toString());
+
+		i = list.listIterator(list.size());
+		assertFalse(i.hasNext());
+		assertEquals("DE", i.previous().getKey());
+		assertEquals("D", i.previous().getKey());
+		assertEquals(0, list.listIterator(0).nextIndex());
+		assertEquals("D", list.listIterator(1).next().getKey());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testListIteratorOutOfBounds() {
+		list.listIterator(6);
+	}
+
+	@Test
+	public void testDescendingIterator() {
+		Random rand = new Random(17);
+		SkipList<Integer, Integer> ilist = new SkipList<>();
+		TreeMap<Integer, Integer> expected = new TreeMap<>();
+		for (int n = 0; n < 5000; n++) {
+			int key = rand.nextInt(1000);
+			if (rand.nextInt(3) == 0) {
+				expected.remove(key);
+				if (!ilist.isEmpty())
+					ilist.remove((Object) key);
+			} else {
+				expected.put(key, n);
+				ilist.put(key, n);
+			}
+		}
+		List<Integer> descending = new ArrayList<>();
+		ilist.descendingIterator().forEachRemaining(node -> descending.add(node.getKey()));
+		assertEquals(new ArrayList<>(expected.descendingKeySet()), descending);
+
+		for (int from = -1; from <= 1000; from += 7) {
+			for (boolean inclusive : new boolean[] { true, false }) {
+				List<Integer> range = new ArrayList<>();
+				Iterator<Node<Integer, Integer>> i = ilist.descendingIterator(from, inclusive);
+				while (i.hasNext() && range.size() < 5)
+					range.add(i.next().getKey());
+				assertEquals(expected.headMap(from, inclusive).descendingKeySet().stream().limit(5).collect(Collectors.toList()), range);
+			}
+		}
+
+		Iterator<Node<Integer, Integer>> i = ilist.descendingIterator();
+		for (int n = 0; n < 10; n++) {
+			expected.remove(i.next().getKey());
+			i.remove();
+		}
+		ListIterator<Node<Integer, Integer>> backwards = ilist.listIterator(ilist.size());
+		for (Integer key : expected.descendingKeySet())
+			assertEquals(key, backwards.previous().getKey());
+		assertFalse(backwards.hasPrevious());
+		ilist.rebalance(Promotion.EVENLY_SPACED);
+		assertEquals(expected.lastKey(), ilist.descendingIterator().next().getKey());
+		ilist.clear();
+		assertFalse(ilist.descendingIterator().hasNext());
+	}
+
+	@Test
+	public void testCursor() {
+		SkipList<String, String>.Cursor cursor = list.cursor();
+		assertEquals("A", cursor.node().getKey());
+		assertTrue(cursor.seek("BA"));
+		assertEquals("BD", cursor.node().getKey());
+		assertEquals("BD", cursor.remove().getKey());
+		assertEquals("D", cursor.node().getKey());
+		assertTrue(cursor.next());
+		assertEquals("DE", cursor.remove().getKey());
+		assertNull(cursor.node());
+		assertTrue(cursor.seek("D"));
+		assertFalse(cursor.next());
+		assertFalse(cursor.seek("E"));
+		assertTrue(cursor.first());
+		assertEquals("A", cursor.remove().getKey());
+		assertEquals("{B=Second, D=Fourth}", list.toString());
+		assertEquals(1, list.indexOf("D"));
+
+		list.add("C", "Third");
+		try {
+			cursor.node();
+			fail("the cursor was not invalidated");
+		} catch (ConcurrentModificationException e) {
+			assertTrue(cursor.seek("C"));
+			assertEquals("C", cursor.node().getKey());
+		}
+	}
+
+	@Test
+	public void testCursorSweep() {
+		for (boolean deterministic : new boolean[] { false, true }) {
+			SkipList<Integer, Integer> ilist = deterministic ? new DeterministicSkipList<>() : new SkipList<>();
+			TreeMap<Integer, Integer> expected = new TreeMap<>();
+			for (int i = 0; i < 10000; i++) {
+				ilist.add(i * 2, i);
+				expected.put(i * 2, i);
+			}
+			SkipList<Integer, Integer>.Cursor cursor = ilist.cursor();
+			Random rand = new Random(deterministic ? 1 : 2);
+			for (int sweep = 0; sweep < 50; sweep++) {
+				int from = rand.nextInt(20000);
+				int to = from + rand.nextInt(500);
+				cursor.seek(from);
+				while (cursor.node() != null && cursor.node().getKey() < to) {
+					if (rand.nextBoolean())
+						cursor.remove();
+					else
+						cursor.next();
+				}
+				expected.keySet().removeIf(key -> key >= from && key < to && !ilist.contains(key));
+			}
+			assertEquals(expected.size(), ilist.size());
+			int index = 0;
+			for (Integer key : expected.keySet())
+				assertEquals(index++, ilist.indexOf(key));
+			assertEquals(expected.lastKey(), ilist.descendingIterator().next().getKey());
+		}
+	}
+
+	@Test
+	public void testRemoveRange() {
+		Random rand = new Random(23);
+		for (boolean deterministic : new boolean[] { false, true }) {
+			SkipList<Integer, Integer> ilist = deterministic ? new DeterministicSkipList<>() : new SkipList<>();
+			TreeMap<Integer, Integer> expected = new TreeMap<>();
+			for (int round = 0; round < 200; round++) {
+				for (int i = 0; i < 100; i++) {
+					int key = rand.nextInt(3000);
+					ilist.put(key, key);
+					expected.put(key, key);
+				}
+				Integer from = rand.nextInt(10) == 0 ? null : rand.nextInt(3000);
+				Integer to = rand.nextInt(10) == 0 ? null : (from == null ? 0 : from) + rand.nextInt(300);
+				boolean fromInclusive = rand.nextBoolean();
+				boolean toInclusive = rand.nextBoolean();
+				java.util.NavigableMap<Integer, Integer> range = expected;
+				if (from != null)
+					range = range.tailMap(from, fromInclusive);
+				if (to != null)
+					range = range.headMap(to, toInclusive);
+				int count = range.size();
+				range.clear();
+				assertEquals(count, ilist.removeRange(from, fromInclusive, to, toInclusive));
+
+				assertEquals(expected.size(), ilist.size());
+				if (round % 20 == 0) {
+					int index = 0;
+					for (Integer key : expected.keySet()) {
+						assertEquals(key, ilist.get(index));
+						assertEquals(index++, ilist.rank(key));
+					}
+					List<Integer> descending = new ArrayList<>();
+					ilist.descendingIterator().forEachRemaining(node -> descending.add(node.getKey()));
+					assertEquals(new ArrayList<>(expected.descendingKeySet()), descending);
+				}
+			}
+		}
+		assertEquals(0, list.removeRange("E", "F"));
+		assertEquals(2, list.removeRange("B", "D"));
+		assertEquals("{A=First, D=Fourth, DE=Fifth}", list.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRemoveRangeReversed() {
+		list.removeRange("D", "B");
+	}
+
+	/** Asserts that ilist holds the entries of expected in order, by key, by index and backwards */
+	private static void assertEntries(TreeMap<Integer, Integer> expected, SkipList<Integer, Integer> ilist) {
+		assertEquals(expected.size(), ilist.size());
+		int index = 0;
+		for (Entry<Integer, Integer> entry : expected.entrySet()) {
+			assertEquals(entry.getValue(), ilist.get(entry.getKey()));
+			assertEquals(entry.getValue(), ilist.get(index));
+			assertEquals(index++, ilist.rank(entry.getKey()));
+		}
+		List<Integer> descending = new ArrayList<>();
+		ilist.descendingIterator().forEachRemaining(node -> descending.add(node.getKey()));
+		assertEquals(new ArrayList<>(expected.descendingKeySet()), descending);
+	}
+
+	@Test
+	public void testPollFirstAndLast() {
+		Random rand = new Random(31);
+		for (boolean deterministic : new boolean[] { false, true }) {
+			SkipList<Integer, Integer> ilist = deterministic ? new DeterministicSkipList<>() : new SkipList<>();
+			TreeMap<Integer, Integer> expected = new TreeMap<>();
+			assertNull(ilist.peekFirst());
+			assertNull(ilist.pollFirst());
+			assertNull(ilist.pollLast());
+			for (int i = 0; i < 2000; i++) {
+				int key = rand.nextInt(5000);
+				ilist.put(key, i);
+				expected.put(key, i);
+			}
+			while (!expected.isEmpty()) {
+				assertEquals(expected.firstKey(), ilist.peekFirst().getKey());
+				assertEquals(expected.lastKey(), ilist.peekLast().getKey());
+				Node<Integer, Integer> polled = rand.nextBoolean() ? ilist.pollFirst() : ilist.pollLast();
+				assertEquals(expected.remove(polled.getKey()), polled.getValue());
+				if (expected.size() % 100 == 0)
+					assertEntries(expected, ilist);
+			}
+			assertEquals(0, ilist.size());
+			assertNull(ilist.peekLast());
+			ilist.add(1, 1);
+			assertEntries(new TreeMap<>(Collections.singletonMap(1, 1)), ilist);
+		}
+	}
+
+	@Test
+	public void testCapacity() {
+		for (boolean deterministic : new boolean[] { false, true }) {
+			for (SkipList.Eviction eviction : SkipList.Eviction.values()) {
+				SkipList<Integer, Integer> ilist = deterministic ? new DeterministicSkipList<>() : new SkipList<>();
+				assertEquals(SkipList.UNBOUNDED, ilist.capacity());
+				for (int i = 0; i < 100; i++)
+					ilist.add(i, i);
+				ilist.setCapacity(50, eviction);
+				assertEquals(50, ilist.capacity());
+				TreeMap<Integer, Integer> expected = new TreeMap<>();
+				for (int i = eviction == SkipList.Eviction.FIRST ? 50 : 0; expected.size() < 50; i++)
+					expected.put(i, i);
+				assertEntries(expected, ilist);
+
+				// a full list keeps the greatest or least keys seen
+				Random rand = new Random(37);
+				for (int i = 0; i < 5000; i++) {
+					int key = rand.nextInt(100000) - 50000;
+					ilist.put(key, key);
+					expected.put(key, key);
+					if (expected.size() > 50) {
+						if (eviction == SkipList.Eviction.FIRST)
+							expected.pollFirstEntry();
+						else
+							expected.pollLastEntry();
+					}
+					assertEquals(expected.size(), ilist.size());
+				}
+				assertEntries(expected, ilist);
+			}
+		}
+	}
+
+	private static List<Integer> keys(SkipList<Integer, Integer> ilist) {
+		return ilist.stream().map(Node::getKey).collect(Collectors.toList());
+	}
+
+	@Test
+	public void testFullListDropsKeyItWouldEvict() {
+		for (boolean deterministic : new boolean[] { false, true }) {
+			SkipList<Integer, Integer> ilist = deterministic ? new DeterministicSkipList<>() : new SkipList<>();
+			for (int i = 1; i <= 3; i++)
+				ilist.add(i, i);
+			ilist.setCapacity(3, SkipList.Eviction.LAST);
+			assertNull(ilist.put(4, 4));
+			assertNull(ilist.add(5, 5));
+			assertNull(ilist.putIfAbsent(6, 6));
+			assertEquals(Integer.valueOf(7), ilist.computeIfAbsent(7, key -> key));
+			assertEquals(Integer.valueOf(8), ilist.merge(8, 8, Integer::sum));
+			assertEquals("[1, 2, 3]", keys(ilist).toString());
+			assertNull(ilist.put(0, 0));
+			assertEquals("[0, 1, 2]", keys(ilist).toString());
+
+			ilist.setCapacity(3, SkipList.Eviction.FIRST);
+			assertNull(ilist.put(-1, -1));
+			assertEquals(Integer.valueOf(-2), ilist.compute(-2, (key, value) -> key));
+			assertEquals("[0, 1, 2]", keys(ilist).toString());
+			assertNull(ilist.put(3, 3));
+			assertEquals("[1, 2, 3]", keys(ilist).toString());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCapacityTooSmall() {
+		list.setCapacity(0, SkipList.Eviction.FIRST);
+	}
+
+	@Test
+	public void testFingerSearch() {
+		Random rand = new Random(41);
+		for (boolean deterministic : new boolean[] { false, true }) {
+			SkipList<Integer, Integer> ilist = deterministic ? new DeterministicSkipList<>() : new SkipList<>();
+			assertFalse(ilist.isFingerSearch());
+			ilist.setFingerSearch(true);
+			assertTrue(ilist.isFingerSearch());
+			TreeMap<Integer, Integer> expected = new TreeMap<>();
+			int cluster = 0;
+			for (int n = 0; n < 20000; n++) {
+				// keys near the last key most of the time, anywhere otherwise
+				int key = rand.nextInt(10) == 0 ? rand.nextInt(5000) : Math.floorMod(cluster + rand.nextInt(21) - 10, 5000);
+				cluster = key;
+				switch (rand.nextInt(6)) {
+				case 0:
+				case 1:
+					assertEquals(expected.put(key, n), ilist.put(key, n));
+					break;
+				case 2:
+					Node<Integer, Integer> removed = expected.isEmpty() ? null : ilist.remove((Object) key);
+					assertEquals(expected.remove(key), removed == null ? null : removed.getValue());
+					break;
+				case 3:
+					// a search inside the function must not disturb the path of the compute
+					int value = n;
+					assertEquals(expected.compute(key, (k, v) -> v != null && v % 3 == 0 ? null : value),
+							ilist.compute(key, (k, v) -> ilist.get((Object) (k + 100)) == null && v != null && v % 3 == 0 ? null
+									: v != null && v % 3 == 0 ? null : value));
+					break;
+				case 4:
+					assertEquals(expected.get(key), ilist.get((Object) key));
+					assertEquals(expected.containsKey(key), ilist.contains(key));
+					break;
+				case 5:
+					Integer ceiling = expected.ceilingKey(key);
+					assertEquals(ceiling == null ? -1 : expected.headMap(ceiling).size(), ceiling == null ? -1 : ilist.rank(ceiling));
+					break;
+				}
+				if (n % 2000 == 0) {
+					// modifications that drop the finger
+					if (!expected.isEmpty()) {
+						assertEquals(expected.pollFirstEntry().getKey(), ilist.pollFirst().getKey());
+						ilist.removeRange(key, key + 50);
+						expected.subMap(key, key + 50).clear();
+					}
+					ilist.rebalance(Promotion.RANDOM);
+					assertEntries(expected, ilist);
+				}
+			}
+			assertEntries(expected, ilist);
+			ilist.clear();
+			assertNull(ilist.get((Object) 1));
+			ilist.setFingerSearch(false);
+			assertFalse(ilist.isFingerSearch());
+		}
+	}
+
+	@Test
+	public void testFingerSearchShortensClusteredSearches() {
+		SkipList<Integer, Integer> ilist = new SkipList<>();
+		for (int i = 0; i < 100000; i++)
+			ilist.add(i, i);
+		SkipListMetrics metrics = ilist.enableMetrics();
+		for (int i = 0; i < 100000; i++)
+			ilist.get((Object) i);
+		long fromHead = visited(metrics.searchLengthHistogram());
+
+		metrics.reset();
+		ilist.setFingerSearch(true);
+		for (int i = 0; i < 100000; i++)
+			ilist.get((Object) i);
+		long fromFinger = visited(metrics.searchLengthHistogram());
+		assertEquals(100000, metrics.fingerHits() + metrics.fingerMisses());
+		assertTrue(metrics.fingerHitRate() > 0.9);
+		assertTrue(fromFinger + " >= " + fromHead, fromFinger * 2 < fromHead);
+
+		// adds and removes by key keep the finger
+		metrics.reset();
+		for (int i = 100000; i < 110000; i++) {
+			ilist.add(i, i);
+			ilist.remove((Object) (i - 1));
+		}
+		assertTrue(metrics.fingerHitRate() > 0.9);
+		assertEquals(100000, ilist.size());
+		assertEquals(Integer.valueOf(99998), ilist.get(99998));
+		assertEquals(99999, ilist.rank(109999));
+
+		// random keys are far from the last key, their searches start high and are longer
+		metrics.reset();
+		Random rand = new Random(43);
+		for (int i = 0; i < 100000; i++)
+			assertNotNull(ilist.get((Object) rand.nextInt(99999)));
+		assertTrue(metrics.fingerHitRate() < 0.9);
+		assertTrue(visited(metrics.searchLengthHistogram()) > 2 * fromFinger);
+	}
+
+	/** Returns the total number of nodes visited by the searches of a search length histogram */
+	private static long visited(long[] histogram) {
+		long total = 0;
+		for (int i = 0; i < histogram.length; i++)
+			total += i * histogram[i];
+		return total;
+	}
+
+	@Test
+	public void testUnionSplitAndConcat() {
+		Random rand = new Random(29);
+		for (boolean deterministic : new boolean[] { false, true }) {
+			SkipList<Integer, Integer> a = deterministic ? new DeterministicSkipList<>() : new SkipList<>(4, SkipList.ADAPTIVE);
+			SkipList<Integer, Integer> b = deterministic ? new DeterministicSkipList<>() : new SkipList<>();
+			TreeMap<Integer, Integer> expected = new TreeMap<>();
+			for (int i = 0; i < 3000; i++) {
+				int key = rand.nextInt(5000);
+				a.put(key, i);
+				expected.put(key, i);
+			}
+			for (int i = 0; i < 2000; i++) {
+				int key = rand.nextInt(5000);
+				b.put(key, i);
+			}
+			for (Node<Integer, Integer> node : b)
+				expected.merge(node.getKey(), node.getValue(), Integer::sum);
+			Node<Integer, Integer> kept = a.iterator().next();
+
+			SkipList<Integer, Integer> merged = SkipList.union(a, b, Integer::sum);
+			assertTrue(a.isEmpty());
+			assertTrue(b.isEmpty());
+			assertEquals(deterministic, merged instanceof DeterministicSkipList);
+			assertEquals(4, merged.probability() * (deterministic ? 2 : 1));
+			assertEntries(expected, merged);
+			if (kept.getKey().equals(expected.firstKey()))
+				assertSame(kept, merged.iterator().next());
+
+			for (int cut : new int[] { -1, 2500, 1234, 5000 }) {
+				SkipList<Integer, Integer>.Cursor cursor = merged.cursor();
+				cursor.seek(cut);
+				Node<Integer, Integer> node = cursor.node();
+				SkipList<Integer, Integer> right = merged.split(cut);
+				assertEntries(new TreeMap<>(expected.headMap(cut)), merged);
+				assertEntries(new TreeMap<>(expected.tailMap(cut)), right);
+				if (node != null && !deterministic)
+					assertSame(node, right.iterator().next());
+				merged.concat(right);
+				assertTrue(right.isEmpty());
+				assertEntries(expected, merged);
+			}
+
+			SkipList<Integer, Integer> tail = merged.split(4000);
+			SkipList<Integer, Integer> empty = deterministic ? new DeterministicSkipList<>() : new SkipList<>();
+			empty.concat(tail);
+			empty.concat(new SkipList<>());
+			assertEntries(new TreeMap<>(expected.tailMap(4000)), empty);
+			empty.put(5000, 0);
+			empty.put(-1, 0);
+			assertEquals(Integer.valueOf(5000), empty.descendingIterator().next().getKey());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testConcatOverlapping() {
+		SkipList<String, String> other = new SkipList<>();
+		other.add("DD", "Overlapping");
+		list.concat(other);
+	}
+
+	@Test(expected = ConcurrentModificationException.class)
+	public void testIteratorFailsFast() {
+		Iterator<Node<String, String>> i = list.iterator();
+		i.next();
+		list.remove((Object) "D");
+		i.next();
+	}
+
+	@Test
+	public void testAppendTo() throws IOException {
+		StringWriter out = new StringWriter();
+		assertSame(out, list.appendTo(out));
+		assertEquals("{A=First, B=Second, BD=Third, D=Fourth, DE=Fifth}", out.toString());
+		assertEquals(list.toStringWithExpress(), list.appendExpressTo(new StringBuilder()).toString());
+		assertTrue(list.toStringWithExpress().startsWith("[A, B, BD, D, DE]\n"));
+		assertEquals("{}", new SkipList<String, String>().toString());
+
+		// linear in the output, a quadratic dump of this list took minutes
+		SkipList<Integer, Integer> large = new SkipList<>();
+		for (int i = 0; i < 200000; i++)
+			large.add(i, i);
+		assertEquals(large.size(), large.toString().split(", ").length);
+		assertEquals(large.size(), large.toStringWithExpress().split("\n")[0].split(", ").length);
+	}
+
+	@Test
+	public void testComputeAndMerge() {
+		SkipListMetrics metrics = list.enableMetrics();
+		assertEquals("First", list.putIfAbsent("A", "Other"));
+		assertNull(list.putIfAbsent("C", "New"));
+		assertEquals("New", list.replace("C", "Replaced"));
+		assertNull(list.replace("CC", "Missing"));
+		assertFalse(list.replace("C", "New", "Other"));
+		assertTrue(list.replace("C", "Replaced", "Other"));
+		assertEquals("Other", list.get("C"));
+
+		assertEquals("Second", list.computeIfAbsent("B", key -> "Unused"));
+		assertEquals("BB", list.computeIfAbsent("BB", key -> key));
+		assertNull(list.computeIfAbsent("BC", key -> null));
+		assertNull(list.computeIfPresent("BC", (key, value) -> "Unused"));
+		assertEquals("BB!", list.computeIfPresent("BB", (key, value) -> value + "!"));
+		assertNull(list.computeIfPresent("BB", (key, value) -> null));
+		assertEquals("Fourth?", list.compute("D", (key, value) -> value + "?"));
+		assertEquals("E:null", list.compute("E", (key, value) -> key + ":" + value));
+		assertNull(list.compute("E", (key, value) -> null));
+		assertNull(list.compute("F", (key, value) -> null));
+		assertEquals("M", list.merge("M", "M", String::concat));
+		assertEquals("MN", list.merge("M", "N", String::concat));
+		assertNull(list.merge("M", "O", (old, value) -> null));
+		assertEquals("{A=First, B=Second, BD=Third, C=Other, D=Fourth?, DE=Fifth}", list.toString());
+
+		// every operation searched the list once, including the ones that added or removed the key
+		assertEquals(20, Arrays.stream(metrics.searchLengthHistogram()).sum());
+		assertEquals(3, metrics.count(SkipListMetrics.Operation.REMOVE));
+		assertEquals(4, metrics.count(SkipListMetrics.Operation.INSERT));
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void testMergeNullValue() {
+		list.merge("A", null, (old, value) -> value);
+	}
+
+	/** Returns the average number of bytes allocated by the current thread per run of operation, after a warm-up */
+	private static double allocatedBytesPerOperation(int operations, Runnable operation) {
+		for (int i = 0; i < operations; i++)
+			operation.run();
+		return allocatedBytesPerRun(operations, operation);
+	}
+
+	/** Returns the average number of bytes allocated by the current thread per run of operation, without a warm-up */
+	private static double allocatedBytesPerRun(int operations, Runnable operation) {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes(thread);
+		for (int i = 0; i < operations; i++)
+			operation.run();
+		long after = threads.getThreadAllocatedBytes(thread);
+		return (double) (after - before) / operations;
+	}
+
+	/** Keys are boxed up front and half of them are in the list, so only the skiplist itself can allocate */
+	@Test
+	public void testLookupAndUpdateDoNotAllocate() {
+		Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+		threads.setThreadAllocatedMemoryEnabled(true);
+
+		final int n = 1 << 14;
+		final Integer[] keys = new Integer[2 * n];
+		for (int i = 0; i < keys.length; i++)
+			keys[i] = i;
+		Collections.shuffle(Arrays.asList(keys), new Random(13));
+		final SkipList<Integer, Integer> ilist = new SkipList<>();
+		for (int i = 0; i < keys.length; i += 2)
+			ilist.add(keys[i], keys[i]);
+		final Integer value = -1;
+		final int[] next = { 0 };
+
+		double get = allocatedBytesPerOperation(10 * n, () -> ilist.get((Object) keys[next[0]++ & (2 * n - 1)]));
+		double contains = allocatedBytesPerOperation(10 * n, () -> ilist.contains(keys[next[0]++ & (2 * n - 1)]));
+		double update = allocatedBytesPerOperation(10 * n, () -> ilist.add(keys[2 * (next[0]++ & (n - 1))], value));
+		double put = allocatedBytesPerOperation(10 * n, () -> ilist.put(keys[2 * (next[0]++ & (n - 1))], value));
+		double merge = allocatedBytesPerOperation(10 * n, () -> ilist.merge(keys[2 * (next[0]++ & (n - 1))], value, (old, given) -> given));
+		double rank = allocatedBytesPerOperation(10 * n, () -> ilist.rank(keys[next[0]++ & (2 * n - 1)]));
+		assertTrue("get allocates " + get + " bytes", get < 1);
+		assertTrue("contains allocates " + contains + " bytes", contains < 1);
+		assertTrue("add of an existing key allocates " + update + " bytes", update < 1);
+		assertTrue("put of an existing key allocates " + put + " bytes", put < 1);
+		assertTrue("merge into an existing key allocates " + merge + " bytes", merge < 1);
+		assertTrue("rank allocates " + rank + " bytes", rank < 1);
+
+		// the first half of the odd keys warms up add and remove, the second half is added and removed while measured,
+		// only the nodes themselves may be allocated
+		final int half = n / 2;
+		for (int round = 0; round < 4; round++) {
+			next[0] = 0;
+			for (int i = 0; i < half; i++)
+				ilist.add(keys[2 * next[0]++ + 1], value);
+			next[0] = 0;
+			for (int i = 0; i < half; i++)
+				ilist.remove((Object) keys[2 * next[0]++ + 1]);
+		}
+		assertEquals(n, ilist.size());
+		next[0] = half;
+		double add = allocatedBytesPerRun(half, () -> ilist.add(keys[2 * next[0]++ + 1], value));
+		assertEquals(n + half, ilist.size());
+		next[0] = half;
+		double remove = allocatedBytesPerRun(half, () -> ilist.remove((Object) keys[2 * next[0]++ + 1]));
+		assertEquals(n, ilist.size());
+		assertTrue("add of a new key allocates " + add + " bytes", add < 128);
+		assertTrue("remove allocates " + remove + " bytes", remove < 1);
+	}
+
+	@Test
+	public void testComparator() {
+		SkipList<String, Integer> clist = new SkipList<>(String.CASE_INSENSITIVE_ORDER);
+		TreeMap<String, Integer> oracle = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		Random rand = new Random(12);
+		for (int n = 0; n < 5000; n++) {
+			String key = randomName();
+			key = rand.nextBoolean() ? key.toUpperCase() : key;
+			if (rand.nextInt(3) == 0) {
+				Node<String, Integer> removed = clist.remove(key);
+				assertEquals(oracle.remove(key), removed == null ? null : removed.getValue());
+			} else {
+				assertEquals(oracle.put(key, n), clist.put(key, n));
+			}
+			assertEquals(oracle.get(key), clist.get(key));
+			assertEquals(oracle.containsKey(key), clist.contains(key));
+			assertEquals(oracle.headMap(key).size(), clist.rank(key));
+			assertEquals(oracle.toString(), clist.toString());
+		}
+		assertSame(String.CASE_INSENSITIVE_ORDER, clist.comparator());
+		assertNull(list.comparator());
+
+		List<Entry<String, Integer>> reversed = new ArrayList<>(new TreeMap<>(oracle).descendingMap().entrySet());
+		SkipList<String, Integer> built = SkipList.fromSorted(reversed.iterator(),
+				Collections.reverseOrder(String.CASE_INSENSITIVE_ORDER), Promotion.RANDOM);
+		assertEquals(reversed.get(0).getValue(), built.get(0));
+		assertEquals(reversed.size(), built.rank(""));
+		assertNotNull(built.spliterator().getComparator());
+	}
+
+	@Test
+	public void testLevelOptions() {
+		assertEquals(1, SkipList.levelsFor(2, 0));
+		assertEquals(1, SkipList.levelsFor(4, 3));
+		assertEquals(21, SkipList.levelsFor(2, 1 << 20));
+		assertEquals(10, SkipList.levelsFor(4, 1_000_000));
+
+		SkipList<Integer, Integer> capped = new SkipList<>(4, 3);
+		assertEquals(4, capped.probability());
+		assertEquals(3, capped.maxLevel());
+		TreeMap<Integer, Integer> oracle = new TreeMap<>();
+		Random rand = new Random(14);
+		for (int n = 0; n < 20000; n++) {
+			int key = rand.nextInt(50000);
+			assertEquals(oracle.put(key, n), capped.put(key, n));
+		}
+		assertEquals(3, capped.toStringWithExpress().split("\n").length);
+		assertEquals(oracle.toString(), capped.toString());
+		for (int i = 0; i < 100; i++) {
+			int key = rand.nextInt(50000);
+			assertEquals(oracle.headMap(key).size(), capped.rank(key));
+		}
+
+		SkipList<Integer, Integer> odd = new SkipList<>(Collections.reverseOrder(), 3, SkipList.UNBOUNDED);
+		for (int i = 0; i < 1000; i++)
+			odd.add(i, i);
+		assertEquals(Integer.valueOf(999), odd.get(0));
+		assertEquals(SkipList.UNBOUNDED, odd.maxLevel());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testProbabilityTooLow() {
+		new SkipList<Integer, Integer>(1, SkipList.UNBOUNDED);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeMaxLevel() {
+		new SkipList<Integer, Integer>(2, -1);
+	}
+
+	@Test
+	public void testAdaptiveMaxLevel() {
+		SkipList<Integer, Integer> adaptive = new SkipList<>(2, SkipList.ADAPTIVE);
+		SkipListMetrics metrics = adaptive.enableMetrics();
+		assertEquals(1, adaptive.maxLevel());
+		for (int i = 0; i < 5000; i++) {
+			adaptive.add(i, i);
+			assertEquals(SkipList.levelsFor(2, adaptive.size()), adaptive.maxLevel());
+			assertTrue(metrics.skips() < adaptive.maxLevel());
+		}
+		for (int i = 0; i < 5000; i += 2)
+			adaptive.remove((Object) i);
+		// the cap only adapts to a shrink when the list is rebalanced
+		assertEquals(SkipList.levelsFor(2, 5000), adaptive.maxLevel());
+		adaptive.rebalance(Promotion.RANDOM);
+		assertEquals(SkipList.levelsFor(2, 2500), adaptive.maxLevel());
+		adaptive.clear();
+		assertEquals(1, adaptive.maxLevel());
+	}
+
+	@Test
+	public void testRebalance() {
+		SkipList<Integer, Integer> ilist = new SkipList<>();
+		TreeMap<Integer, Integer> oracle = new TreeMap<>();
+		for (int i = 0; i < 10000; i++) {
+			ilist.add(i, i);
+			oracle.put(i, i);
+		}
+		Random rand = new Random(15);
+		while (oracle.size() > 100) {
+			Integer key = rand.nextInt(10000);
+			assertEquals(oracle.remove(key) != null, ilist.remove((Object) key) != null);
+		}
+		List<Node<Integer, Integer>> nodes = new ArrayList<>();
+		ilist.forEach(nodes::add);
+
+		for (Promotion promotion : Promotion.values()) {
+			ilist.rebalance(promotion);
+			assertEquals(oracle.size(), ilist.size());
+			assertEquals(oracle.toString(), ilist.toString());
+			Integer[] keys = oracle.keySet().toArray(new Integer[0]);
+			for (int i = 0; i < keys.length; i++) {
+				assertEquals(keys[i], ilist.get(i));
+				assertEquals(i, ilist.rank(keys[i]));
+			}
+			// the nodes are linked again, not copied
+			Iterator<Node<Integer, Integer>> same = nodes.iterator();
+			for (Node<Integer, Integer> node : ilist)
+				assertSame(same.next(), node);
+		}
+		// evenly spaced towers of 100 nodes, every second node is in list 1 and the highest list holds the 64th node
+		ilist.rebalance(Promotion.EVENLY_SPACED);
+		String[] levels = ilist.toStringWithExpress().split("\n");
+		assertEquals(7, levels.length);
+		assertEquals(50, levels[1].split(", ").length);
+		assertEquals("[" + oracle.keySet().toArray()[63] + "]", levels[6]);
+	}
 }